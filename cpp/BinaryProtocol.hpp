@@ -0,0 +1,143 @@
+#ifndef BINARY_PROTOCOL_HPP
+#define BINARY_PROTOCOL_HPP
+
+#include <cstdint>
+#include <cstring>
+#include <stdexcept>
+#include <string>
+#include <vector>
+#include "Tile.hpp"
+#include "VisualStep.hpp"
+
+using namespace std;
+
+// Binary framing used in session mode after {"action":"set_protocol","protocol":"binary"}.
+// Every frame is a big-endian u32 payload length followed by the payload; the
+// payload layouts are documented in communication_structure.jsonc.
+namespace binproto {
+
+enum ActionCode : uint8_t {
+    ACTION_JSON = 0, // payload is a JSON request, answered with a JSON section
+    ACTION_CPU_MOVE = 1,
+    ACTION_STATS = 2,
+    ACTION_VIS_STEPS = 3,
+    ACTION_SOLVE = 4
+};
+
+enum Section : uint8_t {
+    SECTION_MOVE = 1,
+    SECTION_STATS = 2,
+    SECTION_STEPS = 4,
+    SECTION_SOLUTION = 8,
+    SECTION_JSON = 16
+};
+
+// Request flags
+const uint8_t FLAG_VISUALIZE = 1;
+const uint8_t FLAG_WRAPS = 2;
+const uint8_t FLAG_LAST_MOVE = 4;
+const uint8_t FLAG_STORE_BOARD = 8;   // u32 id, u32 version precede the cells
+const uint8_t FLAG_BOARD_DELTAS = 16; // deltas against a stored board replace the cells
+
+const int STEP_RECORD_BYTES = 28;
+
+inline const char *const *algoNames() {
+    static const char *const names[] = {"greedy", "backtracking", "dp", "divideandconquer"};
+    return names;
+}
+
+inline const char *const *stepTypeNames() {
+    static const char *const names[] = {"TRY", "UNDO", "SUCCESS", "FAIL", "CONSIDER", "SCORE", "REGION"};
+    return names;
+}
+
+// Time Complexity: $O(1)$
+// Space Complexity: $O(1)$
+inline uint8_t stepTypeCode(const string &type) {
+    const char *const *names = stepTypeNames();
+    for (uint8_t i = 0; i < 7; ++i) {
+        if (type == names[i]) return i;
+    }
+    return 255;
+}
+
+// Sequential big-endian reader over one payload
+struct Reader {
+    const string &data;
+    size_t pos = 0;
+
+    explicit Reader(const string &d) : data(d) {}
+
+    void need(size_t n) const {
+        if (pos + n > data.size()) throw runtime_error("Truncated binary request");
+    }
+    uint8_t u8() {
+        need(1);
+        return static_cast<uint8_t>(data[pos++]);
+    }
+    uint16_t u16() {
+        uint16_t hi = u8();
+        return static_cast<uint16_t>(hi << 8 | u8());
+    }
+    int16_t i16() { return static_cast<int16_t>(u16()); }
+    uint32_t u32() {
+        uint32_t hi = u16();
+        return hi << 16 | u16();
+    }
+    string rest() {
+        string s = data.substr(pos);
+        pos = data.size();
+        return s;
+    }
+};
+
+// Big-endian writer building one payload
+struct Writer {
+    string out;
+
+    void u8(uint8_t v) { out.push_back(static_cast<char>(v)); }
+    void u16(uint16_t v) { u8(v >> 8); u8(v & 0xFF); }
+    void i16(int v) { u16(static_cast<uint16_t>(static_cast<int16_t>(v))); }
+    void u32(uint32_t v) { u16(v >> 16); u16(v & 0xFFFF); }
+    void i32(int v) { u32(static_cast<uint32_t>(v)); }
+    void f64(double v) {
+        uint64_t bits;
+        memcpy(&bits, &v, sizeof bits);
+        u32(static_cast<uint32_t>(bits >> 32));
+        u32(static_cast<uint32_t>(bits));
+    }
+    void bytes(const string &s) { out += s; }
+
+    // Fixed-width step record, STEP_RECORD_BYTES long
+    void step(const VisualStep &s) {
+        i16(s.row);
+        i16(s.col);
+        i16(s.rotation);
+        u8(stepTypeCode(s.type));
+        u8(static_cast<uint8_t>(s.leftreq));
+        i32(s.upmask);
+        f64(s.score);
+        i16(s.r0);
+        i16(s.r1);
+        i16(s.c0);
+        i16(s.c1);
+    }
+};
+
+// Cell byte: bits 0-2 TileType, 3-4 quarter turns, 5 locked, 6 custom connections follow
+// Time Complexity: $O(1)$
+// Space Complexity: $O(1)$
+inline Tile decodeCell(uint8_t bits) {
+    Tile tile(static_cast<TileType>(bits & 0x7), ((bits >> 3) & 3) * 90, (bits & 0x20) != 0);
+    return tile;
+}
+
+// Time Complexity: $O(1)$
+// Space Complexity: $O(1)$
+inline vector<bool> decodeConnections(uint8_t mask) {
+    return {(mask & 1) != 0, (mask & 2) != 0, (mask & 4) != 0, (mask & 8) != 0};
+}
+
+} // namespace binproto
+
+#endif // BINARY_PROTOCOL_HPP
@@ -50,14 +50,14 @@ private:
         vector<int> rotations = getRotationOptions(board.at(r, c));
         int originalRot = board.at(r, c).rotation;
 
-        if (steps && steps->size() < 10000) {
+        if (recordingSteps(steps)) {
             steps->push_back({r, c, originalRot, "CONSIDER", 0});
         }
 
         for (int rot : rotations) {
             board.at(r, c).rotation = rot;
             
-            if (steps && steps->size() < 10000) {
+            if (recordingSteps(steps)) {
                 steps->push_back({r, c, rot, "TRY", 0});
             }
 
@@ -67,7 +67,7 @@ private:
                 fixedMap[r][c] = false;
             }
 
-            if (steps && steps->size() < 10000) {
+            if (recordingSteps(steps)) {
                 steps->push_back({r, c, rot, "UNDO", 0});
             }
         }
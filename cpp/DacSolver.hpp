@@ -95,7 +95,7 @@ private:
         vector<int> rotations = getRotationOptions(board.at(r, c));
         int orig = board.at(r, c).rotation;
 
-        if (steps && steps->size() < 10000) {
+        if (recordingSteps(steps)) {
             VisualStep s;
             s.row = r; s.col = c; s.rotation = orig; s.type = "CONSIDER";
             s.r0 = reg.r0; s.r1 = reg.r1; s.c0 = reg.c0; s.c1 = reg.c1;
@@ -105,7 +105,7 @@ private:
         for (int rot : rotations) {
             board.at(r, c).rotation = rot;
             
-            if (steps && steps->size() < 10000) {
+            if (recordingSteps(steps)) {
                 VisualStep s;
                 s.row = r; s.col = c; s.rotation = rot; s.type = "TRY";
                 s.r0 = reg.r0; s.r1 = reg.r1; s.c0 = reg.c0; s.c1 = reg.c1;
@@ -118,7 +118,7 @@ private:
                 fixedMap[r][c] = false;
             }
 
-            if (steps && steps->size() < 10000) {
+            if (recordingSteps(steps)) {
                 VisualStep s;
                 s.row = r; s.col = c; s.rotation = rot; s.type = "UNDO";
                 s.r0 = reg.r0; s.r1 = reg.r1; s.c0 = reg.c0; s.c1 = reg.c1;
@@ -130,7 +130,7 @@ private:
     }
 
     bool solveRegion(const Region &reg, const Constraints &constraints) {
-        if (steps && steps->size() < 10000) {
+        if (recordingSteps(steps)) {
             VisualStep s;
             s.row = -1; s.col = -1; s.type = "REGION";
             s.r0 = reg.r0; s.r1 = reg.r1; s.c0 = reg.c0; s.c1 = reg.c1;
@@ -65,7 +65,7 @@ private:
         uint8_t reqNorth = (upMask >> c) & 1;
         uint8_t reqWest = leftReq;
 
-        if (steps && steps->size() < 5000) {
+        if (recordingSteps(steps)) {
             VisualStep s;
             s.row = r; s.col = c; s.rotation = tile.rotation;
             s.type = "CONSIDER";
@@ -95,7 +95,7 @@ private:
                 if (c == width - 1 && e != 0) continue;
             }
 
-            if (steps && steps->size() < 5000) {
+            if (recordingSteps(steps)) {
                 steps->push_back({r, c, rot, "TRY", 0, (int)upMask, (int)leftReq});
             }
 
@@ -115,7 +115,7 @@ private:
                 return memo[key] = true;
             }
 
-            if (steps && steps->size() < 5000) {
+            if (recordingSteps(steps)) {
                 steps->push_back({r, c, rot, "UNDO", 0, (int)upMask, (int)leftReq});
             }
         }
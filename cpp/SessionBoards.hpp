@@ -0,0 +1,94 @@
+#ifndef SESSION_BOARDS_HPP
+#define SESSION_BOARDS_HPP
+
+#include <cstdint>
+#include <stdexcept>
+#include <string>
+#include <vector>
+#include "JsonUtils.hpp"
+
+using namespace std;
+
+// One tile rotation sent instead of the whole board
+struct TileDelta {
+    int row;
+    int col;
+    int rotation;
+};
+
+// A delta request whose base version is not the one stored (or the board is not
+// stored at all). The Java side answers by sending the whole board again.
+struct StaleBoard : runtime_error {
+    using runtime_error::runtime_error;
+};
+
+// Boards kept by a session between requests, keyed by the id the Java side gave
+// them, so that later requests only carry the tiles that turned. The most
+// recently used CAPACITY boards are kept.
+class SessionBoards {
+public:
+    static const size_t CAPACITY = 4;
+
+    // Time Complexity: $O(N)$ for the copy
+    // Space Complexity: $O(N)$
+    void store(uint32_t id, uint32_t version, const GameState &state) {
+        Entry *entry = find(id);
+        if (entry) {
+            entry->version = version;
+            entry->state = state;
+            return;
+        }
+        if (entries.size() >= CAPACITY) entries.pop_back();
+        entries.insert(entries.begin(), Entry{id, version, state});
+    }
+
+    // Applies deltas to board id, which must be at version base, and returns a copy
+    // for the request (actions may change the board they are given).
+    // Time Complexity: $O(N + D)$; the $O(N)$ part is a copy inside the engine
+    // Space Complexity: $O(N)$
+    GameState apply(uint32_t id, uint32_t base, uint32_t version, const vector<TileDelta> &deltas) {
+        Entry *entry = find(id);
+        if (!entry) {
+            throw StaleBoard("Board " + to_string(id) + " is not stored in this session");
+        }
+        if (entry->version != base) {
+            throw StaleBoard("Board " + to_string(id) + " is at version " + to_string(entry->version)
+                             + ", not " + to_string(base));
+        }
+        Board &board = entry->state.board;
+        for (const TileDelta &d : deltas) {
+            if (d.row < 0 || d.row >= board.height || d.col < 0 || d.col >= board.width) {
+                entries.erase(entries.begin());
+                throw StaleBoard("Delta outside board " + to_string(id));
+            }
+            board.at(d.row, d.col).rotation = ((d.rotation % 360) + 360) % 360;
+        }
+        entry->version = version;
+        return entry->state;
+    }
+
+private:
+    struct Entry {
+        uint32_t id;
+        uint32_t version;
+        GameState state;
+    };
+    vector<Entry> entries; // most recently used first
+
+    // Moves the board to the front when found
+    Entry *find(uint32_t id) {
+        for (size_t i = 0; i < entries.size(); ++i) {
+            if (entries[i].id == id) {
+                if (i > 0) {
+                    Entry e = std::move(entries[i]);
+                    entries.erase(entries.begin() + i);
+                    entries.insert(entries.begin(), std::move(e));
+                }
+                return &entries.front();
+            }
+        }
+        return nullptr;
+    }
+};
+
+#endif // SESSION_BOARDS_HPP
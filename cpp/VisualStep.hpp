@@ -1,6 +1,7 @@
 #ifndef VISUAL_STEP_HPP
 #define VISUAL_STEP_HPP
 
+#include <cstdlib>
 #include <string>
 #include <vector>
 #include "nlohmann/json.hpp"
@@ -9,11 +10,11 @@ using json = nlohmann::json;
 using namespace std;
 
 struct VisualStep {
-    int row;
-    int col;
-    int rotation;
+    int row = 0;
+    int col = 0;
+    int rotation = 0;
     string type; // "TRY", "UNDO", "SUCCESS", "FAIL", "CONSIDER", "SCORE", "REGION"
-    double score;
+    double score = 0; // DP's CONSIDER steps leave it unset
     int upmask = 0;
     int leftreq = 0;
     int r0 = -1, r1 = -1, c0 = -1, c1 = -1; // Region bounds for DAC
@@ -32,4 +33,21 @@ struct VisualStep {
     }
 };
 
+// Steps one request may record. Traces are no longer cut short at a few thousand
+// steps; this only keeps a search that never ends from exhausting memory (each
+// step is about 80 bytes here and 28 on the wire). NETS_MAX_STEPS overrides it.
+inline size_t maxRecordedSteps() {
+    static const size_t limit = [] {
+        const char *env = getenv("NETS_MAX_STEPS");
+        long long value = env ? atoll(env) : 0;
+        return value > 0 ? static_cast<size_t>(value) : static_cast<size_t>(5000000);
+    }();
+    return limit;
+}
+
+// True while steps should still be recorded
+inline bool recordingSteps(const vector<VisualStep> *steps) {
+    return steps && steps->size() < maxRecordedSteps();
+}
+
 #endif // VISUAL_STEP_HPP
@@ -0,0 +1,75 @@
+package com.nets.bench;
+
+import com.nets.analysis.BoardAnalyzer;
+import com.nets.analysis.ConnectivityTracker;
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Board analysis on a scrambled game:
+ * <ul>
+ *   <li>analyze: one full pass for components, loose ends, loops and the powered
+ *       set, which calculateComponents, calculateLooseEnds and
+ *       updatePoweredStatus used to compute separately;</li>
+ *   <li>move: what a click costs now, a rotation followed by the
+ *       ConnectivityTracker update and writing back the powered flags that
+ *       flipped (GameSession.applyRotation);</li>
+ *   <li>portMasks: every cell's ports in its current rotation (getConnections).</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalysisBenchmark {
+    @Param({"5", "30", "100", "300", "1000"})
+    public int size;
+
+    private PackedBoard board;
+    private ConnectivityTracker tracker;
+    private int[] clicks; // cells to turn, in order
+    private int click;
+
+    @Setup
+    public void setUp() {
+        GameState state = Puzzles.game(size);
+        board = state.getBoard();
+        tracker = new ConnectivityTracker(state);
+        for (int cell = 0; cell < board.size(); cell++) board.setPowered(cell, tracker.isPowered(cell));
+
+        int[] movable = Puzzles.movableCells(board);
+        SplittableRandom rand = new SplittableRandom(7);
+        clicks = new int[1 << 16];
+        for (int i = 0; i < clicks.length; i++) clicks[i] = movable[rand.nextInt(movable.length)];
+    }
+
+    @Benchmark
+    public BoardAnalyzer.Result analyze() {
+        return BoardAnalyzer.analyze(board, false, false);
+    }
+
+    @Benchmark
+    public int move() {
+        int cell = clicks[click++ & (clicks.length - 1)];
+        board.rotate(cell, 90);
+        tracker.update(cell / size, cell % size);
+        for (int i = 0; i < tracker.getFlippedCount(); i++) {
+            int flipped = tracker.getFlippedCell(i);
+            board.setPowered(flipped, tracker.isPowered(flipped));
+        }
+        return tracker.getComponents();
+    }
+
+    @Benchmark
+    public int portMasks() {
+        int ports = 0;
+        for (int cell = 0; cell < board.size(); cell++) ports += board.portMask(cell);
+        return ports;
+    }
+}
@@ -0,0 +1,36 @@
+package com.nets.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * JMH's command line with the GC profiler always on, so every result comes with
+ * its allocation rate (gc.alloc.rate.norm is bytes per operation). Listing and
+ * help options go straight to JMH.
+ *
+ * Usage: java -jar target/benchmarks.jar [JMH options, e.g. Analysis -p size=100]
+ */
+public final class BenchmarkMain {
+    private static final List<String> JMH_ONLY = Arrays.asList("-h", "-l", "-lp", "-lprof", "-lrf");
+
+    private BenchmarkMain() {}
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.stream(args).anyMatch(JMH_ONLY::contains)) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        OptionsBuilder options = new OptionsBuilder();
+        options.parent(cmd);
+        boolean hasGc = cmd.getProfilers().stream()
+                .anyMatch(p -> p.getKlass().equals("gc") || p.getKlass().equals(GCProfiler.class.getName()));
+        if (!hasGc) options.addProfiler(GCProfiler.class);
+        new Runner(options.build()).run();
+    }
+}
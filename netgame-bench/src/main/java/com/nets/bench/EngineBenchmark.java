@@ -0,0 +1,97 @@
+package com.nets.bench;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.engine.ResponseCache;
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
+import com.nets.model.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One engine request and its response, per action, on a long-lived session
+ * with the same protocol choice as the game (what invokeCppEngine does without
+ * ResponseCache). The board does not change between requests, so board deltas
+ * make every request after the first one small; -p deltas=false sends the whole
+ * board each time. -p session=false starts a fresh engine process for every
+ * request instead (the one-shot protocol), which is what each call cost before
+ * sessions. -p protocol=json keeps a session on JSON lines instead of binary
+ * frames. -p cached=true goes through ResponseCache like the game does; as the
+ * board never changes, every request after the first is a hit, so that is the
+ * cost of a hit. Request and response bytes and the encode/decode time per
+ * request are printed at the end of each trial.
+ *
+ * The engine is found like the game finds it (-Dnets.engine=... or
+ * nets_engine in the parent or current directory). Sizes stop at 30 because a
+ * greedy move on a 30x30 board already takes close to a second; get_stats
+ * is cheap enough for -p size=1000. solve_game is in SolveBenchmark. setUp
+ * sends one request and fails the run if its answer is missing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EngineBenchmark {
+    @Param({"5", "10", "15", "20", "30"})
+    public int size;
+
+    @Param({"get_stats", "get_cpu_move", "get_visualization_steps"})
+    public String action;
+
+    @Param({"greedy"})
+    public String algo;
+
+    @Param({"true"})
+    public boolean deltas;
+
+    @Param({"true"})
+    public boolean session;
+
+    @Param({"binary"})
+    public String protocol;
+
+    @Param({"false"})
+    public boolean cached;
+
+    private CppEngine engine;
+    private final ResponseCache cache = new ResponseCache();
+    private GameState state;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = new CppEngine(session, "binary".equals(protocol));
+        engine.setBoardDeltas(deltas);
+        state = Puzzles.game(size);
+        state.getMeta().setTurn("CPU");
+
+        EngineResponse first = request();
+        boolean answered = "get_stats".equals(action) ? first.getStats() != null
+                : "get_cpu_move".equals(action) ? first.getMove() != null
+                : first.getSteps() != null && !first.getSteps().isEmpty();
+        if (!answered) throw new IllegalStateException("No answer to " + action + " on " + size + "x" + size);
+    }
+
+    // JMH reports time and allocation; the payload and the Java side of each request come
+    // from the engine.* histograms, which hold this trial's requests (one fork per trial)
+    @TearDown
+    public void tearDown() {
+        engine.close();
+        Histogram requestBytes = Metrics.histogram("engine.request.bytes");
+        System.out.printf("%n%s %dx%d: request %.0f B, response %.0f B, encode %.1f us, decode %.1f us"
+                        + " (means over %d engine requests)%n", action, size, size, requestBytes.getMean(),
+                Metrics.histogram("engine.response.bytes").getMean(),
+                Metrics.histogram("engine.encode.nanos").getMean() / 1e3,
+                Metrics.histogram("engine.decode.nanos").getMean() / 1e3, requestBytes.getCount());
+    }
+
+    @Benchmark
+    public EngineResponse request() throws Exception {
+        boolean visualize = "get_visualization_steps".equals(action);
+        if (cached) return cache.request(engine, action, algo, visualize, state, null);
+        return engine.request(action, algo, visualize, state);
+    }
+}
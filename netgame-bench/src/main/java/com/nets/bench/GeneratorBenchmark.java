@@ -0,0 +1,47 @@
+package com.nets.bench;
+
+import com.nets.analysis.BoardAnalyzer;
+import com.nets.controller.PuzzleGenerator;
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * New puzzles: generate is what generateGrid became (spanning tree, scramble and
+ * the initial stats, as PuzzlePool.generate); validate is the check PuzzlePool
+ * runs on every generated solution (validateGeneratedGrid).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeneratorBenchmark {
+    @Param({"5", "30", "100", "300", "1000", "2000"})
+    public int size;
+
+    private PackedBoard solved;
+    private int seed;
+
+    @Setup
+    public void setUp() {
+        solved = Puzzles.solved(size);
+    }
+
+    @Benchmark
+    public GameState generate() {
+        SplittableRandom rand = new SplittableRandom(seed++);
+        PackedBoard board = PuzzleGenerator.generateSolved(size, size, rand);
+        PuzzleGenerator.scramble(board, rand);
+        return PuzzleGenerator.newGameState(board, seed);
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return BoardAnalyzer.analyze(solved, false, false).isSolved();
+    }
+}
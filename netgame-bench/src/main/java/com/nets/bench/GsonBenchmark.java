@@ -0,0 +1,39 @@
+package com.nets.bench;
+
+import com.google.gson.Gson;
+import com.nets.model.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** GameState to and from the JSON the engine's JSON protocol and saved games use. */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GsonBenchmark {
+    @Param({"5", "30", "100", "300", "1000"})
+    public int size;
+
+    private final Gson gson = new Gson();
+    private GameState state;
+    private String json;
+
+    @Setup
+    public void setUp() {
+        state = Puzzles.game(size);
+        json = gson.toJson(state);
+    }
+
+    @Benchmark
+    public String encode() {
+        return gson.toJson(state);
+    }
+
+    @Benchmark
+    public GameState decode() {
+        return gson.fromJson(json, GameState.class);
+    }
+}
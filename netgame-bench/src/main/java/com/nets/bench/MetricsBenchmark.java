@@ -0,0 +1,40 @@
+package com.nets.bench;
+
+import com.nets.metrics.Counter;
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the metrics on the hot paths: Histogram.record and Counter.increment
+ * on one histogram and counter shared by all benchmark threads. Run with -t 4
+ * (or -t max) to see them under contention.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsBenchmark {
+    private final Histogram histogram = Metrics.histogram("bench.record.nanos");
+    private final Counter counter = Metrics.counter("bench.increments");
+
+    /** Values to record, spread over the histogram's buckets; one sequence per thread. */
+    @State(Scope.Thread)
+    public static class Values {
+        long next;
+    }
+
+    @Benchmark
+    public void record(Values values) {
+        histogram.record(values.next++ & 0xFFFFF);
+    }
+
+    @Benchmark
+    public void increment() {
+        counter.increment();
+    }
+}
@@ -0,0 +1,36 @@
+package com.nets.bench;
+
+import com.nets.controller.PuzzleGenerator;
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+
+import java.util.SplittableRandom;
+
+/** Fixed-seed puzzles, generated the same way as PuzzlePool does. */
+final class Puzzles {
+    static final int SEED = 42;
+
+    private Puzzles() {}
+
+    static PackedBoard solved(int size) {
+        return PuzzleGenerator.generateSolved(size, size, new SplittableRandom(SEED));
+    }
+
+    // Scrambled game with its stats, human to move
+    static GameState game(int size) {
+        SplittableRandom rand = new SplittableRandom(SEED);
+        PackedBoard board = PuzzleGenerator.generateSolved(size, size, rand);
+        PuzzleGenerator.scramble(board, rand);
+        return PuzzleGenerator.newGameState(board, SEED);
+    }
+
+    // Cells a player can turn: not EMPTY and not locked
+    static int[] movableCells(PackedBoard board) {
+        int[] cells = new int[board.size()];
+        int n = 0;
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (!board.isEmpty(cell) && !board.isLocked(cell)) cells[n++] = cell;
+        }
+        return java.util.Arrays.copyOf(cells, n);
+    }
+}
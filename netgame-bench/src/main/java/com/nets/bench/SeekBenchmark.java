@@ -0,0 +1,89 @@
+package com.nets.bench;
+
+import com.nets.model.StepTrace;
+import com.nets.model.TraceCheckpoints;
+import com.nets.model.VisualStep;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Visualizer seeks on a long synthetic trace (random tile steps of every type,
+ * a rare SUCCESS and a REGION every 5,000 steps):
+ * <ul>
+ *   <li>seek: the board rotations at a random step (TraceCheckpoints.rotationsAt),
+ *       which has to fit in a 16.7 ms frame;</li>
+ *   <li>nextSuccess: the next SUCCESS from a random step;</li>
+ *   <li>build: checkpoints for the whole trace, as the visualizer builds them
+ *       while the trace arrives.</li>
+ * </ul>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SeekBenchmark {
+    @Param({"30", "200"})
+    public int size;
+
+    @Param({"1000000"})
+    public int steps;
+
+    private StepTrace trace;
+    private int[][] start;
+    private TraceCheckpoints checkpoints;
+    private int[] board;
+    private int[] positions; // steps to seek to, in order
+    private int seek;
+    private final int successBit = TraceCheckpoints.typeBit("SUCCESS");
+
+    @Setup
+    public void setUp() {
+        SplittableRandom rand = new SplittableRandom(size);
+        start = new int[size][size];
+        for (int[] row : start) {
+            for (int c = 0; c < size; c++) row[c] = rand.nextInt(4) * 90;
+        }
+
+        trace = new StepTrace();
+        String[] types = {"TRY", "UNDO", "FAIL", "CONSIDER", "SCORE"};
+        for (int i = 0; i < steps; i++) {
+            String type = i % 5000 == 4999 ? "REGION" : rand.nextInt(20_000) == 0 ? "SUCCESS" : types[rand.nextInt(types.length)];
+            double score = "SCORE".equals(type) ? rand.nextInt(100) : 0;
+            trace.accept(new VisualStep(rand.nextInt(size), rand.nextInt(size), rand.nextInt(4) * 90, type, score,
+                    0, 0, -1, -1, -1, -1));
+        }
+
+        checkpoints = new TraceCheckpoints(trace, start);
+        checkpoints.extendTo(trace.size());
+        board = new int[size * size];
+        positions = new int[1 << 12];
+        for (int i = 0; i < positions.length; i++) positions[i] = rand.nextInt(trace.size() + 1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        trace.close();
+    }
+
+    @Benchmark
+    public int[] seek() {
+        checkpoints.rotationsAt(positions[seek++ & (positions.length - 1)], board);
+        return board;
+    }
+
+    @Benchmark
+    public int nextSuccess() {
+        return checkpoints.nextOfType(positions[seek++ & (positions.length - 1)], successBit);
+    }
+
+    @Benchmark
+    public int build() {
+        TraceCheckpoints built = new TraceCheckpoints(trace, start);
+        built.extendTo(trace.size());
+        return built.getBuiltTo();
+    }
+}
@@ -0,0 +1,52 @@
+package com.nets.bench;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.model.GameState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * solve_game per solver on a scrambled puzzle, over a long-lived session.
+ * DP gives up at once on boards wider than 16 columns (its row mask), so sizes
+ * stop at 16. Backtracking is not in the defaults because a 16x16 board takes
+ * it tens of seconds; -p algo=backtracking -p size=5,10 runs it. setUp solves
+ * the puzzle once and fails the run unless the solver found a solution.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolveBenchmark {
+    @Param({"5", "10", "16"})
+    public int size;
+
+    @Param({"dp", "divideandconquer"})
+    public String algo;
+
+    private CppEngine engine;
+    private GameState state;
+
+    @Setup
+    public void setUp() throws Exception {
+        engine = new CppEngine();
+        state = Puzzles.game(size);
+        state.getMeta().setTurn("CPU");
+        if (!Boolean.TRUE.equals(solve().getSolved())) {
+            throw new IllegalStateException(algo + " did not solve the " + size + "x" + size + " puzzle");
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        engine.close();
+    }
+
+    @Benchmark
+    public EngineResponse solve() throws Exception {
+        return engine.request("solve_game", algo, false, state);
+    }
+}
@@ -0,0 +1,74 @@
+package com.nets.bench;
+
+import com.nets.model.StepTrace;
+import com.nets.model.VisualStep;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeping a decoded trace of synthetic step records (every type and field in use):
+ * <ul>
+ *   <li>list: a VisualStep per record in an ArrayList, how traces were kept
+ *       before StepTrace;</li>
+ *   <li>trace: the records copied into a StepTrace, as a binary session
+ *       decodes them;</li>
+ *   <li>spilled: the same with one chunk on the heap and the rest mapped from
+ *       the trace's temporary file.</li>
+ * </ul>
+ * gc.alloc.rate.norm is the heap a trace of that many steps costs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StepTraceBenchmark {
+    @Param({"10000", "1000000"})
+    public int steps;
+
+    private byte[] records;
+
+    @Setup
+    public void setUp() {
+        records = new byte[steps * StepTrace.RECORD_BYTES];
+        ByteBuffer out = ByteBuffer.wrap(records);
+        SplittableRandom rand = new SplittableRandom(8);
+        for (int i = 0; i < steps; i++) {
+            out.putShort((short) rand.nextInt(200)).putShort((short) rand.nextInt(200))
+                    .putShort((short) (rand.nextInt(4) * 90)).put((byte) rand.nextInt(7)).put((byte) rand.nextInt(16))
+                    .putInt(rand.nextInt(16)).putDouble(rand.nextInt(1000) / 4.0)
+                    .putShort((short) -1).putShort((short) -1).putShort((short) -1).putShort((short) -1);
+        }
+    }
+
+    @Benchmark
+    public List<VisualStep> list() {
+        ByteBuffer in = ByteBuffer.wrap(records);
+        List<VisualStep> list = new ArrayList<>();
+        for (int i = 0; i < steps; i++) list.add(StepTrace.readRecord(in, i * StepTrace.RECORD_BYTES));
+        return list;
+    }
+
+    @Benchmark
+    public int trace() {
+        return fill(new StepTrace(Long.MAX_VALUE));
+    }
+
+    @Benchmark
+    public int spilled() {
+        return fill(new StepTrace(1));
+    }
+
+    private int fill(StepTrace trace) {
+        try (trace) {
+            trace.acceptRecords(records, 0, steps);
+            return trace.size();
+        }
+    }
+}
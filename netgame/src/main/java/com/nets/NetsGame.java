@@ -1,8 +1,12 @@
 package com.nets;
 
 import com.nets.controller.GameController;
+import com.nets.controller.PuzzlePool;
+import com.nets.controller.SpeculativeMoves;
+import com.nets.metrics.Metrics;
 import com.nets.view.GameBoard;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,13 +19,15 @@ import javafx.scene.layout.Region;
 import javafx.scene.layout.Priority;
 import javafx.stage.Stage;
 
+import com.nets.model.StepFeed;
 import com.nets.model.VisualStep;
-import java.util.List;
 import java.util.Optional;
 
 public class NetsGame extends Application {
 
     private GameController controller;
+    private final PuzzlePool puzzlePool = new PuzzlePool();
+    private final SpeculativeMoves speculation = new SpeculativeMoves();
     private GameBoard gameBoard;
     private Stage primaryStage;
     private int currentRows = 5;
@@ -31,6 +37,7 @@ public class NetsGame extends Application {
     public void start(Stage primaryStage) {
         this.primaryStage = primaryStage;
         primaryStage.setTitle("Nets Game");
+        Metrics.startLogging();
         
         // Window size - 80% of screen
         javafx.stage.Screen screen = javafx.stage.Screen.getPrimary();
@@ -44,6 +51,9 @@ public class NetsGame extends Application {
         primaryStage.setY((bounds.getHeight() - height) / 2);
         primaryStage.setMaximized(false);
 
+        // Generate the default size in the background while the dialog is open
+        puzzlePool.prefetch(currentRows, currentCols);
+
         // Initialize UI immediately so Stage has a Scene
         initializeGame();
 
@@ -53,11 +63,9 @@ public class NetsGame extends Application {
         if (dimensions.isPresent()) {
             currentRows = dimensions.get()[0];
             currentCols = dimensions.get()[1];
-            // Re-initialize with user choice
-            controller.initGame(currentRows, currentCols);
-        } else {
-            // User cancelled, use defaults (already set by initializeGame)
         }
+        // User cancelled: keep the defaults
+        controller.initGame(currentRows, currentCols);
         
         // Show welcome message
         showWelcomeMessage();
@@ -139,6 +147,8 @@ public class NetsGame extends Application {
 
         // Create controller
         controller = new GameController(gameBoard);
+        controller.setPuzzlePool(puzzlePool);
+        controller.setSpeculation(speculation);
 
         // Layout
         BorderPane gameRoot = new BorderPane();
@@ -163,10 +173,6 @@ public class NetsGame extends Application {
         // Create control buttons
         HBox controls = createControls(scene);
         gameRoot.setBottom(controls);
-
-        // Initialize game with selected dimensions
-        System.out.println("Starting new game: " + currentRows + "x" + currentCols);
-        controller.initGame(currentRows, currentCols);
     }
 
     private VBox createSidePanel(Scene scene) {
@@ -234,15 +240,31 @@ public class NetsGame extends Application {
             return;
         }
 
-        List<VisualStep> steps = controller.getVisualizationSteps();
-        if (steps == null || steps.isEmpty()) {
-            Alert alert = new Alert(Alert.AlertType.INFORMATION);
-            alert.setContentText("No evaluation steps were recorded for the last move.");
-            alert.getDialogPane().setStyle("-fx-font-size: 14px;");
-            alert.show();
-            return;
-        }
+        // Steps come from the last move's trace or stream in from the engine; the tab opens
+        // as soon as the first one is there
+        StepFeed steps = controller.streamVisualizationSteps();
+        Thread opener = new Thread(() -> {
+            try {
+                VisualStep first = steps.await(0);
+                Platform.runLater(() -> {
+                    if (first != null) {
+                        showVisualizer(steps);
+                    } else {
+                        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+                        alert.setContentText("No evaluation steps were recorded for the last move.");
+                        alert.getDialogPane().setStyle("-fx-font-size: 14px;");
+                        alert.show();
+                    }
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "nets-visualizer-open");
+        opener.setDaemon(true);
+        opener.start();
+    }
 
+    private void showVisualizer(StepFeed steps) {
         com.nets.view.VisualizerView visView = new com.nets.view.VisualizerView(
             gameBoard.getGameState(), 
             steps,
@@ -384,6 +406,16 @@ public class NetsGame extends Application {
         alert.showAndWait();
     }
 
+    @Override
+    public void stop() {
+        if (controller != null) {
+            controller.shutdown();
+        }
+        puzzlePool.close();
+        speculation.close();
+        Metrics.log(System.getProperty("nets.metrics.file"));
+    }
+
     public static void main(String[] args) {
         launch(args);
     }
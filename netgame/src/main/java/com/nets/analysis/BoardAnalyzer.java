@@ -0,0 +1,201 @@
+package com.nets.analysis;
+
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+import com.nets.model.Tile;
+import com.nets.model.TileType;
+
+/**
+ * Computes components, loose ends, loop presence and the powered set of a board
+ * in one row-major sweep with a union-find, instead of one DFS per statistic.
+ *
+ * The results follow the C++ engine's get_stats: every non-EMPTY tile is a node,
+ * two neighbours are joined when both have a port facing each other, and a port
+ * facing the board edge (without wrapping), an EMPTY tile or a tile without the
+ * matching port counts as one loose end.
+ */
+public final class BoardAnalyzer {
+    private static final int NORTH = PackedBoard.NORTH;
+    private static final int EAST = PackedBoard.EAST;
+    private static final int SOUTH = PackedBoard.SOUTH;
+    private static final int WEST = PackedBoard.WEST;
+
+    private BoardAnalyzer() {}
+
+    /** Outcome of one analysis pass. */
+    public static final class Result {
+        private final int components;
+        private final int looseEnds;
+        private final boolean hasLoop;
+        private final boolean solved;
+        private final int nodeCount;
+        private final int poweredCount;
+        private final boolean[] powered;
+        private final int cols;
+
+        Result(int components, int looseEnds, boolean hasLoop, boolean solved,
+               int nodeCount, int poweredCount, boolean[] powered, int cols) {
+            this.components = components;
+            this.looseEnds = looseEnds;
+            this.hasLoop = hasLoop;
+            this.solved = solved;
+            this.nodeCount = nodeCount;
+            this.poweredCount = poweredCount;
+            this.powered = powered;
+            this.cols = cols;
+        }
+
+        public int getComponents() { return components; }
+        public int getLooseEnds() { return looseEnds; }
+        public boolean hasLoop() { return hasLoop; }
+        /** Engine notion of solved: no loose ends, one network, no loops unless the rules allow them. */
+        public boolean isSolved() { return solved; }
+        public int getNodeCount() { return nodeCount; }
+        public int getPoweredCount() { return poweredCount; }
+        public boolean isPowered(int row, int col) { return powered[row * cols + col]; }
+        /** True when every non-EMPTY tile is reachable from the power source. */
+        public boolean isFullyPowered() { return poweredCount == nodeCount; }
+    }
+
+    // Time Complexity: O(N α(N)) where N is the number of cells
+    // Space Complexity: O(N) for the union-find and the powered set
+    public static Result analyze(GameState state) {
+        boolean allowLoops = state.getRules() != null && state.getRules().isAllowLoops();
+        return analyze(state.getBoard(), state.getMeta().isWraps(), allowLoops);
+    }
+
+    // Tile grids are packed first; prefer the PackedBoard overload
+    // Time Complexity: O(N α(N))
+    // Space Complexity: O(N)
+    public static Result analyze(Tile[][] grid, boolean wraps, boolean allowLoops) {
+        return analyze(PackedBoard.fromTiles(grid), wraps, allowLoops);
+    }
+
+    // Reads port masks straight from the packed cells; the only allocations are
+    // the union-find and the powered set, never anything per cell
+    // Time Complexity: O(N α(N))
+    // Space Complexity: O(N)
+    public static Result analyze(PackedBoard board, boolean wraps, boolean allowLoops) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int n = rows * cols;
+
+        int[] parent = new int[n];
+        int nodes = 0;
+        int unions = 0;
+        int looseEnds = 0;
+        boolean hasLoop = false;
+        int powerCell = -1;
+
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                int cell = r * cols + c;
+                parent[cell] = cell;
+                // EMPTY tiles have no ports but still expose their neighbours' ports as loose ends
+                int mask = board.portMask(cell);
+                if (!board.isEmpty(cell)) {
+                    nodes++;
+                    if (powerCell == -1 && board.getType(cell) == TileType.POWER) powerCell = cell;
+                }
+
+                // Pair every port with the already visited neighbour to the north and west;
+                // ports on the south and east side are settled when that neighbour is reached.
+                if (r > 0) {
+                    int link = link(mask, NORTH, board.portMask(cell - cols), SOUTH);
+                    if (link < 0) looseEnds -= link;
+                    else if (link > 0) {
+                        if (union(parent, cell, cell - cols)) unions++; else hasLoop = true;
+                    }
+                } else if (!wraps && (mask & NORTH) != 0) {
+                    looseEnds++;
+                }
+                if (c > 0) {
+                    int link = link(mask, WEST, board.portMask(cell - 1), EAST);
+                    if (link < 0) looseEnds -= link;
+                    else if (link > 0) {
+                        if (union(parent, cell, cell - 1)) unions++; else hasLoop = true;
+                    }
+                } else if (!wraps && (mask & WEST) != 0) {
+                    looseEnds++;
+                }
+                if (!wraps) {
+                    if (r == rows - 1 && (mask & SOUTH) != 0) looseEnds++;
+                    if (c == cols - 1 && (mask & EAST) != 0) looseEnds++;
+                }
+            }
+        }
+
+        if (wraps) {
+            // Seams between the last and first row/column
+            for (int c = 0; c < cols; c++) {
+                int top = c;
+                int bottom = (rows - 1) * cols + c;
+                int link = link(board.portMask(top), NORTH, board.portMask(bottom), SOUTH);
+                if (link < 0) looseEnds -= link;
+                else if (link > 0 && top != bottom) {
+                    if (union(parent, top, bottom)) unions++; else hasLoop = true;
+                }
+            }
+            for (int r = 0; r < rows; r++) {
+                int left = r * cols;
+                int right = left + cols - 1;
+                int link = link(board.portMask(left), WEST, board.portMask(right), EAST);
+                if (link < 0) looseEnds -= link;
+                else if (link > 0 && left != right) {
+                    if (union(parent, left, right)) unions++; else hasLoop = true;
+                }
+            }
+        }
+
+        int components = nodes - unions;
+
+        // A PC has a single port, so the old "PCs are sinks" traversal rule never
+        // stops power reaching anything; the powered set is the power tile's component.
+        boolean[] powered = new boolean[n];
+        int poweredCount = 0;
+        if (powerCell != -1) {
+            int powerRoot = find(parent, powerCell);
+            for (int cell = 0; cell < n; cell++) {
+                if (!board.isEmpty(cell) && find(parent, cell) == powerRoot) {
+                    powered[cell] = true;
+                    poweredCount++;
+                }
+            }
+        }
+
+        boolean solved = looseEnds == 0 && components <= 1 && (allowLoops || !hasLoop);
+        return new Result(components, looseEnds, hasLoop, solved, nodes, poweredCount, powered, cols);
+    }
+
+    // Classifies the shared side of two neighbours: 1 when both ports face each other,
+    // -k for k unmatched ports, 0 when neither side has a port there.
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private static int link(int mask, int side, int neighbourMask, int neighbourSide) {
+        boolean mine = (mask & side) != 0;
+        boolean theirs = (neighbourMask & neighbourSide) != 0;
+        if (mine && theirs) return 1;
+        return (mine || theirs) ? -1 : 0;
+    }
+
+    // Time Complexity: amortized O(α(N))
+    // Space Complexity: O(1)
+    private static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
+    }
+
+    // Returns false when both cells were already in the same component (the edge closes a loop)
+    // Time Complexity: amortized O(α(N))
+    // Space Complexity: O(1)
+    private static boolean union(int[] parent, int a, int b) {
+        int ra = find(parent, a);
+        int rb = find(parent, b);
+        if (ra == rb) return false;
+        if (ra < rb) parent[rb] = ra; else parent[ra] = rb;
+        return true;
+    }
+}
@@ -0,0 +1,364 @@
+package com.nets.analysis;
+
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+import com.nets.model.TileType;
+
+/**
+ * Keeps components, loose ends, loop presence and the powered set of a board up
+ * to date while single tiles rotate, giving the same answers as BoardAnalyzer.
+ *
+ * Every component carries a label. A rotation only changes the edges around one
+ * cell, and each edge is applied on its own:
+ * <ul>
+ *   <li>adding an edge between two components relabels one of them (the side
+ *       without the power tile, otherwise the smaller one);</li>
+ *   <li>removing an edge runs two breadth-first searches from its endpoints in
+ *       lockstep. They stop as soon as they meet (still connected) or one side
+ *       runs out, and only that side is relabelled.</li>
+ * </ul>
+ * The work is therefore bounded by the part of the network that actually
+ * changes, plus the cells whose powered state flips. Those cells are reported
+ * after each update so callers can refresh just them.
+ */
+public final class ConnectivityTracker {
+    private static final int[] OPPOSITE = {2, 3, 0, 1};
+
+    private final PackedBoard board;
+    private final int rows;
+    private final int cols;
+    private final boolean wraps;
+    private final boolean allowLoops;
+
+    private final int[] mask;     // current port mask per cell, 0 for EMPTY
+    private final boolean[] node; // non-EMPTY cells
+    private final int[] label;    // component label per node, -1 for EMPTY
+    private final int[] size;     // node count per label
+    private final int[] freeLabels;
+    private int freeCount;
+
+    private final int powerCell;
+    private int nodes;
+    private int edges;
+    private int components;
+    private int looseEnds;
+
+    // Search scratch space, reused by every update
+    private final int[] queueA;
+    private final int[] queueB;
+    private final int[] mark;
+    private int epoch;
+
+    private final int[] flipped;
+    private int flippedCount;
+
+    public ConnectivityTracker(GameState state) {
+        this(state.getBoard(), state.getMeta().isWraps(),
+                state.getRules() != null && state.getRules().isAllowLoops());
+    }
+
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public ConnectivityTracker(PackedBoard board, boolean wraps, boolean allowLoops) {
+        this.board = board;
+        this.rows = board.getRows();
+        this.cols = board.getCols();
+        this.wraps = wraps;
+        this.allowLoops = allowLoops;
+
+        int n = rows * cols;
+        mask = new int[n];
+        node = new boolean[n];
+        label = new int[n];
+        size = new int[n];
+        freeLabels = new int[n];
+        queueA = new int[n];
+        queueB = new int[n];
+        mark = new int[n];
+        flipped = new int[2 * n]; // a cell can lose power during removals and regain it during additions
+
+        int power = -1;
+        for (int cell = 0; cell < n; cell++) {
+            label[cell] = -1;
+            if (board.isEmpty(cell)) continue;
+            node[cell] = true;
+            mask[cell] = board.portMask(cell);
+            nodes++;
+            if (power == -1 && board.getType(cell) == TileType.POWER) power = cell;
+        }
+        powerCell = power;
+
+        // Labels are handed out from a free list so that splits can take a fresh one
+        for (int l = n - 1; l >= 0; l--) freeLabels[freeCount++] = l;
+
+        for (int cell = 0; cell < n; cell++) {
+            if (!node[cell]) continue;
+            for (int d = 0; d < 4; d++) {
+                if ((mask[cell] & (1 << d)) == 0) continue;
+                int other = neighbor(cell, d);
+                if (other == -1 || (mask[other] & (1 << OPPOSITE[d])) == 0) {
+                    looseEnds++;
+                } else if (other != cell && cell < other) {
+                    edges++;
+                }
+            }
+            if (label[cell] == -1) {
+                int l = freeLabels[--freeCount];
+                size[l] = relabel(cell, -1, l, false);
+                components++;
+            }
+        }
+        flippedCount = 0;
+    }
+
+    // Picks up the cell's current ports from the board after it was rotated
+    // Time Complexity: O(1) plus setPortMask
+    // Space Complexity: O(1)
+    public void update(int row, int col) {
+        int cell = row * cols + col;
+        setPortMask(cell, board.portMask(cell));
+    }
+
+    // Applies a new port mask to one cell. Afterwards getFlippedCount/getFlippedCell
+    // list the cells whose powered state changed.
+    // Time Complexity: O(size of the affected sub-network + flipped cells)
+    // Space Complexity: O(1) beyond the preallocated scratch arrays
+    public void setPortMask(int cell, int newMask) {
+        flippedCount = 0;
+        if (!node[cell]) return;
+        int oldMask = mask[cell];
+        if (oldMask == newMask) return;
+
+        looseEnds -= localLooseEnds(cell);
+
+        // Remove ports one at a time so every removal splits at most one component in two
+        for (int d = 0; d < 4; d++) {
+            int bit = 1 << d;
+            if ((oldMask & bit) == 0 || (newMask & bit) != 0) continue;
+            mask[cell] &= ~bit;
+            int other = neighbor(cell, d);
+            if (other != -1 && other != cell && (mask[other] & (1 << OPPOSITE[d])) != 0) {
+                edges--;
+                split(cell, other);
+            }
+        }
+        for (int d = 0; d < 4; d++) {
+            int bit = 1 << d;
+            if ((newMask & bit) == 0 || (oldMask & bit) != 0) continue;
+            mask[cell] |= bit;
+            int other = neighbor(cell, d);
+            if (other != -1 && other != cell && (mask[other] & (1 << OPPOSITE[d])) != 0) {
+                edges++;
+                merge(cell, other);
+            }
+        }
+
+        looseEnds += localLooseEnds(cell);
+    }
+
+    public int getComponents() {
+        return components;
+    }
+
+    public int getLooseEnds() {
+        return looseEnds;
+    }
+
+    /** A spanning forest has exactly nodes - components edges; anything beyond that closes a loop. */
+    public boolean hasLoop() {
+        return edges > nodes - components;
+    }
+
+    public boolean isSolved() {
+        return looseEnds == 0 && components <= 1 && (allowLoops || !hasLoop());
+    }
+
+    public int getNodeCount() {
+        return nodes;
+    }
+
+    public int getPoweredCount() {
+        return powerCell == -1 ? 0 : size[label[powerCell]];
+    }
+
+    public boolean isFullyPowered() {
+        return getPoweredCount() == nodes;
+    }
+
+    public boolean isPowered(int row, int col) {
+        return isPowered(row * cols + col);
+    }
+
+    public boolean isPowered(int cell) {
+        return powerCell != -1 && node[cell] && label[cell] == label[powerCell];
+    }
+
+    /** Number of cells whose powered state changed in the last update. */
+    public int getFlippedCount() {
+        return flippedCount;
+    }
+
+    /** Row-major index of the i-th cell whose powered state changed in the last update. */
+    public int getFlippedCell(int i) {
+        return flipped[i];
+    }
+
+    // Loose ends that involve this cell: its own unmatched ports plus neighbour ports facing it
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private int localLooseEnds(int cell) {
+        int count = 0;
+        int m = mask[cell];
+        for (int d = 0; d < 4; d++) {
+            int other = neighbor(cell, d);
+            boolean theirs = other != -1 && (mask[other] & (1 << OPPOSITE[d])) != 0;
+            if ((m & (1 << d)) != 0) {
+                if (!theirs) count++;
+            } else if (theirs && other != cell) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private int neighbor(int cell, int d) {
+        int r = cell / cols;
+        int c = cell - r * cols;
+        switch (d) {
+            case 0: r--; break;
+            case 1: c++; break;
+            case 2: r++; break;
+            default: c--; break;
+        }
+        if (wraps) {
+            r = (r + rows) % rows;
+            c = (c + cols) % cols;
+        } else if (r < 0 || r >= rows || c < 0 || c >= cols) {
+            return -1;
+        }
+        return r * cols + c;
+    }
+
+    // Called after the edge a-b was removed; a and b still share a label.
+    // Time Complexity: O(min(|side a|, |side b|)), or O(unpowered side) when power is cut off
+    // Space Complexity: O(1) beyond scratch arrays
+    private void split(int a, int b) {
+        int oldLabel = label[a];
+        int markA = nextEpoch();
+        int markB = markA + 1;
+
+        int headA = 0, tailA = 0, headB = 0, tailB = 0;
+        queueA[tailA++] = a;
+        mark[a] = markA;
+        queueB[tailB++] = b;
+        mark[b] = markB;
+
+        // Lockstep searches: each expands one cell per round
+        while (headA < tailA && headB < tailB) {
+            int result = expand(queueA, headA++, tailA, markA, markB);
+            if (result < 0) return; // met the other search: still connected
+            tailA = result;
+            result = expand(queueB, headB++, tailB, markB, markA);
+            if (result < 0) return;
+            tailB = result;
+        }
+
+        // One side is exhausted and forms its own component now
+        boolean aDone = headA >= tailA;
+        int doneMark = aDone ? markA : markB;
+        int doneStart = aDone ? a : b;
+        int otherStart = aDone ? b : a;
+
+        int newLabel = freeLabels[--freeCount];
+        components++;
+
+        boolean hadPower = powerCell != -1 && label[powerCell] == oldLabel;
+        if (hadPower && mark[powerCell] == doneMark) {
+            // Power stays with the exhausted side, so everything else loses it
+            int moved = relabel(otherStart, oldLabel, newLabel, true);
+            size[newLabel] = moved;
+            size[oldLabel] -= moved;
+        } else {
+            int moved = relabel(doneStart, oldLabel, newLabel, hadPower);
+            size[newLabel] = moved;
+            size[oldLabel] -= moved;
+        }
+    }
+
+    // Expands one cell of a search; returns the new tail, or -1 when the other search is reached
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private int expand(int[] queue, int head, int tail, int own, int other) {
+        int cell = queue[head];
+        int m = mask[cell];
+        for (int d = 0; d < 4; d++) {
+            if ((m & (1 << d)) == 0) continue;
+            int next = neighbor(cell, d);
+            if (next == -1 || next == cell || (mask[next] & (1 << OPPOSITE[d])) == 0) continue;
+            if (mark[next] == other) return -1;
+            if (mark[next] != own) {
+                mark[next] = own;
+                queue[tail++] = next;
+            }
+        }
+        return tail;
+    }
+
+    // Called after the edge a-b was added
+    // Time Complexity: O(size of the relabelled component)
+    // Space Complexity: O(1) beyond scratch arrays
+    private void merge(int a, int b) {
+        int la = label[a];
+        int lb = label[b];
+        if (la == lb) return; // the edge closes a loop
+
+        int powerLabel = powerCell == -1 ? -1 : label[powerCell];
+        int from, into, start;
+        if (la == powerLabel || (lb != powerLabel && size[la] >= size[lb])) {
+            from = lb; into = la; start = b;
+        } else {
+            from = la; into = lb; start = a;
+        }
+
+        boolean gainsPower = into == powerLabel;
+        size[into] += relabel(start, from, into, gainsPower);
+        size[from] = 0;
+        freeLabels[freeCount++] = from;
+        components--;
+    }
+
+    // Moves the component reachable from start whose cells carry fromLabel to toLabel
+    // Time Complexity: O(size of the component)
+    // Space Complexity: O(1) beyond scratch arrays
+    private int relabel(int start, int fromLabel, int toLabel, boolean recordFlip) {
+        int head = 0, tail = 0;
+        queueA[tail++] = start;
+        label[start] = toLabel;
+        while (head < tail) {
+            int cell = queueA[head++];
+            if (recordFlip) flipped[flippedCount++] = cell;
+            int m = mask[cell];
+            for (int d = 0; d < 4; d++) {
+                if ((m & (1 << d)) == 0) continue;
+                int next = neighbor(cell, d);
+                if (next == -1 || label[next] != fromLabel || (mask[next] & (1 << OPPOSITE[d])) == 0) continue;
+                label[next] = toLabel;
+                queueA[tail++] = next;
+            }
+        }
+        return tail;
+    }
+
+    // Time Complexity: O(1) amortized; the mark array is cleared on wrap-around
+    // Space Complexity: O(1)
+    private int nextEpoch() {
+        if (epoch >= Integer.MAX_VALUE - 2) {
+            java.util.Arrays.fill(mark, 0);
+            epoch = 0;
+        }
+        epoch += 2;
+        return epoch - 1;
+    }
+}
@@ -1,25 +1,65 @@
 package com.nets.controller;
 
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.engine.ResponseCache;
+import com.nets.engine.SolvePlans;
+import com.nets.metrics.Counter;
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
 import com.nets.model.*;
 import com.nets.view.GameBoard;
-import com.nets.view.TileView;
+import com.nets.view.BoardCanvas;
 import javafx.application.Platform;
 import javafx.scene.control.Alert;
 import javafx.scene.input.MouseButton;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 public class GameController {
     private GameBoard gameBoard;
     private GameState gameState;
-    private Tile[][] solvedGrid; // To store the solved state
+    private PackedBoard solvedBoard; // To store the solved state
     private String aiAlgorithm = "greedy";
     private String lastUsedAiAlgorithm = null; // null until AI actually moves
     private Move lastAiMove;
     private int[][] preAiMoveRotations;
+    private GameSession session; // the rules: moves, stats and the win check
+    private PuzzlePool puzzlePool; // optional source of pre-generated puzzles
+    private SpeculativeMoves speculation; // optional CPU replies computed while the human thinks
+    private final CppEngine engine = new CppEngine();
+    private final ResponseCache responseCache = new ResponseCache(); // answers for boards seen before
+    private final SolvePlans solvePlans = new SolvePlans(); // exact-algorithm moves from one solve
+
+    // CPU moves are computed on one daemon thread against a snapshot of the board;
+    // the FX thread only takes the snapshot and applies the answer
+    private static final long CPU_MOVE_DELAY_MS = 500; // minimum pause before the CPU answers
+    private volatile Thread aiThread;
+    private final ExecutorService aiExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "nets-ai");
+        t.setDaemon(true);
+        aiThread = t;
+        return t;
+    });
+    private CompletableFuture<EngineResponse> pendingAiMove; // FX thread only
+
+    // Game loop timings: FX time to apply each move, and the CPU's reply as the player sees it
+    private static final Histogram HUMAN_MOVE_NANOS = Metrics.histogram("game.humanMove.nanos");
+    private static final Histogram CPU_MOVE_NANOS = Metrics.histogram("game.cpuMove.nanos");
+    private static final Histogram CPU_REPLY_NANOS = Metrics.histogram("game.cpuReply.nanos");
+    private static final Counter GAMES_STARTED = Metrics.counter("game.started");
+    private static final Counter STEP_STREAM_FAILURES = Metrics.counter("game.visualizationSteps.failures");
+    private static final Counter CPU_MOVE_FAILURES = Metrics.counter("game.cpuMove.failures"); // errors and empty answers
+    private static final Histogram REDRAW_CELLS = Metrics.histogram("board.redraw.cells");
+    private int aiGeneration; // bumped by every new game; answers from older games are dropped
 
     public GameController(GameBoard gameBoard) {
         this.gameBoard = gameBoard;
@@ -37,6 +77,26 @@ public class GameController {
         return preAiMoveRotations;
     }
 
+    PackedBoard getSolvedBoard() {
+        return solvedBoard;
+    }
+
+    public void setPuzzlePool(PuzzlePool puzzlePool) {
+        this.puzzlePool = puzzlePool;
+    }
+
+    public ResponseCache getResponseCache() {
+        return responseCache;
+    }
+
+    public SolvePlans getSolvePlans() {
+        return solvePlans;
+    }
+
+    public void setSpeculation(SpeculativeMoves speculation) {
+        this.speculation = speculation;
+    }
+
     public String formatAlgoName(String algo) {
         if (algo == null) return "None";
         switch (algo) {
@@ -50,754 +110,309 @@ public class GameController {
 
     public void setAiAlgorithm(String algo) {
         this.aiAlgorithm = algo;
+        speculateHumanTurn(); // replies cached for the old algorithm no longer match
     }
 
     public String getAiAlgorithm() {
         return aiAlgorithm;
     }
 
-    public List<VisualStep> getVisualizationSteps() {
-        if (lastUsedAiAlgorithm == null || preAiMoveRotations == null) return Collections.emptyList();
-        
-        try {
-            Gson gson = new GsonBuilder().create();
-            
-            // Backup current gameState
-            GameState originalState = this.gameState;
-            
-            // Create a temporary GameState using the pre-move rotations
-            GameState preState = new GameState();
-            preState.setMeta(originalState.getMeta());
-            preState.setRules(originalState.getRules());
-            
-            int rows = originalState.getMeta().getHeight();
-            int cols = originalState.getMeta().getWidth();
-            Tile[][] preGrid = new Tile[rows][cols];
-            for (int r = 0; r < rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    Tile current = originalState.getGrid()[r][c];
-                    Tile copy = new Tile(current.getType(), preAiMoveRotations[r][c], current.isLocked());
-                    copy.setConnections(current.getConnections());
-                    preGrid[r][c] = copy;
-                }
+    // Steps for the last AI move. The trace recorded with the move is replayed as it is;
+    // otherwise (greedy, or a move answered from a solve plan) they are requested on a
+    // background thread and appended to the feed as they are decoded, so playback can start
+    // before the whole trace has arrived. The feed is finished (or failed) once the
+    // engine's answer has been read.
+    // Time Complexity: O(1) for a recorded trace, else O(N) here and O(S) on the background thread
+    // Space Complexity: O(N) for the pre-move board
+    public StepFeed streamVisualizationSteps() {
+        List<VisualStep> recorded = recordedSteps();
+        if (recorded != null) {
+            return new StepFeed(recorded);
+        }
+        StepFeed feed = new StepFeed();
+        if (lastUsedAiAlgorithm == null || preAiMoveRotations == null) {
+            feed.finish();
+            return feed;
+        }
+        GameState preState = preAiMoveState(); // taken now, before the board moves on
+        String algo = lastUsedAiAlgorithm;
+        Thread t = new Thread(() -> {
+            try {
+                invokeCppEngine("get_visualization_steps", algo, true, preState, feed);
+                feed.finish();
+            } catch (Exception e) {
+                STEP_STREAM_FAILURES.increment();
+                feed.fail(e);
             }
-            preState.setGrid(preGrid);
+        }, "nets-visualization-steps");
+        t.setDaemon(true);
+        t.start();
+        return feed;
+    }
+
+    // The exact algorithms record the same trace for get_cpu_move as for
+    // get_visualization_steps (one full solve), so a move that came with steps needs no
+    // second solve. Greedy records no steps for its move.
+    private List<VisualStep> recordedSteps() {
+        if (lastAiMove == null || !SolvePlans.isExact(lastUsedAiAlgorithm)) return null;
+        List<VisualStep> steps = lastAiMove.getSteps();
+        return steps != null && !steps.isEmpty() ? steps : null;
+    }
 
-            // Temporarily swap gameState to use invokeCppEngine
-            this.gameState = preState;
-            com.google.gson.JsonObject response = invokeCppEngine("get_visualization_steps", true);
-            this.gameState = originalState; // Restore
+    // The board as it was before the last AI move
+    private GameState preAiMoveState() {
+        GameState preState = new GameState();
+        preState.setMeta(gameState.getMeta());
+        preState.setRules(gameState.getRules());
 
-            if (response != null && response.has("steps")) {
-                java.lang.reflect.Type listType = new com.google.gson.reflect.TypeToken<List<VisualStep>>(){}.getType();
-                return gson.fromJson(response.get("steps"), listType);
+        PackedBoard preBoard = gameState.getBoard().copy();
+        for (int r = 0; r < preBoard.getRows(); r++) {
+            for (int c = 0; c < preBoard.getCols(); c++) {
+                preBoard.setRotation(preBoard.index(r, c), preAiMoveRotations[r][c]);
             }
-        } catch (Exception e) {
-            e.printStackTrace();
         }
-        return Collections.emptyList();
+        preState.setBoard(preBoard);
+        return preState;
     }
 
-    // Time Complexity: O(N^2) dominated by createNewGameState (Prim's)
+    // Time Complexity: O(N) for the board and tracker; puzzle generation is O(1) on a pool hit
     // Space Complexity: O(N) where N is total cells
     public void initGame(int rows, int cols) {
+        cancelCpuMove();
         try {
-            // Create new game state
-            gameState = createNewGameState(rows, cols);
+            // Take a ready puzzle from the pool, or generate one here
+            if (puzzlePool != null) {
+                PuzzlePool.Puzzle puzzle = puzzlePool.take(rows, cols);
+                gameState = puzzle.getState();
+                solvedBoard = puzzle.getSolved();
+            } else {
+                gameState = createNewGameState(rows, cols);
+            }
+            session = new GameSession(gameState, solvedBoard);
+            GAMES_STARTED.increment();
             gameBoard.loadGameState(gameState);
             setupEventHandlers();
-            updatePoweredStatus();
+            speculateHumanTurn();
         } catch (Exception e) {
             showError("Failed to initialize game: " + e.getMessage());
             e.printStackTrace();
         }
     }
 
-    // Time Complexity: O(N^2) due to randomized Prim's with ArrayList
+    // Time Complexity: O(N)
     // Space Complexity: O(N)
-    private GameState createNewGameState(int rows, int cols) {
-        GameState state = new GameState();
-
-        // Initialize meta
-        Meta meta = new Meta();
-        meta.setWidth(cols);
-        meta.setHeight(rows);
-        meta.setStatus("PLAYING");
-        meta.setTurn("HUMAN");
-        meta.setSeed(new Random().nextInt());
-        meta.setWraps(false);
-        state.setMeta(meta);
-
-        // Loop until a valid grid is generated
-        Tile[][] grid;
-        do {
-            grid = generateGrid(rows, cols);
-
-
-        } while (!validateGeneratedGrid(grid));
-
-
-        int count = 0;
-
-        // Deep copy the solved grid before scrambling
-        this.solvedGrid = new Tile[rows][cols];
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                Tile original = grid[r][c];
-                Tile copy = new Tile(original.getType(), original.getRotation(), original.isLocked());
-                copy.setConnections(original.getConnections()); // Shallow copy of connections is ok here
-                this.solvedGrid[r][c] = copy;
-
-            if (grid[r][c].getType() == TileType.STRAIGHT || grid[r][c].getType() == TileType.CORNER || grid[r][c].getType() == TileType.T_JUNCTION ){
-                count++;
-            }
-            }
-        }
-        System.out.println("no of wire tiles: " + count);
-
-
-        // 3. Scramble the puzzle (except POWER and EMPTY)
-        Random rand = new Random();
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (grid[r][c].getType() != TileType.POWER && grid[r][c].getType() != TileType.EMPTY) {
-                    grid[r][c].setRotation(rand.nextInt(4) * 90);
-                }
-            }
-        }
-
-        state.setGrid(grid);
-
-        // Initialize stats
-        Stats stats = new Stats();
-        stats.setComponents(calculateComponents(grid));
-        stats.setLooseEnds(calculateLooseEnds(grid));
-        stats.setSolved(false);
-        state.setStats(stats);
-
-        // Rules
-        Rules rules = new Rules();
-        rules.setAllowLoops(false);
-        state.setRules(rules);
+    GameState createNewGameState(int rows, int cols) {
+        return createNewGameState(rows, cols, new Random().nextInt());
+    }
 
-        return state;
+    // The same seed always produces the same solution and the same scramble
+    // Time Complexity: O(N), see PuzzleGenerator
+    // Space Complexity: O(N)
+    GameState createNewGameState(int rows, int cols, int seed) {
+        // Valid by construction: one spanning tree over every cell, scrambled with the same random stream
+        PuzzlePool.Puzzle puzzle = PuzzlePool.generate(rows, cols, seed);
+        this.solvedBoard = puzzle.getSolved();
+        return puzzle.getState();
     }
 
     // Time Complexity: O(N) where N is number of cells
     // Space Complexity: O(1)
     public void toggleSolution(boolean show) {
-        Tile[][] gridToShow = show ? this.solvedGrid : this.gameState.getGrid();
-        
-        if (gridToShow == null) return; // Solution not generated yet
-
-        for (int r = 0; r < gridToShow.length; r++) {
-            for (int c = 0; c < gridToShow[0].length; c++) {
-                gameBoard.getTileView(r, c).updateTile(gridToShow[r][c]);
-            }
+        if (show && this.solvedBoard == null) return; // Solution not generated yet
+        if (show) {
+            gameBoard.showBoard(solvedBoard);
+        } else {
+            gameBoard.showGameBoard();
         }
     }
     
-    // Time Complexity: O(E^2) approx O(N^2) because ArrayList remove is O(E) and we loop E times
-    // Space Complexity: O(N)
-    private Tile[][] generateGrid(int rows, int cols) {
-        // 1. Generate a Spanning Tree starting from the center POWER tile
-        Tile[][] grid = new Tile[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                grid[i][j] = new Tile(TileType.EMPTY, 0, false);
-            }
-        }
-
-        int startR = rows / 2;
-        int startC = cols / 2;
-        grid[startR][startC] = new Tile(TileType.POWER, 0, true);
-
-        // Prim's algorithm for spanning tree
-        List<int[]> edges = new ArrayList<>();
-        boolean[][] inTree = new boolean[rows][cols];
-        inTree[startR][startC] = true;
-
-        addEdges(edges, startR, startC, rows, cols, inTree);
-
-        Random rand = new Random();
-        boolean[][] connections = new boolean[rows * cols][4]; // [cellIndex][direction]
-
-        while (!edges.isEmpty()) {
-            int edgeIdx = rand.nextInt(edges.size());
-            int[] edge = edges.remove(edgeIdx);
-            int pr = edge[0], pc = edge[1], r = edge[2], c = edge[3], dir = edge[4];
-
-            if (!inTree[r][c]) {
-                inTree[r][c] = true;
-                connections[pr * cols + pc][dir] = true;
-                connections[r * cols + c][(dir + 2) % 4] = true;
-                addEdges(edges, r, c, rows, cols, inTree);
-            }
-        }
-
-        // 2. Assign TileTypes based on connections
-        for (int r = 0; r < rows; r++) {
-            for (int c = 0; c < cols; c++) {
-                if (r == startR && c == startC) continue;
-                
-                boolean[] conn = connections[r * cols + c];
-                int count = 0;
-                for (boolean b : conn) if (b) count++;
-
-                if (count == 0) {
-                    grid[r][c] = new Tile(TileType.EMPTY, 0, false);
-                } else if (count == 1) {
-                    // Leaf nodes are PCs
-                    grid[r][c] = new Tile(TileType.PC, 0, false);
-                    // Set rotation to match connection
-                    for (int d = 0; d < 4; d++) if (conn[d]) grid[r][c].setRotation(d * 90);
-                } else {
-                    // Internal nodes are wires
-                    assignWireType(grid[r][c], conn);
-                }
-            }
-        }
-
-        // Special case: POWER tile connections
-        boolean[] pConn = connections[startR * cols + startC];
-        grid[startR][startC].setConnections(pConn);
-        
-        return grid;
-    }
-
-    // Time Complexity: O(N)
-    // Space Complexity: O(N) for DFS/recursion
-    private boolean validateGeneratedGrid(Tile[][] grid) {
-        // 1. Check for loose ends
-        if (calculateLooseEnds(grid) != 0) return false;
-
-        // 2. Check for connectivity (single component)
-        if (calculateComponents(grid) != 1) return false;
-        
-        // 3. Check for isolated PCs (technically covered by connectivity, but explicit check)
-        // Also ensure no EMPTY tiles if we want a full grid (Prim's should fill it, but good to check)
-        for(int r=0; r<grid.length; r++) {
-            for(int c=0; c<grid[0].length; c++) {
-                if (grid[r][c].getType() == TileType.EMPTY) return false; 
-            }
-        }
-
-        return true;
-    }
-
+    // One click and one hover handler for the whole board; the canvas maps the mouse to a cell
     // Time Complexity: O(1)
     // Space Complexity: O(1)
-    private void addEdges(List<int[]> edges, int r, int c, int rows, int cols, boolean[][] inTree) {
-        int[][] dirs = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
-        for (int i = 0; i < 4; i++) {
-            int nr = r + dirs[i][0];
-            int nc = c + dirs[i][1];
-            if (nr >= 0 && nr < rows && nc >= 0 && nc < cols && !inTree[nr][nc]) {
-                edges.add(new int[]{r, c, nr, nc, i});
-            }
-        }
-    }
-
-    // Time Complexity: O(1)
-    // Space Complexity: O(1)
-    private void assignWireType(Tile tile, boolean[] conn) {
-        int count = 0;
-        for (boolean b : conn) if (b) count++;
-
-        if (count == 2) {
-            if (conn[0] && conn[2]) { tile.setType(TileType.STRAIGHT); tile.setRotation(0); }
-            else if (conn[1] && conn[3]) { tile.setType(TileType.STRAIGHT); tile.setRotation(90); }
-            else if (conn[0] && conn[1]) { tile.setType(TileType.CORNER); tile.setRotation(0); }
-            else if (conn[1] && conn[2]) { tile.setType(TileType.CORNER); tile.setRotation(90); }
-            else if (conn[2] && conn[3]) { tile.setType(TileType.CORNER); tile.setRotation(180); }
-            else if (conn[3] && conn[0]) { tile.setType(TileType.CORNER); tile.setRotation(270); }
-        } else if (count == 3) {
-            tile.setType(TileType.T_JUNCTION);
-            if (!conn[3]) tile.setRotation(0);      // N, E, S
-            else if (!conn[0]) tile.setRotation(90); // E, S, W
-            else if (!conn[1]) tile.setRotation(180);// S, W, N
-            else tile.setRotation(270);             // W, N, E
-        } else if (count == 4) {
-            tile.setType(TileType.CROSS);
-            tile.setRotation(0);
-        }
-    }
-
-    // Time Complexity: O(N)
-    // Space Complexity: O(1)
     private void setupEventHandlers() {
-        TileView[][] tileViews = gameBoard.getTileViews();
-
-        for (int row = 0; row < tileViews.length; row++) {
-            for (int col = 0; col < tileViews[row].length; col++) {
-                TileView tileView = tileViews[row][col];
-
-                tileView.setOnMouseClicked(event -> {
-                    if (gameState.getMeta().getTurn().equals("HUMAN") &&
-                            gameState.getMeta().getStatus().equals("PLAYING")) {
-
-                        Tile tile = tileView.getTile();
-                        if (!tile.isLocked() && event.getButton() == MouseButton.PRIMARY) {
-                            handleHumanMove(tileView.getRow(), tileView.getCol(), 90);
-                        }
-                    }
-                });
-
-                tileView.setOnMouseEntered(event -> {
-                    if (!tileView.getTile().isLocked() &&
-                            gameState.getMeta().getTurn().equals("HUMAN") &&
-                            gameState.getMeta().getStatus().equals("PLAYING")) {
-                        tileView.setOpacity(0.8);
-                        tileView.setStyle("-fx-cursor: hand;");
-                    }
-                });
-
-                tileView.setOnMouseExited(event -> {
-                    tileView.setOpacity(1.0);
-                    tileView.setStyle("-fx-cursor: default;");
-                });
+        BoardCanvas canvas = gameBoard.getBoardCanvas();
+        canvas.setOnCellClicked((row, col, event) -> {
+            if (gameState.getMeta().getTurn().equals("HUMAN") &&
+                    gameState.getMeta().getStatus().equals("PLAYING")) {
+                PackedBoard board = gameState.getBoard();
+                if (!board.isLocked(board.index(row, col)) && event.getButton() == MouseButton.PRIMARY) {
+                    handleHumanMove(row, col, 90);
+                }
             }
-        }
+        });
+        canvas.setHoverable((row, col) -> !gameState.getBoard().isLocked(gameState.getBoard().index(row, col)) &&
+                gameState.getMeta().getTurn().equals("HUMAN") &&
+                gameState.getMeta().getStatus().equals("PLAYING"));
     }
 
-    // Time Complexity: O(N) dominated by UI update and stats calculation
-    // Space Complexity: O(N) for recursion stacks
+    // The board and labels update from the game's change events: the moved tile turns
+    // and only tiles whose power flipped are redrawn
+    // Time Complexity: O(affected sub-network), see GameSession.humanMove
+    // Space Complexity: O(1)
     private void handleHumanMove(int row, int col, int rotation) {
         try {
-            // Update local state
-            Tile tile = gameState.getGrid()[row][col];
-            tile.rotate(rotation);
-
-            // Update move
-            Move move = new Move("HUMAN", row, col, tile.getRotation());
-            gameState.setLastMove(move);
-
-            // Recalculate stats and powered status
-            updateStats();
-            updatePoweredStatus();
-
-            // Update UI
-            for (int i = 0; i < gameState.getMeta().getHeight(); i++) {
-                for (int j = 0; j < gameState.getMeta().getWidth(); j++) {
-                    if (i == row && j == col) {
-                        gameBoard.getTileView(i, j).setRotationAnimated(gameState.getGrid()[i][j].getRotation(), 150, true);
-                    } else {
-                        gameBoard.getTileView(i, j).updateTile(gameState.getGrid()[i][j]);
-                    }
-                }
-            }
-            gameBoard.updateUI();
-
-            // Check if solved
-            if (checkWinCondition()) {
-                gameState.getMeta().setStatus("SOLVED");
-                gameBoard.updateUI();
+            long start = System.nanoTime();
+            long redrawn = gameBoard.getCellsRedrawn();
+            boolean won = session.humanMove(row, col, rotation);
+            HUMAN_MOVE_NANOS.record(System.nanoTime() - start);
+            recordRedraw(redrawn);
+            if (won) {
                 showWinMessage();
                 return;
             }
 
-            // Switch to CPU turn
-            gameState.getMeta().setTurn("CPU");
-            gameBoard.updateUI();
-
-            // Execute CPU turn
-            new Thread(() -> {
-                try {
-                    Thread.sleep(500); // Small delay for visual effect
-                    Platform.runLater(this::performStandaloneCpuMove);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-            }).start();
+            // Execute CPU turn off the FX thread
+            requestCpuMove();
 
         } catch (Exception e) {
             showError("Error processing move: " + e.getMessage());
         }
     }
 
-    // Time Complexity: O(N) for serialization/deserialization. Logic inside is N^2 approx.
-    // Space Complexity: O(N) for JSON data
-    private com.google.gson.JsonObject invokeCppEngine(String action, boolean visualize) throws IOException, InterruptedException {
-        Gson gson = new GsonBuilder().create();
-
-        // Create the request object
-        com.google.gson.JsonObject request = new com.google.gson.JsonObject();
-        request.addProperty("action", action);
-        request.addProperty("algo", aiAlgorithm);
-        request.addProperty("visualize", visualize);
-        request.add("gameState", gson.toJsonTree(gameState));
-
-        // Locate C++ engine
-        String os = System.getProperty("os.name").toLowerCase();
-        String engineName = os.contains("win") ? "nets_engine.exe" : "nets_engine";
-        
-        File engineExe = new File("..", engineName);
-        if (!engineExe.exists()) {
-            engineExe = new File(engineName);
-        }
-        
-        if (!engineExe.exists()) {
-             throw new FileNotFoundException("Could not find " + engineName + " at " + new File("..", engineName).getAbsolutePath() + " or " + new File(engineName).getAbsolutePath());
-        }
-
-        // Call C++ engine
-        ProcessBuilder pb = new ProcessBuilder(engineExe.getCanonicalPath());
-        Process process = pb.start();
-
-        // Write request to stdin using UTF-8
-        try (OutputStreamWriter writer = new OutputStreamWriter(process.getOutputStream(), java.nio.charset.StandardCharsets.UTF_8)) {
-            gson.toJson(request, writer);
-            writer.flush();
-        }
-
-        // Read response from stdout using UTF-8
-        StringBuilder output = new StringBuilder();
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream(), java.nio.charset.StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                output.append(line);
-            }
-        }
-
-        // Read errors from stderr
-        StringBuilder errorOutput = new StringBuilder();
-        try (BufferedReader errReader = new BufferedReader(new InputStreamReader(process.getErrorStream(), java.nio.charset.StandardCharsets.UTF_8))) {
-            String line;
-            while ((line = errReader.readLine()) != null) {
-                errorOutput.append(line).append("\n");
-                System.err.println("CPP Error: " + line);
-            }
-        }
-
-        int exitCode = process.waitFor();
-        if (exitCode != 0) {
-             String errMsg = errorOutput.toString().trim();
-             if (errMsg.isEmpty()) errMsg = "C++ engine exited with code " + exitCode;
-             throw new RuntimeException(errMsg);
-        }
-
-        String jsonResponse = output.toString().trim();
-        if (jsonResponse.isEmpty()) {
-            throw new RuntimeException("C++ engine returned empty response");
-        }
-
-        return gson.fromJson(jsonResponse, com.google.gson.JsonObject.class);
+    // Time Complexity: O(N) for encoding/decoding. Logic inside is N^2 approx.
+    // Space Complexity: O(N) for the request, plus any steps; with onStep set, steps are
+    // streamed to it while the response is decoded
+    private EngineResponse invokeCppEngine(String action, String algo, boolean visualize, GameState state,
+                                           Consumer<VisualStep> onStep) throws IOException, InterruptedException {
+        // Long-lived engine session (restarted automatically if it dies); binary protocol when available.
+        // Boards answered before, by Zobrist hash, come from the cache instead.
+        return responseCache.request(engine, action, algo, visualize, state, onStep);
     }
 
-    // Time Complexity: O(N^2) due to engine call
-    // Space Complexity: O(N)
-    private void performStandaloneCpuMove() {
-        try {
-            lastUsedAiAlgorithm = aiAlgorithm; // Store what we are about to use
-            
-            // Capture pre-move state
-            int rows = gameState.getMeta().getHeight();
-            int cols = gameState.getMeta().getWidth();
-            preAiMoveRotations = new int[rows][cols];
-            for (int r = 0; r < rows; r++) {
-                for (int c = 0; c < cols; c++) {
-                    preAiMoveRotations[r][c] = gameState.getGrid()[r][c].getRotation();
-                }
-            }
-
-            com.google.gson.JsonObject response = invokeCppEngine("get_cpu_move", true);
-
-            if (response != null && response.has("move")) {
-                com.google.gson.JsonObject moveObj = response.getAsJsonObject("move");
-                int r = moveObj.get("row").getAsInt();
-                int c = moveObj.get("col").getAsInt();
-                int rot = moveObj.get("rotation").getAsInt();
-
-                lastAiMove = new Move("CPU", r, c, rot);
-                if (response.has("steps")) {
-                    Gson gson = new Gson();
-                    java.lang.reflect.Type listType = new com.google.gson.reflect.TypeToken<List<VisualStep>>(){}.getType();
-                    List<VisualStep> steps = gson.fromJson(response.get("steps"), listType);
-                    lastAiMove.setSteps(steps);
-                }
-
-                // Apply move
-                Tile tile = gameState.getGrid()[r][c];
-                tile.setRotation(rot); // Absolute rotation
-                
-                gameState.setLastMove(lastAiMove);
-
-                // Recalculate stats
-                updateStats();
-                updatePoweredStatus();
-            } else {
-                System.err.println("Invalid response from CPU: " + (response != null ? response.toString() : "null"));
-            }
-
-            // Update UI
-            Platform.runLater(() -> {
-                int moveR = (lastAiMove != null) ? lastAiMove.getRow() : -1;
-                int moveC = (lastAiMove != null) ? lastAiMove.getCol() : -1;
-
-                for (int i = 0; i < gameState.getMeta().getHeight(); i++) {
-                    for (int j = 0; j < gameState.getMeta().getWidth(); j++) {
-                        if (i == moveR && j == moveC) {
-                            gameBoard.getTileView(i, j).setRotationAnimated(gameState.getGrid()[i][j].getRotation(), 300, true);
-                        } else {
-                            gameBoard.getTileView(i, j).updateTile(gameState.getGrid()[i][j]);
-                        }
-                    }
-                }
-                updatePoweredStatus();
-                gameBoard.updateUI();
-                
-                // Switch back to human
-                gameState.getMeta().setTurn("HUMAN");
-                gameBoard.updateUI();
-
-                checkAndHandleWin();
-            });
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            showError("CPU Error: " + e.getMessage());
-            gameState.getMeta().setTurn("HUMAN");
-            gameBoard.updateUI();
-        }
+    // Stops the engine session; called when the application exits
+    public void shutdown() {
+        cancelCpuMove();
+        aiExecutor.shutdownNow();
+        engine.close();
     }
 
-    // Time Complexity: O(N) due to IPC
+    // Snapshots the board and asks the engine for the CPU move on the AI thread, unless
+    // the speculator already has (or is computing) the reply to this exact board. The
+    // cosmetic delay runs alongside the engine call, so the answer appears after
+    // max(delay, compute) rather than delay + compute.
+    // Time Complexity: O(N) on the FX thread for the snapshot
     // Space Complexity: O(N)
-    private void updateStats() {
-        try {
-            com.google.gson.JsonObject response = invokeCppEngine("get_stats", false);
-            if (response != null && response.has("stats")) {
-                com.google.gson.JsonObject statsObj = response.getAsJsonObject("stats");
-                int components = statsObj.get("components").getAsInt();
-                int looseEnds = statsObj.get("looseEnds").getAsInt();
-                boolean solved = statsObj.get("solved").getAsBoolean();
-
-                Stats stats = gameState.getStats();
-                stats.setComponents(components);
-                stats.setLooseEnds(looseEnds);
-                stats.setSolved(solved); // This is the 'mathematical' solved state
-            }
-        } catch (IOException | InterruptedException e) {
-            e.printStackTrace();
-            showError("Error getting stats from C++ engine: " + e.getMessage());
-        }
+    private void requestCpuMove() {
+        long requested = System.nanoTime();
+        GameState snapshot = session.snapshot(); // the live board keeps changing on the FX thread
+        String algo = aiAlgorithm;
+        int generation = aiGeneration;
+
+        CompletableFuture<EngineResponse> speculated = speculation != null && !plansCover(algo)
+                ? speculation.take(gameState, algo) : null;
+        CompletableFuture<EngineResponse> compute = speculated == null ? computeCpuMove(snapshot, algo)
+                : speculated.exceptionallyCompose(e -> computeCpuMove(snapshot, algo)); // a failed guess is not an answer
+        CompletableFuture<Void> delay = CompletableFuture.runAsync(() -> {},
+                CompletableFuture.delayedExecutor(CPU_MOVE_DELAY_MS, TimeUnit.MILLISECONDS));
+
+        pendingAiMove = compute;
+        compute.thenCombine(delay, (response, ignored) -> response)
+                .whenComplete((response, error) -> Platform.runLater(
+                        () -> applyCpuMove(generation, requested, snapshot, algo, response, error)));
     }
 
-    // Time Complexity: O(N)
+    // Time Complexity: O(1) here; the engine call runs on the AI thread
     // Space Complexity: O(1)
-    private int calculateLooseEnds(Tile[][] grid) {
-        int looseEnds = 0;
-        int rows = grid.length;
-        int cols = grid[0].length;
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                Tile tile = grid[i][j];
-                if (tile.getType() == TileType.EMPTY) continue;
-
-                boolean[] connections = getConnections(tile);
-
-                // Check each direction
-                for (int dir = 0; dir < 4; dir++) {
-                    if (connections[dir]) {
-                        int ni = i + (dir == 0 ? -1 : dir == 2 ? 1 : 0);
-                        int nj = j + (dir == 1 ? 1 : dir == 3 ? -1 : 0);
-
-                        if (ni < 0 || ni >= rows || nj < 0 || nj >= cols) {
-                            looseEnds++;
-                        } else {
-                            Tile neighbor = grid[ni][nj];
-                            boolean[] neighborConn = getConnections(neighbor);
-                            int oppositeDir = (dir + 2) % 4;
-
-                            if (!neighborConn[oppositeDir]) {
-                                looseEnds++;
-                            }
-                        }
-                    }
-                }
+    private CompletableFuture<EngineResponse> computeCpuMove(GameState snapshot, String algo) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                // Exact algorithms answer from the plan of an earlier solve while it still fits
+                EngineResponse planned = solvePlans.nextMove(
+                        (action, a, visualize, state) -> invokeCppEngine(action, a, visualize, state, null), algo, snapshot);
+                return planned != null ? planned : invokeCppEngine("get_cpu_move", algo, true, snapshot, null);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
             }
-        }
-
-        return looseEnds;
+        }, aiExecutor);
     }
 
-    // Time Complexity: O(N)
-    // Space Complexity: O(N)
-    private int calculateComponents(Tile[][] grid) {
-        int rows = grid.length;
-        int cols = grid[0].length;
-        boolean[][] visited = new boolean[rows][cols];
-        int components = 0;
-
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (!visited[i][j] && grid[i][j].getType() != TileType.EMPTY) {
-                    dfs(grid, visited, i, j, null);
-                    components++;
-                }
-            }
-        }
-
-        return components;
+    // Drops the CPU move in flight, if any: a queued request never starts and a running
+    // one is aborted in the engine. Called on the FX thread before a new game starts.
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private void cancelCpuMove() {
+        aiGeneration++;
+        if (pendingAiMove != null && !pendingAiMove.isDone()) {
+            pendingAiMove.cancel(false);
+            engine.cancel(aiThread);
+        }
+        pendingAiMove = null;
+        if (speculation != null) speculation.stop();
     }
 
-    // Time Complexity: O(N)
-    // Space Complexity: O(N)
-    private void dfs(Tile[][] grid, boolean[][] visited, int i, int j, Set<Tile> poweredSet) {
-        if (i < 0 || i >= grid.length || j < 0 || j >= grid[0].length) return;
-        if (visited[i][j] || grid[i][j].getType() == TileType.EMPTY) return;
-
-        visited[i][j] = true;
-        if (poweredSet != null) {
-            poweredSet.add(grid[i][j]);
-        }
-        
-        // PCs are sinks; they do not propagate power further.
-        if (grid[i][j].getType() == TileType.PC) {
+    // Applies the engine's answer in a single FX pass; the board redraws the cells it changed
+    // Time Complexity: O(N) for the pre-move rotations
+    // Space Complexity: O(N) for the pre-move rotations
+    private void applyCpuMove(int generation, long requested, GameState snapshot, String algo,
+                              EngineResponse response, Throwable error) {
+        if (generation != aiGeneration) return; // the game this move was for is gone
+        pendingAiMove = null;
+
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof CancellationException) return;
+        if (cause != null) {
+            CPU_MOVE_FAILURES.increment();
+            gameState.getMeta().setTurn("HUMAN");
+            showError("CPU Error: " + cause.getMessage());
             return;
         }
 
-        boolean[] connections = getConnections(grid[i][j]);
-
-        int[][] dirs = {{-1, 0}, {0, 1}, {1, 0}, {0, -1}};
-        for (int d = 0; d < 4; d++) {
-            if (connections[d]) {
-                int ni = i + dirs[d][0];
-                int nj = j + dirs[d][1];
-
-                if (ni >= 0 && ni < grid.length && nj >= 0 && nj < grid[0].length) {
-                    Tile neighbor = grid[ni][nj];
-                    boolean[] neighborConn = getConnections(neighbor);
-                    if (neighborConn[(d + 2) % 4]) {
-                        dfs(grid, visited, ni, nj, poweredSet);
-                    }
+        long start = System.nanoTime();
+        long redrawn = gameBoard.getCellsRedrawn();
+        if (response != null && response.getMove() != null) {
+            PackedBoard before = snapshot.getBoard();
+            int[][] rotations = new int[before.getRows()][before.getCols()];
+            for (int r = 0; r < before.getRows(); r++) {
+                for (int c = 0; c < before.getCols(); c++) {
+                    rotations[r][c] = before.getRotation(before.index(r, c));
                 }
             }
-        }
-    }
-
-    // Time Complexity: O(N)
-    // Space Complexity: O(N)
-    private void updatePoweredStatus() {
-        Tile[][] grid = gameState.getGrid();
-        int rows = grid.length;
-        int cols = grid[0].length;
-
-        // Reset all tiles to unpowered
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                grid[i][j].setPowered(false);
+            lastUsedAiAlgorithm = algo;
+            preAiMoveRotations = rotations;
+            lastAiMove = response.getMove();
+            if (response.getSteps() != null) {
+                lastAiMove.setSteps(response.getSteps());
             }
+        } else {
+            CPU_MOVE_FAILURES.increment();
         }
 
-        // Find power source
-        int powerRow = -1, powerCol = -1;
-        for (int i = 0; i < rows; i++) {
-            for (int j = 0; j < cols; j++) {
-                if (grid[i][j].getType() == TileType.POWER) {
-                    powerRow = i;
-                    powerCol = j;
-                    break;
-                }
-            }
-        }
+        // Apply the move (an absolute rotation) and switch back to human
+        Move move = response != null ? response.getMove() : null;
+        boolean won = session.cpuMove(move);
+        long end = System.nanoTime();
+        CPU_MOVE_NANOS.record(end - start);
+        CPU_REPLY_NANOS.record(end - requested);
+        if (move != null) recordRedraw(redrawn);
 
-        if (powerRow != -1) {
-            // Traverse from power source to find all connected tiles
-            Set<Tile> poweredSet = new HashSet<>();
-            boolean[][] visited = new boolean[rows][cols];
-            dfs(grid, visited, powerRow, powerCol, poweredSet);
-            for(Tile t: poweredSet) {
-                t.setPowered(true);
-            }
+        if (won) {
+            showWinMessage();
+            return;
         }
+        speculateHumanTurn();
     }
 
-
-    // Time Complexity: O(1)
-    // Space Complexity: O(1)
-    private boolean[] getConnections(Tile tile) {
-        // Returns [top, right, bottom, left]
-        if (tile.getConnections() != null) {
-            // If custom connections are set (e.g. for POWER), rotate them
-            boolean[] base = tile.getConnections();
-            boolean[] rotated = new boolean[4];
-            int shift = tile.getRotation() / 90;
-            for (int i = 0; i < 4; i++) {
-                rotated[(i + shift) % 4] = base[i];
-            }
-            return rotated;
-        }
-
-        boolean[] conn = new boolean[4];
-        int rot = tile.getRotation();
-
-        switch (tile.getType()) {
-            case STRAIGHT:
-                // [T, F, T, F] -> N, S at rot 0
-                if (rot == 0 || rot == 180) { conn[0] = conn[2] = true; }
-                else { conn[1] = conn[3] = true; }
-                break;
-            case CORNER:
-                // [T, T, F, F] -> N, E at rot 0
-                if (rot == 0) { conn[0] = conn[1] = true; }
-                else if (rot == 90) { conn[1] = conn[2] = true; }
-                else if (rot == 180) { conn[2] = conn[3] = true; }
-                else { conn[3] = conn[0] = true; }
-                break;
-            case T_JUNCTION:
-                // [T, T, T, F] -> N, E, S at rot 0
-                if (rot == 0) { conn[0] = conn[1] = conn[2] = true; }
-                else if (rot == 90) { conn[1] = conn[2] = conn[3] = true; }
-                else if (rot == 180) { conn[2] = conn[3] = conn[0] = true; }
-                else { conn[3] = conn[0] = conn[1] = true; }
-                break;
-            case PC:
-                // [T, F, F, F] -> N at rot 0
-                if (rot == 0) { conn[0] = true; }
-                else if (rot == 90) { conn[1] = true; }
-                else if (rot == 180) { conn[2] = true; }
-                else { conn[3] = true; }
-                break;
-        }
-
-        return conn;
+    // Plan answers need no engine call, so there is nothing to speculate on
+    private boolean plansCover(String algo) {
+        return solvePlans.isEnabled() && SolvePlans.isExact(algo);
     }
 
-    // Time Complexity: O(N)
-    // Space Complexity: O(1)
-    private boolean checkWinCondition() {
-        // The 'solved' status from C++ engine checks for components, loose ends, and loops.
-        boolean isMathematicallySolved = gameState.getStats().isSolved();
-        if (!isMathematicallySolved) {
-            return false;
-        }
-
-        // Additionally, for the win condition, all non-empty tiles must be powered.
-        Tile[][] grid = gameState.getGrid();
-        for (int i = 0; i < grid.length; i++) {
-            for (int j = 0; j < grid[0].length; j++) {
-                Tile tile = grid[i][j];
-                if (tile.getType() == TileType.EMPTY) continue;
-                
-                if (!tile.isPowered()) {
-                    return false; // Found a non-empty, unpowered tile.
-                }
-            }
+    // Lets the speculator guess the human's next move while it is their turn
+    // Time Complexity: O(N log N), see SpeculativeMoves.start
+    // Space Complexity: O(N)
+    private void speculateHumanTurn() {
+        if (speculation == null || gameState == null || plansCover(aiAlgorithm)) return;
+        if ("HUMAN".equals(gameState.getMeta().getTurn()) && "PLAYING".equals(gameState.getMeta().getStatus())) {
+            speculation.start(gameState, aiAlgorithm);
         }
-        
-        return true;
     }
 
-    // Time Complexity: O(1) assuming checkWinCondition already called or O(N)
-    // Space Complexity: O(1)
-    private void checkAndHandleWin() {
-        if (checkWinCondition()) {
-            gameState.getMeta().setStatus("SOLVED");
-            gameBoard.updateUI();
-            showWinMessage();
-        }
+    // Cells the move had the board redraw, where a full redraw would take every cell
+    private void recordRedraw(long redrawnBefore) {
+        REDRAW_CELLS.record(gameBoard.getCellsRedrawn() - redrawnBefore);
     }
 
     private void showWinMessage() {
@@ -827,7 +442,7 @@ public class GameController {
         alert.showAndWait();
     }
 
-    // Time Complexity: O(N^2) (Calls initGame)
+    // Time Complexity: O(N) (Calls initGame)
     // Space Complexity: O(N)
     public void resetGame(int rows, int cols) {
         initGame(rows, cols);
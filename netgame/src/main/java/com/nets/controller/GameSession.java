@@ -0,0 +1,154 @@
+package com.nets.controller;
+
+import com.nets.analysis.ConnectivityTracker;
+import com.nets.model.*;
+
+/**
+ * One game's rules without any UI: the board, its ConnectivityTracker and the
+ * human-move / CPU-move / stats cycle. GameController drives one from the FX
+ * thread and shows the result; SelfPlay drives many on plain threads.
+ *
+ * Each move turns one tile, updates the tracker, writes back the powered
+ * flags that flipped and refreshes the stats; the game is won once the
+ * network is solved and every tile is powered, whoever moved last. Not
+ * thread-safe: one thread plays a session at a time.
+ */
+public final class GameSession {
+    private final GameState state;
+    private final PackedBoard solvedBoard;
+    private final ConnectivityTracker connectivity;
+
+    // Time Complexity: O(N) for the tracker and the powered flags
+    // Space Complexity: O(N)
+    public GameSession(GameState state, PackedBoard solvedBoard) {
+        this.state = state;
+        this.solvedBoard = solvedBoard;
+        this.connectivity = new ConnectivityTracker(state);
+        refreshStats();
+        PackedBoard board = state.getBoard();
+        for (int cell = 0; cell < board.size(); cell++) {
+            board.setPowered(cell, connectivity.isPowered(cell));
+        }
+    }
+
+    // A new puzzle from seed, as GameController.createNewGameState makes it
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public static GameSession generate(int rows, int cols, int seed) {
+        PuzzlePool.Puzzle puzzle = PuzzlePool.generate(rows, cols, seed);
+        return new GameSession(puzzle.getState(), puzzle.getSolved());
+    }
+
+    public GameState getState() {
+        return state;
+    }
+
+    public PackedBoard getSolvedBoard() {
+        return solvedBoard;
+    }
+
+    public boolean isPlaying() {
+        return "PLAYING".equals(state.getMeta().getStatus());
+    }
+
+    public boolean isHumanTurn() {
+        return "HUMAN".equals(state.getMeta().getTurn());
+    }
+
+    // Turns the human's tile by degrees; the game is then SOLVED or it is the CPU's turn.
+    // Returns true when this move won.
+    // Time Complexity: O(affected sub-network), see applyRotation
+    // Space Complexity: O(1)
+    public boolean humanMove(int row, int col, int degrees) {
+        PackedBoard board = state.getBoard();
+        int cell = board.index(row, col);
+        board.rotate(cell, degrees);
+        state.setLastMove(new Move("HUMAN", row, col, board.getRotation(cell)));
+        applyRotation(row, col);
+
+        if (isWon()) {
+            state.getMeta().setStatus("SOLVED");
+            return true;
+        }
+        state.getMeta().setTurn("CPU");
+        return false;
+    }
+
+    // Applies the engine's move (an absolute rotation; null when it had none) and hands the
+    // turn back to the human. Returns true when the game is won afterwards.
+    // Time Complexity: O(affected sub-network)
+    // Space Complexity: O(1)
+    public boolean cpuMove(Move move) {
+        if (move != null) {
+            PackedBoard board = state.getBoard();
+            board.setRotation(board.index(move.getRow(), move.getCol()), move.getRotation());
+            state.setLastMove(move);
+            applyRotation(move.getRow(), move.getCol());
+        }
+        state.getMeta().setTurn("HUMAN");
+        if (isWon()) {
+            state.getMeta().setStatus("SOLVED");
+            return true;
+        }
+        return false;
+    }
+
+    // The 'mathematical' solved state (one component, no loose ends or loops) with
+    // every tile powered
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public boolean isWon() {
+        return state.getStats().isSolved() && connectivity.isFullyPowered();
+    }
+
+    // The game as the CPU sees it, for a request made while the live board moves on
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public GameState snapshot() {
+        Meta live = state.getMeta();
+        Meta meta = new Meta();
+        meta.setWidth(live.getWidth());
+        meta.setHeight(live.getHeight());
+        meta.setSeed(live.getSeed());
+        meta.setStatus(live.getStatus());
+        meta.setTurn(live.getTurn());
+        meta.setWraps(live.isWraps());
+
+        Stats stats = new Stats();
+        stats.setComponents(state.getStats().getComponents());
+        stats.setLooseEnds(state.getStats().getLooseEnds());
+        stats.setSolved(state.getStats().isSolved());
+
+        GameState snapshot = new GameState();
+        snapshot.setMeta(meta);
+        snapshot.setRules(state.getRules());
+        snapshot.setStats(stats);
+        snapshot.setLastMove(state.getLastMove());
+        snapshot.setBoard(state.getBoard().snapshot()); // same id and version, so deltas still apply
+        return snapshot;
+    }
+
+    // Updates stats and powered flags after one tile rotated; only cells whose
+    // powered state flipped are touched, so non-AI moves need no engine call
+    // Time Complexity: O(affected sub-network), see ConnectivityTracker
+    // Space Complexity: O(1)
+    private void applyRotation(int row, int col) {
+        PackedBoard board = state.getBoard();
+        connectivity.update(row, col);
+
+        for (int i = 0; i < connectivity.getFlippedCount(); i++) {
+            int cell = connectivity.getFlippedCell(i);
+            board.setPowered(cell, connectivity.isPowered(cell));
+        }
+        refreshStats();
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private void refreshStats() {
+        Stats stats = state.getStats();
+        stats.setComponents(connectivity.getComponents());
+        stats.setLooseEnds(connectivity.getLooseEnds());
+        stats.setSolved(connectivity.isSolved());
+    }
+}
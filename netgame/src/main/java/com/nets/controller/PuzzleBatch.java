@@ -0,0 +1,169 @@
+package com.nets.controller;
+
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.zip.CRC32;
+
+/**
+ * Generates a whole PuzzleSet in parallel on a fork-join pool.
+ *
+ * Puzzle i of batch seed S always uses the game seed puzzleSeed(S, i), a
+ * SplitMix64 mix of the two, and its own SplittableRandom built from it. No
+ * random state is shared between puzzles, so the output is byte-for-byte the
+ * same for any thread count, and every puzzle can be replayed on its own
+ * through GameController.createNewGameState(rows, cols, seed).
+ *
+ * Usage: java ... com.nets.controller.PuzzleBatch out.nets rows cols count [batchSeed] [threads...]
+ * Without thread counts it runs 1, 2, 4, ... up to all cores, rewriting the file
+ * each time, and reports puzzles per second and whether every run produced the
+ * same file.
+ */
+public final class PuzzleBatch {
+
+    private PuzzleBatch() {}
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public static int puzzleSeed(long batchSeed, int index) {
+        long z = batchSeed + (index + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        return (int) (z ^ (z >>> 32));
+    }
+
+    // Fills every record of the set using the given number of worker threads
+    // Time Complexity: O(count * N / threads)
+    // Space Complexity: O(N) per worker
+    public static void generate(PuzzleSet set, int threads) throws IOException {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int leaf = Math.max(1, set.size() / (threads * 16));
+            pool.invoke(new Range(set, 0, set.size(), leaf));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    // Same steps as GameController.createNewGameState, without touching a controller
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    static void generateOne(PuzzleSet set, int index) throws IOException {
+        int seed = puzzleSeed(set.getBatchSeed(), index);
+        SplittableRandom rand = new SplittableRandom(seed);
+        PackedBoard solved = PuzzleGenerator.generateSolved(set.getRows(), set.getCols(), rand);
+        PackedBoard scrambled = solved.copy();
+        PuzzleGenerator.scramble(scrambled, rand);
+        set.write(index, seed, scrambled, solved);
+    }
+
+    private static final class Range extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final PuzzleSet set;
+        private final int from;
+        private final int to;
+        private final int leaf;
+
+        Range(PuzzleSet set, int from, int to, int leaf) {
+            this.set = set;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leaf) {
+                try {
+                    for (int i = from; i < to; i++) generateOne(set, i);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Range(set, from, mid, leaf), new Range(set, mid, to, leaf));
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 4) {
+            System.err.println("Usage: PuzzleBatch out.nets rows cols count [batchSeed] [threads...]");
+            System.exit(2);
+        }
+        Path out = Paths.get(args[0]);
+        int rows = Integer.parseInt(args[1]);
+        int cols = Integer.parseInt(args[2]);
+        int count = Integer.parseInt(args[3]);
+        long batchSeed = args.length > 4 ? Long.parseLong(args[4]) : 1L;
+        if (rows < 1 || cols < 1 || count < 1) {
+            System.err.println("rows, cols and count must be positive");
+            System.exit(2);
+        }
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] threadCounts;
+        if (args.length > 5) {
+            threadCounts = new int[args.length - 5];
+            for (int i = 5; i < args.length; i++) threadCounts[i - 5] = Integer.parseInt(args[i]);
+        } else {
+            int steps = 0;
+            while ((1 << steps) < cores) steps++;
+            threadCounts = new int[steps + 1];
+            for (int i = 0; i < steps; i++) threadCounts[i] = 1 << i;
+            threadCounts[steps] = cores;
+        }
+
+        System.out.printf("%d puzzles of %dx%d, batch seed %d, %d cores%n", count, rows, cols, batchSeed, cores);
+        System.out.printf("%8s %12s %14s %10s %12s%n", "threads", "time (ms)", "puzzles/sec", "speedup", "crc32");
+        double baseline = 0;
+        long firstCrc = -1;
+        boolean identical = true;
+        for (int threads : threadCounts) {
+            long t0 = System.nanoTime();
+            try (PuzzleSet set = PuzzleSet.create(out, rows, cols, count, batchSeed)) {
+                generate(set, threads);
+            }
+            double ms = (System.nanoTime() - t0) / 1e6;
+            double rate = count / (ms / 1e3);
+            if (baseline == 0) baseline = rate;
+            long crc = crc32(out);
+            if (firstCrc == -1) firstCrc = crc; else identical &= crc == firstCrc;
+            System.out.printf("%8d %12.1f %14.0f %9.2fx %12x%n", threads, ms, rate, rate / baseline, crc);
+        }
+        // Spot-check that stored puzzles replay through the game's own generator
+        GameController controller = new GameController(null);
+        try (PuzzleSet set = PuzzleSet.open(out)) {
+            for (int i : new int[]{0, count / 2, count - 1}) {
+                GameState replay = controller.createNewGameState(rows, cols, set.readSeed(i));
+                identical &= replay.getBoard().equals(set.readPuzzle(i))
+                        && controller.getSolvedBoard().equals(set.readSolution(i));
+            }
+        }
+        System.out.printf("%s: %d bytes (%d per puzzle), identical across thread counts and replays: %b%n",
+                out, Files.size(out), 4 + rows * cols, identical);
+        if (!identical) System.exit(1);
+    }
+
+    private static long crc32(Path path) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buf = new byte[1 << 16];
+        try (InputStream in = Files.newInputStream(path)) {
+            for (int n; (n = in.read(buf)) > 0; ) crc.update(buf, 0, n);
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,151 @@
+package com.nets.controller;
+
+import com.nets.analysis.BoardAnalyzer;
+import com.nets.model.*;
+
+import java.util.SplittableRandom;
+
+/**
+ * Builds puzzles as a random spanning tree over every cell, rooted at a POWER
+ * tile in the centre. Degree-1 cells become PCs and the rest become wires, so
+ * a generated board is always one network with no loose ends and no loops;
+ * no validation or retry is needed.
+ *
+ * The tree comes from randomized Prim's. The frontier is a flat int array of
+ * (cell, direction) pairs, and picking a random edge swaps it with the last
+ * one, so every step is O(1). Each grid edge enters the frontier at most once,
+ * which gives O(N) time overall. All randomness comes from the caller's
+ * SplittableRandom, so the same seed always yields the same puzzle.
+ */
+public final class PuzzleGenerator {
+    private static final int IN_TREE = 0x10;
+    private static final int[] OPPOSITE = {2, 3, 0, 1};
+
+    // Type and rotation for each set of connected sides (bit 0 = N, 1 = E, 2 = S, 3 = W)
+    private static final TileType[] TYPE_FOR_MASK = new TileType[16];
+    private static final int[] ROTATION_FOR_MASK = new int[16];
+
+    static {
+        TileType[] types = {TileType.PC, TileType.STRAIGHT, TileType.CORNER, TileType.T_JUNCTION, TileType.CROSS};
+        int[] bases = {PackedBoard.NORTH, PackedBoard.NORTH | PackedBoard.SOUTH, PackedBoard.NORTH | PackedBoard.EAST,
+                PackedBoard.NORTH | PackedBoard.EAST | PackedBoard.SOUTH, 0xF};
+        TYPE_FOR_MASK[0] = TileType.EMPTY;
+        for (int i = 0; i < types.length; i++) {
+            // Walk the turns backwards so the smallest matching rotation wins (STRAIGHT N-S is 0, not 180)
+            for (int turns = 3; turns >= 0; turns--) {
+                int mask = PackedBoard.rotateMask(bases[i], turns);
+                TYPE_FOR_MASK[mask] = types[i];
+                ROTATION_FOR_MASK[mask] = turns * 90;
+            }
+        }
+    }
+
+    private PuzzleGenerator() {}
+
+    // Solved puzzle: a spanning tree over all cells with the POWER tile at the centre
+    // Time Complexity: O(N) where N is rows * cols
+    // Space Complexity: O(N), a byte per cell plus at most 2N frontier entries
+    public static PackedBoard generateSolved(int rows, int cols, SplittableRandom rand) {
+        int n = rows * cols;
+        byte[] conn = new byte[n]; // connected sides, plus IN_TREE once the cell joined
+        int[] frontier = new int[Math.max(4, 2 * n)]; // cell << 2 | direction
+        int size = 0;
+
+        int start = (rows / 2) * cols + cols / 2;
+        conn[start] = IN_TREE;
+        size = addFrontier(frontier, size, conn, start, rows, cols);
+
+        while (size > 0) {
+            int pick = rand.nextInt(size);
+            int edge = frontier[pick];
+            frontier[pick] = frontier[--size];
+
+            int from = edge >>> 2;
+            int dir = edge & 3;
+            int to = neighbor(from, dir, cols);
+            if ((conn[to] & IN_TREE) != 0) continue; // reached from another side meanwhile
+
+            conn[from] |= 1 << dir;
+            conn[to] |= IN_TREE | 1 << OPPOSITE[dir];
+            size = addFrontier(frontier, size, conn, to, rows, cols);
+        }
+
+        PackedBoard board = new PackedBoard(rows, cols);
+        for (int cell = 0; cell < n; cell++) {
+            int mask = conn[cell] & 0xF;
+            if (cell == start) {
+                board.set(cell, TileType.POWER, 0, true);
+                board.setBaseMask(cell, mask);
+            } else {
+                board.set(cell, TYPE_FOR_MASK[mask], ROTATION_FOR_MASK[mask], false);
+            }
+        }
+        return board;
+    }
+
+    // Random rotation for every tile except POWER and EMPTY
+    // Time Complexity: O(N)
+    // Space Complexity: O(1)
+    public static void scramble(PackedBoard board, SplittableRandom rand) {
+        for (int cell = 0; cell < board.size(); cell++) {
+            TileType type = board.getType(cell);
+            if (type != TileType.POWER && type != TileType.EMPTY) {
+                board.setRotation(cell, rand.nextInt(4) * 90);
+            }
+        }
+    }
+
+    // Wraps a scrambled board in a fresh game: human to move, no loops allowed
+    // Time Complexity: O(N α(N)) for the initial stats
+    // Space Complexity: O(N)
+    public static GameState newGameState(PackedBoard board, int seed) {
+        GameState state = new GameState();
+
+        // Initialize meta
+        Meta meta = new Meta();
+        meta.setWidth(board.getCols());
+        meta.setHeight(board.getRows());
+        meta.setStatus("PLAYING");
+        meta.setTurn("HUMAN");
+        meta.setSeed(seed);
+        meta.setWraps(false);
+        state.setMeta(meta);
+        state.setBoard(board);
+
+        // Rules
+        Rules rules = new Rules();
+        rules.setAllowLoops(false);
+        state.setRules(rules);
+
+        // Initialize stats
+        BoardAnalyzer.Result analysis = BoardAnalyzer.analyze(state);
+        Stats stats = new Stats();
+        stats.setComponents(analysis.getComponents());
+        stats.setLooseEnds(analysis.getLooseEnds());
+        stats.setSolved(false);
+        state.setStats(stats);
+        return state;
+    }
+
+    // Pushes the edges from cell to neighbours that are not in the tree yet
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private static int addFrontier(int[] frontier, int size, byte[] conn, int cell, int rows, int cols) {
+        int r = cell / cols;
+        int c = cell - r * cols;
+        if (r > 0 && (conn[cell - cols] & IN_TREE) == 0) frontier[size++] = cell << 2;
+        if (c < cols - 1 && (conn[cell + 1] & IN_TREE) == 0) frontier[size++] = cell << 2 | 1;
+        if (r < rows - 1 && (conn[cell + cols] & IN_TREE) == 0) frontier[size++] = cell << 2 | 2;
+        if (c > 0 && (conn[cell - 1] & IN_TREE) == 0) frontier[size++] = cell << 2 | 3;
+        return size;
+    }
+
+    private static int neighbor(int cell, int dir, int cols) {
+        switch (dir) {
+            case 0: return cell - cols;
+            case 1: return cell + 1;
+            case 2: return cell + cols;
+            default: return cell - 1;
+        }
+    }
+}
@@ -0,0 +1,252 @@
+package com.nets.controller;
+
+import com.nets.analysis.BoardAnalyzer;
+import com.nets.metrics.Counter;
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
+import com.nets.metrics.PuzzleGenerationEvent;
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Keeps a few ready-to-play puzzles for the board sizes used most recently, so
+ * starting a game only dequeues one instead of generating on the FX thread.
+ *
+ * Puzzles are generated, checked with BoardAnalyzer and wrapped in a GameState
+ * on a single daemon thread. Sizes are kept in least-recently-used order; when
+ * more than maxSizes are tracked, or the puzzles held would exceed maxCells
+ * cells in total, the oldest size is dropped first. A take() that finds its
+ * queue empty generates on the caller's thread, exactly like before the pool.
+ *
+ * Limits can be set with -Dnets.pool.perSize, -Dnets.pool.sizes and
+ * -Dnets.pool.maxCells (each puzzle holds two packed boards, about 4 bytes per cell).
+ *
+ * Generation time, hits, misses and puzzles regenerated because the check
+ * failed are recorded in Metrics (pool.*), and each generation is a
+ * com.nets.PuzzleGeneration JFR event.
+ */
+public final class PuzzlePool implements AutoCloseable {
+
+    /** A scrambled game ready to load, plus its solution. */
+    public static final class Puzzle {
+        private final GameState state;
+        private final PackedBoard solved;
+
+        Puzzle(GameState state, PackedBoard solved) {
+            this.state = state;
+            this.solved = solved;
+        }
+
+        public GameState getState() {
+            return state;
+        }
+
+        public PackedBoard getSolved() {
+            return solved;
+        }
+    }
+
+    private static final Histogram GENERATE_NANOS = Metrics.histogram("pool.generate.nanos");
+    private static final Counter HITS = Metrics.counter("pool.hits");
+    private static final Counter MISSES = Metrics.counter("pool.misses");
+    private static final Counter RETRIES = Metrics.counter("pool.retries");
+
+    private final int perSize;
+    private final int maxSizes;
+    private final long maxCells;
+
+    // Iteration starts at the least recently used size. Only touch() reorders: lookups from
+    // fill() and available() must not count as uses, so the map is not access-ordered.
+    private final LinkedHashMap<Long, ArrayDeque<Puzzle>> queues = new LinkedHashMap<>();
+    private long heldCells;
+    private boolean closed;
+
+    private final ExecutorService refill = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "nets-puzzle-pool");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final SplittableRandom seeds = new SplittableRandom(new Random().nextLong());
+
+    private int hits;
+    private int misses;
+
+    public PuzzlePool() {
+        this(Integer.getInteger("nets.pool.perSize", 3),
+                Integer.getInteger("nets.pool.sizes", 4),
+                Long.getLong("nets.pool.maxCells", 2_000_000L));
+    }
+
+    public PuzzlePool(int perSize, int maxSizes, long maxCells) {
+        this.perSize = perSize;
+        this.maxSizes = maxSizes;
+        this.maxCells = maxCells;
+    }
+
+    // Hands out a pooled puzzle and schedules a refill for that size
+    // Time Complexity: O(1) when the pool has one, O(N) generation otherwise
+    // Space Complexity: O(1), or O(N) on a miss
+    public Puzzle take(int rows, int cols) {
+        Puzzle puzzle;
+        synchronized (this) {
+            ArrayDeque<Puzzle> queue = touch(rows, cols);
+            puzzle = queue.pollFirst();
+            if (puzzle != null) {
+                heldCells -= 2L * rows * cols;
+                hits++;
+                HITS.increment();
+            } else {
+                misses++;
+                MISSES.increment();
+            }
+        }
+        scheduleRefill(rows, cols);
+        return puzzle != null ? puzzle : generate(rows, cols, seeds());
+    }
+
+    // Starts filling a size ahead of time (e.g. the default size at startup)
+    // Time Complexity: O(1) here; generation runs on the pool thread
+    // Space Complexity: O(1)
+    public void prefetch(int rows, int cols) {
+        synchronized (this) {
+            touch(rows, cols);
+        }
+        scheduleRefill(rows, cols);
+    }
+
+    public synchronized int available(int rows, int cols) {
+        ArrayDeque<Puzzle> queue = queues.get(key(rows, cols));
+        return queue == null ? 0 : queue.size();
+    }
+
+    /** Cells held across all queued puzzles (two boards per puzzle). */
+    public synchronized long getHeldCells() {
+        return heldCells;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            queues.clear();
+            heldCells = 0;
+        }
+        refill.shutdownNow();
+    }
+
+    // Marks a size as most recently used and evicts the oldest sizes beyond maxSizes
+    private ArrayDeque<Puzzle> touch(int rows, int cols) {
+        long key = key(rows, cols);
+        ArrayDeque<Puzzle> queue = queues.remove(key);
+        if (queue == null) queue = new ArrayDeque<>(perSize);
+        queues.put(key, queue);
+        while (queues.size() > maxSizes) {
+            evictOldest();
+        }
+        return queue;
+    }
+
+    private void evictOldest() {
+        Iterator<Map.Entry<Long, ArrayDeque<Puzzle>>> it = queues.entrySet().iterator();
+        Map.Entry<Long, ArrayDeque<Puzzle>> oldest = it.next();
+        heldCells -= oldest.getValue().size() * 2L * cellsOf(oldest.getKey());
+        it.remove();
+    }
+
+    private void scheduleRefill(int rows, int cols) {
+        try {
+            refill.execute(() -> fill(rows, cols));
+        } catch (java.util.concurrent.RejectedExecutionException e) {
+            // Pool closed
+        }
+    }
+
+    // Runs on the pool thread; generation happens outside the lock
+    // Time Complexity: O(perSize * N)
+    // Space Complexity: O(perSize * N)
+    private void fill(int rows, int cols) {
+        long cost = 2L * rows * cols;
+        while (true) {
+            int seed;
+            synchronized (this) {
+                ArrayDeque<Puzzle> queue = queues.get(key(rows, cols));
+                if (closed || queue == null || queue.size() >= perSize || !makeRoom(cost, key(rows, cols))) return;
+                seed = seeds();
+            }
+            Puzzle puzzle = generate(rows, cols, seed);
+            if (!BoardAnalyzer.analyze(puzzle.getSolved(), false, false).isSolved()) {
+                RETRIES.increment();
+                continue;
+            }
+            synchronized (this) {
+                ArrayDeque<Puzzle> queue = queues.get(key(rows, cols));
+                if (closed || queue == null || queue.size() >= perSize || !makeRoom(cost, key(rows, cols))) return;
+                queue.addLast(puzzle);
+                heldCells += cost;
+            }
+        }
+    }
+
+    // Frees memory by dropping the least recently used other sizes; false if it still does not fit
+    private boolean makeRoom(long cost, long keep) {
+        while (heldCells + cost > maxCells) {
+            Map.Entry<Long, ArrayDeque<Puzzle>> oldest = queues.entrySet().iterator().next();
+            if (oldest.getKey() == keep) return false;
+            evictOldest();
+        }
+        return true;
+    }
+
+    private synchronized int seeds() {
+        return seeds.nextInt();
+    }
+
+    // Same steps as GameController.createNewGameState
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    static Puzzle generate(int rows, int cols, int seed) {
+        long start = System.nanoTime();
+        PuzzleGenerationEvent event = new PuzzleGenerationEvent();
+        event.begin();
+        SplittableRandom rand = new SplittableRandom(seed);
+        PackedBoard board = PuzzleGenerator.generateSolved(rows, cols, rand);
+        PackedBoard solved = board.copy();
+        PuzzleGenerator.scramble(board, rand);
+        Puzzle puzzle = new Puzzle(PuzzleGenerator.newGameState(board, seed), solved);
+        GENERATE_NANOS.record(System.nanoTime() - start);
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows;
+            event.cols = cols;
+            event.seed = seed;
+            event.commit();
+        }
+        return puzzle;
+    }
+
+    private static long key(int rows, int cols) {
+        return (long) rows << 32 | (cols & 0xFFFFFFFFL);
+    }
+
+    private static long cellsOf(long key) {
+        return (key >>> 32) * (key & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,184 @@
+package com.nets.controller;
+
+import com.nets.model.PackedBoard;
+import com.nets.model.TileType;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * On-disk set of same-sized puzzles, one fixed-size record per puzzle so any
+ * puzzle can be read or written independently at a known offset.
+ *
+ * <pre>
+ *   header (32 bytes, big-endian):
+ *     int magic "NETS", int version, int rows, int cols, int count, int reserved, long batchSeed
+ *   record i at 32 + i * (4 + rows * cols):
+ *     int seed, then one byte per cell:
+ *       bits 0-2  TileType ordinal
+ *       bits 3-4  scrambled quarter turns
+ *       bits 5-6  solved quarter turns
+ *     The POWER tile never rotates, so bits 3-6 hold its connections instead.
+ * </pre>
+ * Positional channel reads and writes make one instance safe to share between threads.
+ */
+public final class PuzzleSet implements Closeable {
+    private static final int MAGIC = 0x4E455453; // "NETS"
+    private static final int VERSION = 1;
+    static final int HEADER_BYTES = 32;
+
+    private static final TileType[] TYPES = TileType.values();
+
+    private final FileChannel channel;
+    private final int rows;
+    private final int cols;
+    private final int count;
+    private final long batchSeed;
+
+    private PuzzleSet(FileChannel channel, int rows, int cols, int count, long batchSeed) {
+        this.channel = channel;
+        this.rows = rows;
+        this.cols = cols;
+        this.count = count;
+        this.batchSeed = batchSeed;
+    }
+
+    // Creates (or truncates) a set with room for count puzzles
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public static PuzzleSet create(Path path, int rows, int cols, int count, long batchSeed) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(cols).putInt(count).putInt(0).putLong(batchSeed);
+        header.flip();
+        writeFully(channel, header, 0);
+        return new PuzzleSet(channel, rows, cols, count, batchSeed);
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public static PuzzleSet open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            channel.close();
+            throw new IOException("Not a puzzle set: " + path);
+        }
+        int rows = header.getInt();
+        int cols = header.getInt();
+        int count = header.getInt();
+        header.getInt();
+        return new PuzzleSet(channel, rows, cols, count, header.getLong());
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    public long getBatchSeed() {
+        return batchSeed;
+    }
+
+    public int recordBytes() {
+        return 4 + rows * cols;
+    }
+
+    // Stores puzzle i; solved must be the same board before scrambling
+    // Time Complexity: O(N)
+    // Space Complexity: O(N) for the record buffer
+    public void write(int index, int seed, PackedBoard scrambled, PackedBoard solved) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(recordBytes());
+        record.putInt(seed);
+        for (int cell = 0; cell < rows * cols; cell++) {
+            TileType type = scrambled.getType(cell);
+            int bits = type.ordinal();
+            if (type == TileType.POWER) {
+                bits |= scrambled.baseMask(cell) << 3;
+            } else {
+                bits |= scrambled.getRotation(cell) / 90 << 3 | solved.getRotation(cell) / 90 << 5;
+            }
+            record.put((byte) bits);
+        }
+        record.flip();
+        writeFully(channel, record, offset(index));
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public int readSeed(int index) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(4);
+        readFully(channel, buf, offset(index));
+        return buf.getInt(0);
+    }
+
+    /** Puzzle i as it is handed to the player. */
+    public PackedBoard readPuzzle(int index) throws IOException {
+        return read(index, 3);
+    }
+
+    /** Puzzle i in its solved orientation. */
+    public PackedBoard readSolution(int index) throws IOException {
+        return read(index, 5);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    private PackedBoard read(int index, int turnShift) throws IOException {
+        ByteBuffer record = ByteBuffer.allocate(recordBytes());
+        readFully(channel, record, offset(index));
+        PackedBoard board = new PackedBoard(rows, cols);
+        for (int cell = 0; cell < rows * cols; cell++) {
+            int bits = record.get(4 + cell);
+            TileType type = TYPES[bits & 0x7];
+            if (type == TileType.POWER) {
+                board.set(cell, type, 0, true);
+                board.setBaseMask(cell, bits >> 3);
+            } else {
+                board.set(cell, type, ((bits >> turnShift) & 3) * 90, false);
+            }
+        }
+        return board;
+    }
+
+    private long offset(int index) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("Puzzle " + index + " of " + count);
+        }
+        return HEADER_BYTES + (long) index * recordBytes();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            position += channel.write(buf, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, position);
+            if (n < 0) throw new EOFException("Truncated puzzle set");
+            position += n;
+        }
+    }
+}
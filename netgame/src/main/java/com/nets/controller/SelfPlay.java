@@ -0,0 +1,253 @@
+package com.nets.controller;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.engine.SolvePlans;
+import com.nets.metrics.Metrics;
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * Headless self-play: many GameSession games at once between a simulated human
+ * and the CPU, across seeds, board sizes and the four CPU algorithms, with no
+ * display. Each turn is what GameController does: the human turns a tile, the
+ * CPU's move comes from the solve plan or a get_cpu_move request on a snapshot,
+ * and the stats and win check follow every move. Requests ask for no
+ * visualization steps.
+ *
+ * Every worker thread has its own engine session and SolvePlans, as each game
+ * window has. A game ends when it is solved or after 8 moves per cell.
+ *
+ * Reports moves per second, CPU-move latency (p50, p99, max; the engine call or
+ * plan lookup, from the snapshot to the answer), engine session start-up cost
+ * and the solved rate, per algorithm and board size. The first request on each
+ * worker also starts its session, which shows up in the max latency. The
+ * Metrics dump follows, with the engine's time split per request.
+ *
+ * The human is "scripted" (turns a random tile whose ports differ from the
+ * solution) or "random" (turns any movable tile).
+ *
+ * Usage: java ... com.nets.controller.SelfPlay [games] [threads] [player] [sizes...]
+ * games is per size and algorithm; threads defaults to the processor count.
+ * Set -Dnets.engine=/path/to/nets_engine to point at a specific build.
+ */
+public class SelfPlay {
+    static final String[] ALGORITHMS = {"greedy", "backtracking", "dp", "divideandconquer"};
+    private static final int MOVES_PER_CELL = 8;
+
+    /** Totals for one algorithm and size; workers add finished games. */
+    private static final class Tally {
+        int games;
+        int solved;
+        int cpuWins;
+        int failed;
+        long moves;
+        long gameNanos; // summed over games, so moves per second is per worker
+        double[] latencies = new double[256];
+        int latencyCount;
+
+        synchronized void add(Game game) {
+            games++;
+            if (game.solved) solved++;
+            if (game.solved && game.cpuWon) cpuWins++;
+            if (game.failed) failed++;
+            moves += game.moves;
+            gameNanos += game.nanos;
+            if (latencyCount + game.latencyCount > latencies.length) {
+                latencies = Arrays.copyOf(latencies, Math.max(2 * latencies.length, latencyCount + game.latencyCount));
+            }
+            System.arraycopy(game.latencies, 0, latencies, latencyCount, game.latencyCount);
+            latencyCount += game.latencyCount;
+        }
+
+        synchronized void addAll(Tally other) {
+            games += other.games;
+            solved += other.solved;
+            cpuWins += other.cpuWins;
+            failed += other.failed;
+            moves += other.moves;
+            gameNanos += other.gameNanos;
+            latencies = Arrays.copyOf(latencies, Math.max(latencies.length, latencyCount + other.latencyCount));
+            System.arraycopy(other.latencies, 0, latencies, latencyCount, other.latencyCount);
+            latencyCount += other.latencyCount;
+        }
+    }
+
+    /** One finished game. */
+    private static final class Game {
+        boolean solved;
+        boolean cpuWon;
+        boolean failed;
+        int moves;
+        long nanos;
+        double[] latencies = new double[64]; // CPU-move latencies in ms
+        int latencyCount;
+
+        void addLatency(double ms) {
+            if (latencyCount == latencies.length) latencies = Arrays.copyOf(latencies, 2 * latencyCount);
+            latencies[latencyCount++] = ms;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        boolean scripted = args.length <= 2 || !"random".equals(args[2]);
+        int[] sizes = args.length > 3 ? Arrays.stream(args, 3, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{5, 8};
+
+        Map<String, Tally> tallies = new LinkedHashMap<>();
+        for (String algo : ALGORITHMS) {
+            for (int size : sizes) tallies.put(algo + " " + size, new Tally());
+        }
+
+        // One engine session and one plan cache per worker, like one per game window
+        List<CppEngine> engines = Collections.synchronizedList(new ArrayList<>());
+        ThreadLocal<CppEngine> engine = ThreadLocal.withInitial(() -> {
+            CppEngine e = new CppEngine();
+            engines.add(e);
+            return e;
+        });
+        ThreadLocal<SolvePlans> plans = ThreadLocal.withInitial(SolvePlans::new);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "nets-self-play");
+            t.setDaemon(true);
+            return t;
+        });
+        List<Future<?>> running = new ArrayList<>();
+        long t0 = System.nanoTime();
+        for (int seed = 1; seed <= games; seed++) {
+            for (int size : sizes) {
+                for (String algo : ALGORITHMS) {
+                    int gameSeed = seed * 1_000_003 + size;
+                    Tally tally = tallies.get(algo + " " + size);
+                    running.add(workers.submit(() -> tally.add(
+                            play(size, algo, gameSeed, scripted, engine.get(), plans.get()))));
+                }
+            }
+        }
+        for (Future<?> f : running) f.get();
+        double wallSeconds = (System.nanoTime() - t0) / 1e9;
+        workers.shutdown();
+
+        int spawns = 0;
+        long spawnNanos = 0;
+        for (CppEngine e : engines) {
+            spawns += e.getSpawnCount();
+            spawnNanos += e.getSpawnNanos();
+            e.close();
+        }
+
+        report(tallies, sizes, threads, scripted, wallSeconds, spawns, spawnNanos);
+        System.out.print(System.lineSeparator() + Metrics.dump());
+    }
+
+    // Plays one game to the end on the calling thread
+    // Time Complexity: O(M * (N + engine call)) for M moves, O(N) per scripted human move
+    // Space Complexity: O(N + M)
+    static Game play(int size, String algo, int seed, boolean scripted, CppEngine engine, SolvePlans plans) {
+        GameSession session = GameSession.generate(size, size, seed);
+        PackedBoard board = session.getState().getBoard();
+        SplittableRandom rand = new SplittableRandom(seed);
+        SolvePlans.EngineCall call = (action, a, visualize, state) -> engine.request(action, a, visualize, state);
+        int[] movable = movableCells(board);
+        int maxMoves = MOVES_PER_CELL * board.size();
+
+        Game game = new Game();
+        long start = System.nanoTime();
+        try {
+            while (session.isPlaying() && game.moves < maxMoves && movable.length > 0) {
+                if (session.isHumanTurn()) {
+                    int cell = humanMove(board, session.getSolvedBoard(), movable, scripted, rand);
+                    game.moves++;
+                    if (session.humanMove(cell / size, cell % size, 90)) break;
+                } else {
+                    long t0 = System.nanoTime();
+                    GameState snapshot = session.snapshot();
+                    EngineResponse planned = plans.nextMove(call, algo, snapshot);
+                    EngineResponse response = planned != null ? planned
+                            : engine.request("get_cpu_move", algo, false, snapshot);
+                    game.addLatency((System.nanoTime() - t0) / 1e6);
+                    game.moves++;
+                    if (session.cpuMove(response.getMove())) {
+                        game.cpuWon = true;
+                        break;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            System.err.printf("%s %dx%d seed %d failed: %s%n", algo, size, size, seed, e);
+            game.failed = true;
+        }
+        game.nanos = System.nanoTime() - start;
+        game.solved = !session.isPlaying();
+        return game;
+    }
+
+    // Scripted: a random tile whose ports differ from the solution, if any; otherwise
+    // (or for the random player) any movable tile
+    private static int humanMove(PackedBoard board, PackedBoard solved, int[] movable, boolean scripted,
+                                 SplittableRandom rand) {
+        if (scripted) {
+            int wrong = 0;
+            int pick = -1;
+            for (int cell : movable) {
+                if (board.portMask(cell) != solved.portMask(cell) && rand.nextInt(++wrong) == 0) pick = cell;
+            }
+            if (pick >= 0) return pick;
+        }
+        return movable[rand.nextInt(movable.length)];
+    }
+
+    private static int[] movableCells(PackedBoard board) {
+        int[] cells = new int[board.size()];
+        int n = 0;
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (!board.isEmpty(cell) && !board.isLocked(cell)) cells[n++] = cell;
+        }
+        return Arrays.copyOf(cells, n);
+    }
+
+    private static void report(Map<String, Tally> tallies, int[] sizes, int threads, boolean scripted,
+                               double wallSeconds, int spawns, long spawnNanos) {
+        long moves = 0;
+        int games = 0;
+        for (Tally t : tallies.values()) {
+            moves += t.moves;
+            games += t.games;
+        }
+        System.out.printf("%d games, %d moves in %.1f s on %d threads (%s human): %.0f moves/s%n", games, moves,
+                wallSeconds, threads, scripted ? "scripted" : "random", moves / wallSeconds);
+        System.out.printf("engine sessions: %d started, %.1f ms each, %.2f%% of worker time%n", spawns,
+                spawns > 0 ? spawnNanos / 1e6 / spawns : 0, 100 * spawnNanos / 1e9 / (wallSeconds * threads));
+
+        System.out.printf("%-18s %6s %6s %8s %8s %9s %10s %10s %10s %10s%n", "algorithm", "size", "games",
+                "solved", "cpu won", "moves", "moves/s", "p50 ms", "p99 ms", "max ms");
+        for (String algo : ALGORITHMS) {
+            Tally all = new Tally();
+            for (int size : sizes) {
+                Tally t = tallies.get(algo + " " + size);
+                row(algo, size + "x" + size, t);
+                all.addAll(t);
+            }
+            if (sizes.length > 1) row(algo, "all", all);
+        }
+    }
+
+    private static void row(String algo, String size, Tally t) {
+        double[] latencies = Arrays.copyOf(t.latencies, t.latencyCount);
+        Arrays.sort(latencies);
+        System.out.printf("%-18s %6s %6d %7.1f%% %7.1f%% %9d %10.0f %10.3f %10.3f %10.3f%s%n", algo, size, t.games,
+                t.games > 0 ? 100.0 * t.solved / t.games : 0, t.solved > 0 ? 100.0 * t.cpuWins / t.solved : 0,
+                t.moves, t.gameNanos > 0 ? t.moves / (t.gameNanos / 1e9) : 0, percentile(latencies, 0.5),
+                percentile(latencies, 0.99), percentile(latencies, 1), t.failed > 0 ? "  (" + t.failed + " failed)" : "");
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) (p * (sorted.length - 1))];
+    }
+}
@@ -0,0 +1,358 @@
+package com.nets.controller;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.metrics.Counter;
+import com.nets.metrics.Metrics;
+import com.nets.model.GameState;
+import com.nets.model.Meta;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import com.nets.model.Stats;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Computes CPU replies to the human's likely next clicks while the human is
+ * still thinking, so a matching click is answered without an engine call.
+ *
+ * A human move is always one clockwise quarter turn of an unlocked, non-EMPTY
+ * tile. When the human's turn starts, those moves are ranked by the same local
+ * fit the engine's greedy strategy sorts by (calculateLocalFit_greedy: sides
+ * whose port agrees with the neighbour's) and get_cpu_move is run for the best
+ * ones, in that order, on a low-priority daemon thread with its own engine
+ * session. Replies are cached by the board they answer: board id, the version
+ * before the click and the clicked cell, which PackedBoard's journal confirms
+ * on lookup.
+ *
+ * The budget is the number of moves tried per turn (-Dnets.speculation.moves,
+ * 0 turns speculation off) and the time after which no further move is started
+ * (-Dnets.speculation.budgetMs). -Dnets.speculation.cache bounds the replies
+ * kept. A click that misses stops the rest of the turn's speculation and
+ * aborts the reply being computed, so it does not compete with the real one.
+ * Hits and misses are counted in Metrics (speculation.hits, speculation.misses).
+ */
+public final class SpeculativeMoves implements AutoCloseable {
+
+    // One cached reply: the board before the click, the clicked cell and the algorithm
+    private static final class Key {
+        final String algo;
+        final int boardId;
+        final int baseVersion;
+        final int cell;
+
+        Key(String algo, int boardId, int baseVersion, int cell) {
+            this.algo = algo;
+            this.boardId = boardId;
+            this.baseVersion = baseVersion;
+            this.cell = cell;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return boardId == k.boardId && baseVersion == k.baseVersion && cell == k.cell && algo.equals(k.algo);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(algo, boardId, baseVersion, cell);
+        }
+    }
+
+    private final int movesPerTurn;
+    private final long budgetMillis;
+    private final int maxEntries;
+
+    private final CppEngine engine = new CppEngine();
+    private volatile Thread worker;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "nets-speculation");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        worker = t;
+        return t;
+    });
+
+    // Access-ordered: iteration starts at the least recently used reply. Replies not
+    // computed yet are in here too, as futures that are not done.
+    private final LinkedHashMap<Key, CompletableFuture<EngineResponse>> replies = new LinkedHashMap<>(16, 0.75f, true);
+    private int generation; // bumped by start() and by every take(); older loops stop
+    private Key running;    // reply the worker is computing right now
+    private boolean closed;
+
+    private static final Counter HITS = Metrics.counter("speculation.hits");
+    private static final Counter MISSES = Metrics.counter("speculation.misses");
+
+    private int hits;
+    private int misses;
+    private int computed;
+
+    public SpeculativeMoves() {
+        this(Integer.getInteger("nets.speculation.moves", 6),
+                Long.getLong("nets.speculation.budgetMs", 2000L),
+                Integer.getInteger("nets.speculation.cache", 32));
+    }
+
+    public SpeculativeMoves(int movesPerTurn, long budgetMillis, int maxEntries) {
+        this.movesPerTurn = movesPerTurn;
+        this.budgetMillis = budgetMillis;
+        this.maxEntries = maxEntries;
+        engine.setBoardDeltas(false); // every speculative board is a one-off copy
+    }
+
+    // Starts speculating on the human's next move; called on the FX thread when the human's
+    // turn begins. Replies for earlier boards are dropped.
+    // Time Complexity: O(N log N) to rank the moves; the engine work runs on the worker
+    // Space Complexity: O(N) for the snapshot
+    public void start(GameState live, String algo) {
+        if (movesPerTurn <= 0) return;
+        PackedBoard board = live.getBoard().snapshot();
+        int[] cells = rankMoves(board, live.getMeta().isWraps(), movesPerTurn);
+        List<Key> keys = new ArrayList<>(cells.length);
+        int gen;
+        synchronized (this) {
+            if (closed) return;
+            gen = ++generation;
+            dropOtherBoards(board.getId(), board.getVersion());
+            for (int cell : cells) {
+                Key key = new Key(algo, board.getId(), board.getVersion(), cell);
+                if (replies.containsKey(key)) continue;
+                replies.put(key, new CompletableFuture<>());
+                keys.add(key);
+            }
+            trim();
+        }
+        if (keys.isEmpty()) return;
+        Meta meta = live.getMeta();
+        GameState template = new GameState();
+        template.setMeta(copyMeta(meta));
+        template.setRules(live.getRules());
+        template.setStats(new Stats());
+        template.setBoard(board);
+        try {
+            executor.execute(() -> speculate(gen, template, algo, keys));
+        } catch (RejectedExecutionException e) {
+            // Closed
+        }
+    }
+
+    // Returns the reply for the move the human just made on live (its last move), or null
+    // when it was not speculated. A reply still being computed is returned unfinished.
+    // Any other speculation for this turn is stopped.
+    // Time Complexity: O(1) amortized
+    // Space Complexity: O(1)
+    public CompletableFuture<EngineResponse> take(GameState live, String algo) {
+        PackedBoard board = live.getBoard();
+        Move last = live.getLastMove();
+        Key key = null;
+        if (last != null) {
+            int cell = board.index(last.getRow(), last.getCol());
+            int[] changed = board.changesSince(board.getVersion() - 1);
+            if (changed != null && changed.length == 1 && changed[0] == cell) {
+                key = new Key(algo, board.getId(), board.getVersion() - 1, cell);
+            }
+        }
+
+        CompletableFuture<EngineResponse> reply;
+        boolean abort;
+        synchronized (this) {
+            generation++;
+            reply = key != null ? replies.remove(key) : null;
+            if (reply != null && !reply.isDone() && !key.equals(running)) {
+                reply = null; // queued behind other guesses; the real request is quicker
+            }
+            if (reply != null) {
+                hits++;
+                HITS.increment();
+            } else if (movesPerTurn > 0) {
+                misses++;
+                MISSES.increment();
+            }
+            abort = running != null && !running.equals(key);
+        }
+        if (abort) engine.cancel(worker);
+        return reply;
+    }
+
+    // Stops this turn's speculation, e.g. when the game is reset
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public void stop() {
+        boolean abort;
+        synchronized (this) {
+            generation++;
+            abort = running != null;
+        }
+        if (abort) engine.cancel(worker);
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /** Share of human moves answered from speculation, 0 before the first move. */
+    public synchronized double getHitRate() {
+        int total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    /** Replies computed so far, used or not. */
+    public synchronized int getComputed() {
+        return computed;
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            generation++;
+            replies.clear();
+        }
+        engine.cancel(worker);
+        executor.shutdownNow();
+        engine.close();
+    }
+
+    // Runs on the worker: one get_cpu_move per ranked move until the turn moves on or
+    // the budget is spent. Replies that never started are removed again.
+    private void speculate(int gen, GameState template, String algo, List<Key> keys) {
+        long deadline = System.nanoTime() + budgetMillis * 1_000_000L;
+        PackedBoard base = template.getBoard();
+        for (Key key : keys) {
+            CompletableFuture<EngineResponse> reply;
+            synchronized (this) {
+                reply = replies.get(key);
+                if (gen != generation || System.nanoTime() > deadline) break;
+                if (reply == null) continue; // evicted
+                running = key;
+            }
+            try {
+                PackedBoard board = base.copy();
+                board.rotate(key.cell, 90);
+                GameState state = new GameState();
+                state.setMeta(template.getMeta());
+                state.setRules(template.getRules());
+                state.setStats(template.getStats());
+                state.setBoard(board);
+                state.setLastMove(new Move("HUMAN", key.cell / board.getCols(), key.cell % board.getCols(),
+                        board.getRotation(key.cell)));
+                reply.complete(engine.request("get_cpu_move", algo, true, state));
+                synchronized (this) {
+                    computed++;
+                }
+            } catch (Exception e) {
+                reply.completeExceptionally(e);
+                synchronized (this) {
+                    replies.remove(key, reply);
+                }
+            } finally {
+                synchronized (this) {
+                    running = null;
+                }
+            }
+        }
+        synchronized (this) {
+            for (Key key : keys) {
+                CompletableFuture<EngineResponse> reply = replies.get(key);
+                if (reply != null && !reply.isDone()) {
+                    replies.remove(key);
+                    reply.cancel(false);
+                }
+            }
+        }
+    }
+
+    // Unlocked, non-EMPTY cells ordered by the local fit of their next rotation (ties go to
+    // the larger gain over the current rotation, then to row-major order); the first limit
+    // Time Complexity: O(N log N)
+    // Space Complexity: O(N)
+    static int[] rankMoves(PackedBoard board, boolean wraps, int limit) {
+        long[] ranked = new long[board.size()];
+        int n = 0;
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (board.isLocked(cell) || board.isEmpty(cell)) continue;
+            int before = localFit(board, wraps, cell, board.portMask(cell));
+            int after = localFit(board, wraps, cell, board.portMaskAt(cell, board.getRotation(cell) + 90));
+            int score = after * 16 + (after - before + 4); // 0..4 fit, -4..4 gain
+            ranked[n++] = (long) (255 - score) << 32 | cell;
+        }
+        Arrays.sort(ranked, 0, n);
+        int[] cells = new int[Math.min(limit, n)];
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = (int) ranked[i];
+        }
+        return cells;
+    }
+
+    // Sides where the cell's port (in mask) and the neighbour's facing port agree, as in
+    // calculateLocalFit_greedy; off-board and EMPTY neighbours have no port
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    static int localFit(PackedBoard board, boolean wraps, int cell, int mask) {
+        int rows = board.getRows();
+        int cols = board.getCols();
+        int r = cell / cols;
+        int c = cell % cols;
+        int score = 0;
+        for (int side = 0; side < 4; side++) {
+            int dir = 1 << side; // N, E, S, W
+            int nr = r + (dir == PackedBoard.SOUTH ? 1 : dir == PackedBoard.NORTH ? -1 : 0);
+            int nc = c + (dir == PackedBoard.EAST ? 1 : dir == PackedBoard.WEST ? -1 : 0);
+            boolean theirs = false;
+            if (wraps) {
+                nr = (nr + rows) % rows;
+                nc = (nc + cols) % cols;
+            }
+            if (nr >= 0 && nr < rows && nc >= 0 && nc < cols) {
+                int opposite = PackedBoard.rotateMask(dir, 2);
+                theirs = (board.portMask(board.index(nr, nc)) & opposite) != 0;
+            }
+            if (((mask & dir) != 0) == theirs) score++;
+        }
+        return score;
+    }
+
+    // Replies for any other board (or an older version of this one) can never match again
+    private void dropOtherBoards(int boardId, int version) {
+        Iterator<Map.Entry<Key, CompletableFuture<EngineResponse>>> it = replies.entrySet().iterator();
+        while (it.hasNext()) {
+            Key key = it.next().getKey();
+            if (key.boardId != boardId || key.baseVersion != version) it.remove();
+        }
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Key, CompletableFuture<EngineResponse>>> it = replies.entrySet().iterator();
+        while (replies.size() > maxEntries && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
+    }
+
+    private static Meta copyMeta(Meta live) {
+        Meta meta = new Meta();
+        meta.setWidth(live.getWidth());
+        meta.setHeight(live.getHeight());
+        meta.setSeed(live.getSeed());
+        meta.setStatus(live.getStatus());
+        meta.setTurn("CPU"); // as it will be when the real request is made
+        meta.setWraps(live.isWraps());
+        return meta;
+    }
+}
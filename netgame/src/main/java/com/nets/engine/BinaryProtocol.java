@@ -0,0 +1,261 @@
+package com.nets.engine;
+
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import com.nets.model.Stats;
+import com.nets.model.StepSink;
+import com.nets.model.StepTrace;
+import com.nets.model.TileType;
+import com.nets.model.VisualStep;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Payload codec for the engine's binary session protocol (see cpp/BinaryProtocol.hpp
+ * and communication_structure.jsonc). Everything is big-endian; framing (the u32
+ * length prefix) is done by CppEngine.
+ */
+public final class BinaryProtocol {
+    static final int ACTION_JSON = 0;
+    static final int SECTION_MOVE = 1;
+    static final int SECTION_STATS = 2;
+    static final int SECTION_STEPS = 4;
+    static final int SECTION_SOLUTION = 8;
+    static final int SECTION_JSON = 16;
+
+    static final int FLAG_VISUALIZE = 1;
+    static final int FLAG_WRAPS = 2;
+    static final int FLAG_LAST_MOVE = 4;
+    static final int FLAG_STORE_BOARD = 8;
+    static final int FLAG_BOARD_DELTAS = 16;
+    private static final int HEADER_BYTES = 11;
+
+    /** Response status when a delta request named a board version the engine does not have. */
+    static final int STATUS_STALE_BOARD = 2;
+
+    /** Bytes per step record in a response (the StepTrace record layout). */
+    public static final int STEP_RECORD_BYTES = StepTrace.RECORD_BYTES;
+    // Step records read per stream read when decoding from a stream
+    private static final int STEP_CHUNK = 256;
+
+    private static final String[] ACTIONS = {null, "get_cpu_move", "get_stats", "get_visualization_steps", "solve_game"};
+    private static final String[] ALGOS = {"greedy", "backtracking", "dp", "divideandconquer"};
+
+    // The engine's TileType enum order differs from the Java one
+    private static final int[] ENGINE_TYPE = new int[TileType.values().length];
+
+    static {
+        ENGINE_TYPE[TileType.EMPTY.ordinal()] = 0;
+        ENGINE_TYPE[TileType.POWER.ordinal()] = 1;
+        ENGINE_TYPE[TileType.PC.ordinal()] = 2;
+        ENGINE_TYPE[TileType.STRAIGHT.ordinal()] = 3;
+        ENGINE_TYPE[TileType.CORNER.ordinal()] = 4;
+        ENGINE_TYPE[TileType.T_JUNCTION.ordinal()] = 5;
+        ENGINE_TYPE[TileType.CROSS.ordinal()] = 6;
+    }
+
+    private BinaryProtocol() {}
+
+    /** True when the action has a binary encoding; anything else goes through wrapJson. */
+    public static boolean supports(String action) {
+        return actionCode(action) > 0;
+    }
+
+    // u8 action, u8 algo, u8 flags, u16 width, u16 height, i16 lastRow, i16 lastCol,
+    // one byte per cell, then one mask byte per cell with custom connections
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public static byte[] encodeRequest(String action, String algo, boolean visualize, GameState state) {
+        return encodeBoardRequest(action, algo, visualize, state, false);
+    }
+
+    // Same, with FLAG_STORE_BOARD: the engine keeps the board under its id and version
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    static byte[] encodeStoreRequest(String action, String algo, boolean visualize, GameState state) {
+        return encodeBoardRequest(action, algo, visualize, state, true);
+    }
+
+    // FLAG_BOARD_DELTAS: u32 id, u32 base version, u32 version, u16 count and per changed
+    // cell u16 row, u16 col, u8 quarter turns, instead of the cells
+    // Time Complexity: O(D)
+    // Space Complexity: O(D)
+    static byte[] encodeDeltaRequest(String action, String algo, boolean visualize, GameState state,
+                                     int baseVersion, int[] changed) {
+        PackedBoard board = state.getBoard();
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + 14 + 5 * changed.length);
+        putHeader(out, action, algo, visualize, state, FLAG_BOARD_DELTAS);
+        out.putInt(board.getId());
+        out.putInt(baseVersion);
+        out.putInt(board.getVersion());
+        out.putShort((short) changed.length);
+        for (int cell : changed) {
+            out.putShort((short) (cell / board.getCols()));
+            out.putShort((short) (cell % board.getCols()));
+            out.put((byte) (board.getRotation(cell) / 90));
+        }
+        return out.array();
+    }
+
+    private static byte[] encodeBoardRequest(String action, String algo, boolean visualize, GameState state,
+                                             boolean store) {
+        PackedBoard board = state.getBoard();
+        int n = board.size();
+        int custom = 0;
+        for (int cell = 0; cell < n; cell++) {
+            if (board.hasCustomConnections(cell)) custom++;
+        }
+
+        ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + (store ? 8 : 0) + n + custom);
+        putHeader(out, action, algo, visualize, state, store ? FLAG_STORE_BOARD : 0);
+        if (store) {
+            out.putInt(board.getId());
+            out.putInt(board.getVersion());
+        }
+        for (int cell = 0; cell < n; cell++) {
+            int bits = ENGINE_TYPE[board.getType(cell).ordinal()]
+                    | (board.getRotation(cell) / 90) << 3
+                    | (board.isLocked(cell) ? 0x20 : 0)
+                    | (board.hasCustomConnections(cell) ? 0x40 : 0);
+            out.put((byte) bits);
+        }
+        for (int cell = 0; cell < n && custom > 0; cell++) {
+            if (board.hasCustomConnections(cell)) out.put((byte) board.baseMask(cell));
+        }
+        return out.array();
+    }
+
+    private static void putHeader(ByteBuffer out, String action, String algo, boolean visualize, GameState state,
+                                  int extraFlags) {
+        PackedBoard board = state.getBoard();
+        out.put((byte) actionCode(action));
+        out.put((byte) algoCode(algo));
+        Move last = state.getLastMove();
+        int flags = (visualize ? FLAG_VISUALIZE : 0) | (state.getMeta().isWraps() ? FLAG_WRAPS : 0)
+                | (last != null ? FLAG_LAST_MOVE : 0) | extraFlags;
+        out.put((byte) flags);
+        out.putShort((short) board.getCols());
+        out.putShort((short) board.getRows());
+        out.putShort((short) (last != null ? last.getRow() : -1));
+        out.putShort((short) (last != null ? last.getCol() : -1));
+    }
+
+    /** A JSON request carried inside a binary frame, for actions without a binary form. */
+    public static byte[] wrapJson(String json) {
+        byte[] text = json.getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[text.length + 1];
+        out[0] = ACTION_JSON;
+        System.arraycopy(text, 0, out, 1, text.length);
+        return out;
+    }
+
+    /** The JSON text of a response to a wrapped request, or null if the response is binary. */
+    public static String unwrapJson(byte[] payload) {
+        if (payload.length >= 2 && payload[0] == 0 && payload[1] == SECTION_JSON) {
+            return new String(payload, 2, payload.length - 2, StandardCharsets.UTF_8);
+        }
+        return null;
+    }
+
+    // rows and cols are the dimensions of the board that was sent (needed for solve_game)
+    // Time Complexity: O(N + S)
+    // Space Complexity: O(N + S)
+    public static EngineResponse decodeResponse(byte[] payload, int rows, int cols) {
+        if (payload[0] != 0) {
+            throw new RuntimeException(new String(payload, 1, payload.length - 1, StandardCharsets.UTF_8));
+        }
+        try {
+            return decodeSections(new DataInputStream(new ByteArrayInputStream(payload, 1, payload.length - 1)),
+                    rows, cols, null);
+        } catch (IOException e) {
+            throw new RuntimeException("Truncated engine response", e);
+        }
+    }
+
+    // Reads a response after its status byte straight from the stream. With onStep set,
+    // step records are handed over as they are read (in chunks of STEP_CHUNK; a StepSink
+    // takes the records as they are) and the response carries no step list; otherwise
+    // they are collected into a StepTrace returned by getSteps().
+    // Time Complexity: O(N + S)
+    // Space Complexity: O(N) plus O(S) without onStep
+    public static EngineResponse decodeSections(DataInput in, int rows, int cols, Consumer<VisualStep> onStep)
+            throws IOException {
+        int sections = in.readUnsignedByte();
+        EngineResponse response = new EngineResponse();
+        if ((sections & SECTION_MOVE) != 0) {
+            int row = in.readShort();
+            int col = in.readShort();
+            response.setMove(new Move("CPU", row, col, in.readShort()));
+        }
+        if ((sections & SECTION_STATS) != 0) {
+            Stats stats = new Stats();
+            stats.setComponents(in.readInt());
+            stats.setLooseEnds(in.readInt());
+            stats.setSolved(in.readByte() != 0);
+            response.setStats(stats);
+        }
+        if ((sections & SECTION_STEPS) != 0) {
+            int count = in.readInt();
+            StepTrace steps = onStep == null ? new StepTrace() : null;
+            StepSink sink = steps != null ? steps : onStep instanceof StepSink ? (StepSink) onStep : null;
+            byte[] chunk = new byte[Math.min(count, STEP_CHUNK) * STEP_RECORD_BYTES];
+            ByteBuffer records = ByteBuffer.wrap(chunk);
+            for (int done = 0; done < count; ) {
+                int n = Math.min(count - done, STEP_CHUNK);
+                in.readFully(chunk, 0, n * STEP_RECORD_BYTES);
+                if (sink != null) {
+                    sink.acceptRecords(chunk, 0, n);
+                } else {
+                    for (int i = 0; i < n; i++) onStep.accept(StepTrace.readRecord(records, i * STEP_RECORD_BYTES));
+                }
+                done += n;
+            }
+            response.setSteps(steps);
+        }
+        if ((sections & SECTION_SOLUTION) != 0) {
+            boolean solved = in.readByte() != 0;
+            byte[] name = new byte[in.readUnsignedShort()];
+            in.readFully(name);
+            int[][] rotations = null;
+            if (solved) {
+                rotations = new int[rows][cols];
+                byte[] turns = new byte[cols];
+                for (int r = 0; r < rows; r++) {
+                    in.readFully(turns);
+                    for (int c = 0; c < cols; c++) rotations[r][c] = turns[c] * 90;
+                }
+            }
+            response.setSolution(solved, new String(name, StandardCharsets.UTF_8), rotations);
+        }
+        return response;
+    }
+
+    private static int actionCode(String action) {
+        for (int i = 1; i < ACTIONS.length; i++) {
+            if (ACTIONS[i].equals(action)) return i;
+        }
+        return ACTION_JSON;
+    }
+
+    // solve_game reuses the code: backtracking = "bt", divideandconquer = "dac", anything else "dp"
+    private static int algoCode(String algo) {
+        if (algo == null) return 0;
+        switch (algo) {
+            case "bt": return 1;
+            case "dac": return 3;
+            default:
+                for (int i = 0; i < ALGOS.length; i++) {
+                    if (ALGOS[i].equals(algo)) return i;
+                }
+                return 0;
+        }
+    }
+}
@@ -0,0 +1,831 @@
+package com.nets.engine;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.nets.metrics.Counter;
+import com.nets.metrics.EngineRequestEvent;
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
+import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
+import com.nets.model.VisualStep;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Client for the C++ engine (nets_engine).
+ *
+ * By default the engine is started once in session mode ("--session") and
+ * kept alive for the whole game: every request is written as one JSON line
+ * and answered with one JSON line. If the process dies it is restarted on the
+ * next call. Engine binaries that predate session mode are detected during
+ * the handshake, in which case every call falls back to spawning a fresh
+ * process (the original one-shot protocol).
+ *
+ * When the engine offers it in the handshake, the session switches to the
+ * binary protocol (length-prefixed frames with packed tiles and fixed-width
+ * step records, see BinaryProtocol). JSON stays the fallback for older engines,
+ * for one-shot mode and when -Dnets.engine.protocol=json is set.
+ *
+ * Typed requests are decoded straight from the process output in either
+ * protocol, so visualization steps can be handed to a consumer while the rest
+ * of the trace is still arriving. In one-shot mode stderr is drained on its
+ * own thread so a chatty engine cannot block on a full pipe.
+ *
+ * Sessions that offer "board_deltas" keep the boards they were sent, keyed by
+ * PackedBoard id and version. After the first request for a board only the
+ * tiles rotated since the version the engine holds are sent; if the engine
+ * reports that its copy is stale (or the journal no longer reaches back) the
+ * whole board is sent again. -Dnets.engine.deltas=false turns this off.
+ *
+ * A session request can be abandoned from another thread with cancel(), which
+ * kills the process instead of waiting for a long solve to finish.
+ *
+ * Every typed request is recorded in Metrics (engine.*): its time split into
+ * session start, Java encode, engine compute (everything else, pipes included)
+ * and Java decode, its sizes, and a count per action and algorithm, together
+ * with failures, cancellations, session deaths and engine exit codes. Each
+ * request is also a com.nets.EngineRequest JFR event.
+ */
+public class CppEngine implements AutoCloseable {
+    /** System property that overrides the engine executable location. */
+    public static final String ENGINE_PATH_PROPERTY = "nets.engine";
+    /** System property selecting the session protocol: "binary" (default when offered) or "json". */
+    public static final String PROTOCOL_PROPERTY = "nets.engine.protocol";
+    /** System property: "false" always sends whole boards, even when the engine could keep them. */
+    public static final String DELTAS_PROPERTY = "nets.engine.deltas";
+
+    // Shared by every engine in the process
+    private static final Histogram SPAWN_NANOS = Metrics.histogram("engine.spawn.nanos");
+    private static final Histogram ENCODE_NANOS = Metrics.histogram("engine.encode.nanos");
+    private static final Histogram COMPUTE_NANOS = Metrics.histogram("engine.compute.nanos");
+    private static final Histogram DECODE_NANOS = Metrics.histogram("engine.decode.nanos");
+    private static final Histogram REQUEST_BYTES = Metrics.histogram("engine.request.bytes");
+    private static final Histogram RESPONSE_BYTES = Metrics.histogram("engine.response.bytes");
+    private static final Counter FAILURES = Metrics.counter("engine.failures");
+    private static final Counter CANCELLED = Metrics.counter("engine.cancelled");
+    private static final Counter DEATHS = Metrics.counter("engine.sessionDeaths");
+    private static final Counter STALE_BOARDS = Metrics.counter("engine.staleBoards");
+    private static final Counter STDERR_LINES = Metrics.counter("engine.stderrLines");
+
+    // Boards one session keeps, as in cpp/SessionBoards.hpp
+    private static final int ENGINE_BOARD_SLOTS = 4;
+
+    private final Gson gson = new Gson();
+    private final boolean sessionRequested;
+    private final boolean binaryRequested;
+
+    private volatile Process process;
+    private OutputStream stdin;
+    private EngineInput stdout;
+    private boolean sessionSupported = true;
+    private boolean binary = false;
+    private boolean deltasSupported = false;
+    private boolean boardDeltas = !"false".equalsIgnoreCase(System.getProperty(DELTAS_PROPERTY));
+    private int restarts = 0;
+    private int spawns = 0;
+    private long spawnNanos = 0; // process start plus handshake, over all session starts
+
+    // The thread inside request(), and whether cancel() killed the process under it
+    private volatile Thread activeCaller;
+    private volatile boolean cancelled;
+
+    // Board id -> version the session engine holds, least recently used first
+    private final LinkedHashMap<Integer, Integer> engineBoards = new LinkedHashMap<>(8, 0.75f, true);
+
+    // Size and codec cost of the last call, for measurements
+    private int lastRequestBytes;
+    private int lastResponseBytes;
+    private long lastEncodeNanos;
+    private long lastDecodeNanos;
+
+    public CppEngine() {
+        this(true);
+    }
+
+    public CppEngine(boolean useSession) {
+        this(useSession, !"json".equalsIgnoreCase(System.getProperty(PROTOCOL_PROPERTY, "binary")));
+    }
+
+    public CppEngine(boolean useSession, boolean preferBinary) {
+        this.sessionRequested = useSession;
+        this.binaryRequested = preferBinary;
+    }
+
+    // Typed request for get_cpu_move, get_stats, get_visualization_steps and solve_game
+    // (algo names the solver for solve_game: "bt", "dac" or "dp", or an algorithm name).
+    // Time Complexity: O(N) encoding plus the engine's work
+    // Space Complexity: O(N + S) for the board and any steps
+    public EngineResponse request(String action, String algo, boolean visualize, GameState state)
+            throws IOException, InterruptedException {
+        return request(action, algo, visualize, state, null);
+    }
+
+    // Same, but steps are passed to onStep as they are decoded instead of being collected;
+    // the returned response then has no step list. onStep runs on the calling thread.
+    // Time Complexity: O(N) encoding plus the engine's work
+    // Space Complexity: O(N) besides what onStep keeps
+    public synchronized EngineResponse request(String action, String algo, boolean visualize, GameState state,
+                                               Consumer<VisualStep> onStep) throws IOException, InterruptedException {
+        activeCaller = Thread.currentThread();
+        cancelled = false;
+        long start = System.nanoTime();
+        long spawnedBefore = spawnNanos;
+        lastEncodeNanos = 0;
+        lastDecodeNanos = 0;
+        lastRequestBytes = 0;
+        lastResponseBytes = 0;
+        EngineRequestEvent event = new EngineRequestEvent();
+        int[] streamed = new int[1];
+        Consumer<VisualStep> counted = onStep == null || !event.isEnabled() ? onStep : step -> {
+            streamed[0]++;
+            onStep.accept(step);
+        };
+        event.begin();
+        try {
+            EngineResponse response = requestOnce(action, algo, visualize, state, counted);
+            record(action, algo, System.nanoTime() - start, spawnNanos - spawnedBefore);
+            commit(event, action, algo, state, response != null && response.getSteps() != null
+                    ? response.getSteps().size() : streamed[0], spawnNanos != spawnedBefore, "ok");
+            return response;
+        } catch (IOException | RuntimeException e) {
+            if (!cancelled) {
+                FAILURES.increment();
+                commit(event, action, algo, state, streamed[0], spawnNanos != spawnedBefore, "failed");
+                throw e;
+            }
+            CANCELLED.increment();
+            commit(event, action, algo, state, streamed[0], spawnNanos != spawnedBefore, "cancelled");
+            // Whatever the killed process left behind is not a response
+            destroyProcess();
+            engineBoards.clear();
+            CancellationException cancel = new CancellationException("Engine request cancelled");
+            cancel.initCause(e);
+            throw cancel;
+        } finally {
+            activeCaller = null;
+        }
+    }
+
+    // Splits one request's time into encode, decode and what is left after those and any
+    // session start (the engine's compute plus the pipes)
+    private void record(String action, String algo, long totalNanos, long spawn) {
+        Metrics.counter("engine.requests." + action + "." + algo).increment();
+        ENCODE_NANOS.record(lastEncodeNanos);
+        DECODE_NANOS.record(lastDecodeNanos);
+        COMPUTE_NANOS.record(Math.max(0, totalNanos - spawn - lastEncodeNanos - lastDecodeNanos));
+        REQUEST_BYTES.record(lastRequestBytes);
+        RESPONSE_BYTES.record(lastResponseBytes);
+    }
+
+    private void commit(EngineRequestEvent event, String action, String algo, GameState state, int steps,
+                        boolean sessionStarted, String outcome) {
+        event.end();
+        if (!event.shouldCommit()) return;
+        event.action = action;
+        event.algorithm = algo;
+        event.rows = state.getBoard().getRows();
+        event.cols = state.getBoard().getCols();
+        event.protocol = process != null ? getProtocol() : "oneshot";
+        event.requestBytes = lastRequestBytes;
+        event.responseBytes = lastResponseBytes;
+        event.steps = steps;
+        event.sessionStarted = sessionStarted;
+        event.outcome = outcome;
+        event.commit();
+    }
+
+    // Aborts the request that caller is waiting on, if it is the one the engine is working on,
+    // by killing the session process; that request then throws CancellationException and the
+    // next one starts a fresh process. Returns false when caller has no request in flight.
+    // May be called from any thread (it does not wait for the engine lock).
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public boolean cancel(Thread caller) {
+        Process running = process;
+        if (caller == null || activeCaller != caller || running == null) return false;
+        cancelled = true;
+        running.destroy();
+        return true;
+    }
+
+    private EngineResponse requestOnce(String action, String algo, boolean visualize, GameState state,
+                                       Consumer<VisualStep> onStep) throws IOException, InterruptedException {
+        if (sessionRequested && sessionSupported) {
+            for (int attempt = 0; ; attempt++) {
+                try {
+                    ensureStarted();
+                    if (!sessionSupported) break;
+                    try {
+                        return sessionRequest(action, algo, visualize, state, onStep);
+                    } catch (StaleBoardException e) {
+                        // The engine's copy drifted; this time the whole board goes
+                        STALE_BOARDS.increment();
+                        engineBoards.remove(state.getBoard().getId());
+                        return sessionRequest(action, algo, visualize, state, onStep);
+                    }
+                } catch (EngineDiedException e) {
+                    if (cancelled) throw e; // killed on purpose, not replayed
+                    onDied(e, attempt);
+                }
+            }
+        }
+        JsonObject request = jsonRequest(action, algo, visualize, state, false, null);
+        return runOnce(request, reader -> EngineResponse.read(reader, gson, onStep));
+    }
+
+    private EngineResponse sessionRequest(String action, String algo, boolean visualize, GameState state,
+                                          Consumer<VisualStep> onStep) throws IOException {
+        PackedBoard board = state.getBoard();
+        int version = board.getVersion();
+        boolean keep = deltasSupported && boardDeltas;
+        int[] changed = keep ? deltasFor(board) : null;
+        EngineResponse response;
+        if (binary && BinaryProtocol.supports(action)) {
+            response = requestBinary(action, algo, visualize, state, keep, changed, onStep);
+        } else if (binary) {
+            response = EngineResponse.fromJson(callWrapped(jsonRequest(action, algo, visualize, state, false, null)), gson);
+            keep = false;
+            if (onStep != null && response.getSteps() != null) {
+                response.getSteps().forEach(onStep);
+                response.setSteps(null);
+            }
+        } else {
+            response = requestJson(jsonRequest(action, algo, visualize, state, keep, changed), onStep);
+        }
+        if (keep) {
+            engineBoards.put(board.getId(), version);
+            if (engineBoards.size() > ENGINE_BOARD_SLOTS) {
+                engineBoards.remove(engineBoards.keySet().iterator().next());
+            }
+        }
+        return response;
+    }
+
+    // Cells rotated since the version the engine holds, or null to send the whole board
+    // Time Complexity: O(D^2) with D <= the board's journal length
+    // Space Complexity: O(D)
+    private int[] deltasFor(PackedBoard board) {
+        Integer known = engineBoards.get(board.getId());
+        if (known == null) return null;
+        int[] changed = board.changesSince(known);
+        if (changed == null || 5 * changed.length > board.size()) return null;
+        return changed;
+    }
+
+    // The JSON "solver" for solve_game; the binary header maps algorithm names the same way
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private static String solverName(String algo) {
+        if ("backtracking".equals(algo)) return "bt";
+        if ("divideandconquer".equals(algo)) return "dac";
+        return algo;
+    }
+
+    // keep: ask the engine to store the board (changed == null) or to apply changed to its copy
+    private JsonObject jsonRequest(String action, String algo, boolean visualize, GameState state,
+                                   boolean keep, int[] changed) {
+        JsonObject request = new JsonObject();
+        request.addProperty("action", action);
+        request.addProperty("algo", algo);
+        request.addProperty("visualize", visualize);
+        if ("solve_game".equals(action)) request.addProperty("solver", solverName(algo));
+        if (!keep) {
+            request.add("gameState", gson.toJsonTree(state));
+            return request;
+        }
+
+        PackedBoard board = state.getBoard();
+        JsonObject ref = new JsonObject();
+        ref.addProperty("id", board.getId());
+        ref.addProperty("version", board.getVersion());
+        if (changed == null) {
+            request.add("gameState", gson.toJsonTree(state));
+        } else {
+            ref.addProperty("base", engineBoards.get(board.getId()));
+            JsonArray deltas = new JsonArray();
+            for (int cell : changed) {
+                JsonObject d = new JsonObject();
+                d.addProperty("row", cell / board.getCols());
+                d.addProperty("col", cell % board.getCols());
+                d.addProperty("rotation", board.getRotation(cell));
+                deltas.add(d);
+            }
+            ref.add("deltas", deltas);
+            if (state.getLastMove() != null) {
+                JsonObject last = new JsonObject();
+                last.addProperty("row", state.getLastMove().getRow());
+                last.addProperty("col", state.getLastMove().getCol());
+                ref.add("lastMove", last);
+            }
+        }
+        request.add("board", ref);
+        return request;
+    }
+
+    /** Whether requests may send only the tiles that changed (when the engine supports it). */
+    public synchronized void setBoardDeltas(boolean enabled) {
+        boardDeltas = enabled;
+        if (!enabled) engineBoards.clear();
+    }
+
+    // Time Complexity: O(1) besides the request itself
+    // Space Complexity: O(size of request/response)
+    public synchronized JsonObject call(JsonObject request) throws IOException, InterruptedException {
+        if (!sessionRequested || !sessionSupported) {
+            return callOnce(request);
+        }
+
+        // One retry: a request that fails because the engine died is replayed on a fresh process
+        for (int attempt = 0; ; attempt++) {
+            try {
+                ensureStarted();
+                if (!sessionSupported) {
+                    return callOnce(request);
+                }
+                return binary ? callWrapped(request) : callSession(request);
+            } catch (EngineDiedException e) {
+                onDied(e, attempt);
+            }
+        }
+    }
+
+    private void onDied(EngineDiedException e, int attempt) throws IOException {
+        DEATHS.increment();
+        if (process != null && !process.isAlive()) recordExit(process.exitValue());
+        destroyProcess();
+        if (attempt > 0) {
+            throw new IOException("C++ engine session died twice: " + e.getMessage(), e);
+        }
+        restarts++;
+        System.err.println("CPP engine session died (" + e.getMessage() + "), restarting");
+    }
+
+    /** "binary" or "json": the protocol the current session speaks. */
+    public synchronized String getProtocol() {
+        return binary ? "binary" : "json";
+    }
+
+    /** Number of times a dead session was restarted. */
+    public synchronized int getRestartCount() {
+        return restarts;
+    }
+
+    /** Number of session processes started (the first one included). */
+    public synchronized int getSpawnCount() {
+        return spawns;
+    }
+
+    /** Time spent starting session processes and shaking hands with them, in total. */
+    public synchronized long getSpawnNanos() {
+        return spawnNanos;
+    }
+
+    /** True while a long-lived engine process is being used. */
+    public synchronized boolean isSessionActive() {
+        return sessionSupported && process != null && process.isAlive();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (process == null) return;
+        try {
+            stdin.close(); // EOF ends the engine's request loop
+            process.waitFor(500, TimeUnit.MILLISECONDS);
+        } catch (IOException ignored) {
+            // Already gone
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        destroyProcess();
+    }
+
+    private JsonObject callSession(JsonObject request) throws IOException {
+        byte[] line;
+        try {
+            writeLine(request);
+            line = readLine();
+        } catch (IOException e) {
+            throw new EngineDiedException(e.getMessage());
+        }
+        if (line == null) {
+            throw new EngineDiedException("end of stream");
+        }
+        lastResponseBytes = line.length;
+        long t0 = System.nanoTime();
+        JsonObject response = parseResponse(new String(line, StandardCharsets.UTF_8));
+        lastDecodeNanos = System.nanoTime() - t0;
+        return response;
+    }
+
+    // Parses the response line while it is being read; the line is never held as a whole
+    private EngineResponse requestJson(JsonObject request, Consumer<VisualStep> onStep) throws IOException {
+        try {
+            writeLine(request);
+            stdout.mark(1);
+            if (stdout.read() == -1) throw new EngineDiedException("end of stream");
+            stdout.reset();
+        } catch (EngineDiedException e) {
+            throw e;
+        } catch (IOException e) {
+            throw new EngineDiedException(e.getMessage());
+        }
+
+        long t0 = System.nanoTime();
+        LineInputStream line = new LineInputStream(stdout);
+        boolean complete = false;
+        try {
+            EngineResponse response = EngineResponse.read(
+                    new JsonReader(new InputStreamReader(line, StandardCharsets.UTF_8)), gson, onStep);
+            line.skipRest();
+            complete = true;
+            lastDecodeNanos = System.nanoTime() - t0;
+            lastResponseBytes = line.count;
+            if (response.isStaleBoard()) throw new StaleBoardException(response.getError());
+            if (response.getError() != null) throw new RuntimeException(response.getError());
+            return response;
+        } finally {
+            if (!complete) destroyProcess(); // the rest of the line would be read as the next response
+        }
+    }
+
+    private void writeLine(JsonObject request) throws IOException {
+        long t0 = System.nanoTime();
+        byte[] bytes = gson.toJson(request).getBytes(StandardCharsets.UTF_8);
+        lastEncodeNanos = System.nanoTime() - t0;
+        lastRequestBytes = bytes.length;
+        stdin.write(bytes);
+        stdin.write('\n');
+        stdin.flush();
+    }
+
+    // A JSON request sent through a binary session
+    private JsonObject callWrapped(JsonObject request) throws IOException {
+        long t0 = System.nanoTime();
+        byte[] payload = BinaryProtocol.wrapJson(gson.toJson(request));
+        lastEncodeNanos = System.nanoTime() - t0;
+        byte[] reply = exchangeFrame(payload);
+        t0 = System.nanoTime();
+        String json = BinaryProtocol.unwrapJson(reply);
+        if (json == null) {
+            BinaryProtocol.decodeResponse(reply, 0, 0); // throws the engine's error
+            throw new RuntimeException("C++ engine answered a JSON request in binary");
+        }
+        JsonObject response = parseResponse(json);
+        lastDecodeNanos = System.nanoTime() - t0;
+        return response;
+    }
+
+    // Decodes the reply frame straight from stdout instead of reading it into an array first
+    private EngineResponse requestBinary(String action, String algo, boolean visualize, GameState state,
+                                         boolean keep, int[] changed, Consumer<VisualStep> onStep) throws IOException {
+        long t0 = System.nanoTime();
+        byte[] payload = !keep ? BinaryProtocol.encodeRequest(action, algo, visualize, state)
+                : changed == null ? BinaryProtocol.encodeStoreRequest(action, algo, visualize, state)
+                : BinaryProtocol.encodeDeltaRequest(action, algo, visualize, state,
+                        engineBoards.get(state.getBoard().getId()), changed);
+        lastEncodeNanos = System.nanoTime() - t0;
+        DataInputStream in = new DataInputStream(stdout);
+        int length;
+        int status;
+        try {
+            writeFrame(payload);
+            length = in.readInt();
+            status = in.readUnsignedByte();
+        } catch (IOException e) {
+            throw new EngineDiedException(e.getMessage() != null ? e.getMessage() : "end of stream");
+        }
+        lastResponseBytes = length;
+
+        t0 = System.nanoTime();
+        if (status != 0) {
+            byte[] message = new byte[length - 1];
+            in.readFully(message);
+            String text = new String(message, StandardCharsets.UTF_8);
+            if (status == BinaryProtocol.STATUS_STALE_BOARD) throw new StaleBoardException(text);
+            throw new RuntimeException(text);
+        }
+        boolean complete = false;
+        try {
+            EngineResponse response = BinaryProtocol.decodeSections(in,
+                    state.getBoard().getRows(), state.getBoard().getCols(), onStep);
+            complete = true;
+            lastDecodeNanos = System.nanoTime() - t0;
+            return response;
+        } finally {
+            if (!complete) destroyProcess(); // the session is out of step with the frame
+        }
+    }
+
+    // Writes one length-prefixed frame and reads the reply frame
+    private byte[] exchangeFrame(byte[] payload) throws IOException {
+        try {
+            writeFrame(payload);
+            DataInputStream in = new DataInputStream(stdout);
+            byte[] reply = new byte[in.readInt()];
+            in.readFully(reply);
+            lastResponseBytes = reply.length;
+            return reply;
+        } catch (IOException e) {
+            throw new EngineDiedException(e.getMessage() != null ? e.getMessage() : "end of stream");
+        }
+    }
+
+    private void writeFrame(byte[] payload) throws IOException {
+        lastRequestBytes = payload.length;
+        DataOutputStream out = new DataOutputStream(stdin);
+        out.writeInt(payload.length);
+        out.write(payload);
+        out.flush();
+    }
+
+    private JsonObject parseResponse(String text) {
+        JsonObject response = gson.fromJson(text, JsonObject.class);
+        if (response == null) {
+            throw new RuntimeException("C++ engine returned empty response");
+        }
+        if (response.has("error")) {
+            throw new RuntimeException(response.get("error").getAsString());
+        }
+        return response;
+    }
+
+    // Reads one newline-terminated line of bytes; null at end of stream
+    private byte[] readLine() throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(256);
+        int b;
+        while ((b = stdout.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) return null;
+        return line.toByteArray();
+    }
+
+    private void ensureStarted() throws IOException {
+        if (process != null && process.isAlive()) return;
+        destroyProcess();
+
+        long start = System.nanoTime();
+        try {
+            startSession();
+        } finally {
+            spawns++;
+            spawnNanos += System.nanoTime() - start;
+            SPAWN_NANOS.record(System.nanoTime() - start);
+        }
+    }
+
+    private void startSession() throws IOException {
+        ProcessBuilder pb = new ProcessBuilder(locateExecutable().getCanonicalPath(), "--session");
+        process = pb.start();
+        binary = false;
+        deltasSupported = false;
+        engineBoards.clear();
+        stdin = new BufferedOutputStream(process.getOutputStream());
+        stdout = new EngineInput(process.getInputStream());
+        drainStderr(process, null);
+
+        // Handshake; an engine without session support exits on the unknown argument
+        JsonObject hello = new JsonObject();
+        hello.addProperty("action", "hello");
+        JsonObject response;
+        try {
+            response = callSession(hello);
+        } catch (EngineDiedException | RuntimeException e) {
+            response = null;
+        }
+        if (response == null || !response.has("session")) {
+            System.err.println("CPP engine does not support session mode, spawning one process per call");
+            sessionSupported = false;
+            destroyProcess();
+            return;
+        }
+
+        deltasSupported = response.has("features")
+                && response.get("features").toString().contains("\"board_deltas\"");
+        if (binaryRequested && response.has("protocols")
+                && response.get("protocols").toString().contains("\"binary\"")) {
+            JsonObject switchProtocol = new JsonObject();
+            switchProtocol.addProperty("action", "set_protocol");
+            switchProtocol.addProperty("protocol", "binary");
+            JsonObject ack = callSession(switchProtocol);
+            binary = ack.has("protocol") && "binary".equals(ack.get("protocol").getAsString());
+        }
+    }
+
+    private static void recordExit(int exitCode) {
+        Metrics.counter("engine.exit." + exitCode).increment();
+    }
+
+    private void destroyProcess() {
+        if (process != null) {
+            process.destroy();
+            process = null;
+        }
+        stdin = null;
+        stdout = null;
+    }
+
+    // Echoes the engine's stderr on a daemon thread; lines are also appended to collect if given
+    private static Thread drainStderr(Process p, StringBuffer collect) {
+        Thread t = new Thread(() -> {
+            try (BufferedReader errReader = new BufferedReader(new InputStreamReader(p.getErrorStream(), StandardCharsets.UTF_8))) {
+                String line;
+                while ((line = errReader.readLine()) != null) {
+                    STDERR_LINES.increment();
+                    if (collect != null) collect.append(line).append("\n");
+                    System.err.println("CPP Error: " + line);
+                }
+            } catch (IOException ignored) {
+                // Stream closed together with the process
+            }
+        }, "nets-engine-stderr");
+        t.setDaemon(true);
+        t.start();
+        return t;
+    }
+
+    // Time Complexity: O(size of request/response) plus one process spawn
+    // Space Complexity: O(size of request/response)
+    public JsonObject callOnce(JsonObject request) throws IOException, InterruptedException {
+        return runOnce(request, reader -> gson.fromJson(reader, JsonObject.class));
+    }
+
+    private interface ResponseParser<T> {
+        T parse(JsonReader reader) throws IOException;
+    }
+
+    // Spawns a one-shot engine for a single request. stderr is drained concurrently and
+    // stdout is parsed as it arrives, so neither pipe can fill up while the other is read.
+    // Time Complexity: O(size of request/response) plus one process spawn
+    // Space Complexity: O(size of request) plus what the parser keeps
+    private <T> T runOnce(JsonObject request, ResponseParser<T> parser) throws IOException, InterruptedException {
+        ProcessBuilder pb = new ProcessBuilder(locateExecutable().getCanonicalPath());
+        Process oneShot = pb.start();
+        StringBuffer errorOutput = new StringBuffer();
+        Thread errThread = drainStderr(oneShot, errorOutput);
+
+        // Write request to stdin using UTF-8
+        long t0 = System.nanoTime();
+        try (OutputStreamWriter writer = new OutputStreamWriter(oneShot.getOutputStream(), StandardCharsets.UTF_8)) {
+            gson.toJson(request, writer);
+            writer.flush();
+        }
+        lastEncodeNanos = System.nanoTime() - t0;
+
+        // Parse the response from stdout using UTF-8
+        T result = null;
+        RuntimeException parseError = null;
+        try (JsonReader reader = new JsonReader(new InputStreamReader(new BufferedInputStream(oneShot.getInputStream()), StandardCharsets.UTF_8))) {
+            if (reader.peek() != JsonToken.END_DOCUMENT) {
+                t0 = System.nanoTime();
+                result = parser.parse(reader);
+                lastDecodeNanos = System.nanoTime() - t0;
+            }
+        } catch (EOFException e) {
+            // Nothing on stdout
+        } catch (RuntimeException | IOException e) {
+            parseError = e instanceof RuntimeException ? (RuntimeException) e : new RuntimeException(e);
+        }
+
+        int exitCode = oneShot.waitFor();
+        errThread.join(1000);
+        recordExit(exitCode);
+        if (exitCode != 0) {
+             String errMsg = errorOutput.toString().trim();
+             if (errMsg.isEmpty()) errMsg = "C++ engine exited with code " + exitCode;
+             throw new RuntimeException(errMsg);
+        }
+        if (parseError != null) {
+            throw parseError;
+        }
+        if (result == null) {
+            throw new RuntimeException("C++ engine returned empty response");
+        }
+        if (result instanceof EngineResponse && ((EngineResponse) result).getError() != null) {
+            throw new RuntimeException(((EngineResponse) result).getError());
+        }
+        return result;
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public static File locateExecutable() throws FileNotFoundException {
+        String override = System.getProperty(ENGINE_PATH_PROPERTY);
+        if (override != null && !override.isEmpty()) {
+            File exe = new File(override);
+            if (!exe.exists()) {
+                throw new FileNotFoundException("Could not find engine at " + exe.getAbsolutePath() + " (from -D" + ENGINE_PATH_PROPERTY + ")");
+            }
+            return exe;
+        }
+
+        String os = System.getProperty("os.name").toLowerCase();
+        String engineName = os.contains("win") ? "nets_engine.exe" : "nets_engine";
+
+        File engineExe = new File("..", engineName);
+        if (!engineExe.exists()) {
+            engineExe = new File(engineName);
+        }
+
+        if (!engineExe.exists()) {
+             throw new FileNotFoundException("Could not find " + engineName + " at " + new File("..", engineName).getAbsolutePath() + " or " + new File(engineName).getAbsolutePath());
+        }
+        return engineExe;
+    }
+
+    /** stdout of a session; also reads up to a newline straight out of its buffer. */
+    private static final class EngineInput extends BufferedInputStream {
+        private boolean lineEnded;
+
+        EngineInput(InputStream in) {
+            super(in, 1 << 16);
+        }
+
+        // Copies bytes up to the next '\n'; the newline is consumed and reported by lineEnded
+        // Time Complexity: O(len)
+        // Space Complexity: O(1)
+        synchronized int readLinePart(byte[] b, int off, int len) throws IOException {
+            lineEnded = false;
+            if (pos >= count) {
+                if (read() == -1) return -1; // refills the buffer
+                pos--;
+            }
+            int end = Math.min(count, pos + len);
+            int i = pos;
+            while (i < end && buf[i] != '\n') i++;
+            int n = i - pos;
+            System.arraycopy(buf, pos, b, off, n);
+            pos = i;
+            if (i < end) {
+                pos++;
+                lineEnded = true;
+            }
+            return n;
+        }
+    }
+
+    /** One response line of a session as a stream that ends at the newline. */
+    private static final class LineInputStream extends InputStream {
+        private final EngineInput in;
+        private boolean done;
+        private int count;
+
+        LineInputStream(EngineInput in) {
+            this.in = in;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) == -1 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) return 0;
+            while (!done) {
+                int n = in.readLinePart(b, off, len);
+                if (n < 0 || in.lineEnded) done = true;
+                if (n > 0) {
+                    count += n;
+                    return n;
+                }
+            }
+            return -1;
+        }
+
+        void skipRest() throws IOException {
+            byte[] rest = new byte[64];
+            while (read(rest, 0, rest.length) != -1) {
+                // Trailing whitespace after the object
+            }
+        }
+    }
+
+    /** The engine no longer has the board version a delta request was based on. */
+    private static class StaleBoardException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StaleBoardException(String message) {
+            super(message);
+        }
+    }
+
+    /** The session process went away mid-request (EOF or broken pipe). */
+    private static class EngineDiedException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        EngineDiedException(String message) {
+            super(message);
+        }
+    }
+}
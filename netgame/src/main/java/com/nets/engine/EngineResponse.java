@@ -0,0 +1,182 @@
+package com.nets.engine;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.nets.model.Move;
+import com.nets.model.Stats;
+import com.nets.model.StepTrace;
+import com.nets.model.VisualStep;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Engine answer in typed form, whichever protocol carried it. Parts the action
+ * did not produce are null (e.g. getStats() for get_cpu_move).
+ */
+public final class EngineResponse {
+    private Move move;
+    private Stats stats;
+    private List<VisualStep> steps;
+    private Boolean solved;
+    private String implementation;
+    private int[][] solvedRotations;
+    private String error;
+    private boolean staleBoard;
+
+    EngineResponse() {}
+
+    /** Move chosen by get_cpu_move, with actor "CPU". */
+    public Move getMove() {
+        return move;
+    }
+
+    /** Result of get_stats. */
+    public Stats getStats() {
+        return stats;
+    }
+
+    /** Steps recorded by get_visualization_steps, or by get_cpu_move with visualize set. */
+    public List<VisualStep> getSteps() {
+        return steps;
+    }
+
+    /** For solve_game: whether the solver succeeded; null for other actions. */
+    public Boolean getSolved() {
+        return solved;
+    }
+
+    public String getImplementation() {
+        return implementation;
+    }
+
+    /** For a successful solve_game: target rotation in degrees per [row][col]. */
+    public int[][] getSolvedRotations() {
+        return solvedRotations;
+    }
+
+    /** The engine's {"error": ...} message, if the JSON response was one. */
+    String getError() {
+        return error;
+    }
+
+    /** The error was the engine not having the board version a delta request was based on. */
+    boolean isStaleBoard() {
+        return staleBoard;
+    }
+
+    void setMove(Move move) {
+        this.move = move;
+    }
+
+    void setStats(Stats stats) {
+        this.stats = stats;
+    }
+
+    void setSteps(List<VisualStep> steps) {
+        this.steps = steps;
+    }
+
+    void setSolution(boolean solved, String implementation, int[][] solvedRotations) {
+        this.solved = solved;
+        this.implementation = implementation;
+        this.solvedRotations = solvedRotations;
+    }
+
+    // A response callers can change without touching this one: the move and stats are
+    // copied, the step list and solution grid are shared (nothing modifies them)
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    EngineResponse copy(boolean withSteps) {
+        EngineResponse copy = new EngineResponse();
+        if (move != null) copy.move = new Move(move.getActor(), move.getRow(), move.getCol(), move.getRotation());
+        if (stats != null) {
+            copy.stats = new Stats();
+            copy.stats.setComponents(stats.getComponents());
+            copy.stats.setLooseEnds(stats.getLooseEnds());
+            copy.stats.setSolved(stats.isSolved());
+        }
+        copy.steps = withSteps ? steps : null;
+        copy.solved = solved;
+        copy.implementation = implementation;
+        copy.solvedRotations = solvedRotations;
+        return copy;
+    }
+
+    // Time Complexity: O(N + S) for the solution grid and S steps
+    // Space Complexity: O(N + S)
+    static EngineResponse fromJson(JsonObject json, Gson gson) {
+        EngineResponse response = new EngineResponse();
+        if (json.has("move")) {
+            JsonObject m = json.getAsJsonObject("move");
+            response.move = new Move("CPU", m.get("row").getAsInt(), m.get("col").getAsInt(), m.get("rotation").getAsInt());
+        }
+        if (json.has("stats")) {
+            JsonObject s = json.getAsJsonObject("stats");
+            Stats stats = new Stats();
+            stats.setComponents(s.get("components").getAsInt());
+            stats.setLooseEnds(s.get("looseEnds").getAsInt());
+            stats.setSolved(s.get("solved").getAsBoolean());
+            response.stats = stats;
+        }
+        if (json.has("steps")) {
+            StepTrace steps = new StepTrace();
+            for (JsonElement step : json.getAsJsonArray("steps")) steps.accept(gson.fromJson(step, VisualStep.class));
+            response.steps = steps;
+        }
+        if (json.has("solved") && json.has("implementation")) {
+            int[][] rotations = null;
+            if (json.has("grid")) {
+                JsonArray grid = json.getAsJsonArray("grid");
+                rotations = new int[grid.size()][];
+                for (int r = 0; r < grid.size(); r++) {
+                    JsonArray row = grid.get(r).getAsJsonArray();
+                    rotations[r] = new int[row.size()];
+                    for (int c = 0; c < row.size(); c++) {
+                        rotations[r][c] = row.get(c).getAsJsonObject().get("rotation").getAsInt();
+                    }
+                }
+            }
+            response.setSolution(json.get("solved").getAsBoolean(), json.get("implementation").getAsString(), rotations);
+        }
+        return response;
+    }
+
+    // Reads one JSON response object straight from the engine's output. Steps go to onStep
+    // as each one is parsed (or into a StepTrace for getSteps() without onStep); the other members are small
+    // and are collected into a tree for fromJson.
+    // Time Complexity: O(response size)
+    // Space Complexity: O(N) for the other members, plus O(S) without onStep
+    static EngineResponse read(JsonReader reader, Gson gson, Consumer<VisualStep> onStep) throws IOException {
+        JsonObject rest = new JsonObject();
+        StepTrace steps = null;
+        reader.beginObject();
+        while (reader.hasNext()) {
+            String name = reader.nextName();
+            if ("steps".equals(name) && reader.peek() == JsonToken.BEGIN_ARRAY) {
+                steps = onStep == null ? new StepTrace() : null;
+                reader.beginArray();
+                while (reader.hasNext()) {
+                    VisualStep step = gson.fromJson(reader, VisualStep.class);
+                    if (onStep != null) onStep.accept(step);
+                    else steps.accept(step);
+                }
+                reader.endArray();
+            } else {
+                rest.add(name, gson.fromJson(reader, JsonElement.class));
+            }
+        }
+        reader.endObject();
+
+        EngineResponse response = fromJson(rest, gson);
+        response.steps = steps;
+        if (rest.has("error")) response.error = rest.get("error").getAsString();
+        response.staleBoard = rest.has("staleBoard") && rest.get("staleBoard").getAsBoolean();
+        return response;
+    }
+}
@@ -0,0 +1,197 @@
+package com.nets.engine;
+
+import com.nets.metrics.Counter;
+import com.nets.metrics.Metrics;
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import com.nets.model.StepSink;
+import com.nets.model.StepTrace;
+import com.nets.model.VisualStep;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Transposition cache in front of CppEngine.request: a board the engine has
+ * already answered for is answered again from memory. Boards are recognised
+ * by PackedBoard's Zobrist hash, so a tile turned all the way round, or a CPU
+ * move that undoes the human's, finds the earlier answer.
+ *
+ * The key is the hash and the board size, plus everything else the engine
+ * reads: action, algorithm, visualize, wrapping, the loop rule and the last
+ * move's tile (greedy starts from it). Entries are dropped least recently used
+ * first once there are more than maxEntries of them or they hold more than
+ * maxSteps visualization steps in total (-Dnets.cache.entries and
+ * -Dnets.cache.maxSteps; 0 entries turns the cache off). Error answers are not
+ * kept.
+ *
+ * Callers get a copy of the cached answer, so changing its move or stats does
+ * not change the next hit. Steps are shared and must not be modified.
+ *
+ * Hits and misses of every cache are also counted in Metrics
+ * (engine.cache.hits, engine.cache.misses).
+ */
+public final class ResponseCache {
+
+    private static final class Key {
+        final long hash;
+        final int rows;
+        final int cols;
+        final String action;
+        final String algo;
+        final boolean visualize;
+        final boolean wraps;
+        final boolean allowLoops;
+        final int lastRow;
+        final int lastCol;
+
+        Key(String action, String algo, boolean visualize, GameState state) {
+            PackedBoard board = state.getBoard();
+            Move last = state.getLastMove();
+            this.hash = board.getHash();
+            this.rows = board.getRows();
+            this.cols = board.getCols();
+            this.action = action;
+            this.algo = algo;
+            this.visualize = visualize;
+            this.wraps = state.getMeta() != null && state.getMeta().isWraps();
+            this.allowLoops = state.getRules() != null && state.getRules().isAllowLoops();
+            this.lastRow = last != null ? last.getRow() : -1;
+            this.lastCol = last != null ? last.getCol() : -1;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && rows == k.rows && cols == k.cols && visualize == k.visualize
+                    && wraps == k.wraps && allowLoops == k.allowLoops && lastRow == k.lastRow
+                    && lastCol == k.lastCol && action.equals(k.action) && Objects.equals(algo, k.algo);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(hash) * 31 + Objects.hash(rows, cols, action, algo, visualize, lastRow, lastCol);
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxSteps;
+
+    // Access-ordered: iteration starts at the least recently used answer
+    private final LinkedHashMap<Key, EngineResponse> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long heldSteps;
+    private static final Counter HITS = Metrics.counter("engine.cache.hits");
+    private static final Counter MISSES = Metrics.counter("engine.cache.misses");
+
+    private int hits;
+    private int misses;
+
+    public ResponseCache() {
+        this(Integer.getInteger("nets.cache.entries", 256), Long.getLong("nets.cache.maxSteps", 200_000L));
+    }
+
+    public ResponseCache(int maxEntries, long maxSteps) {
+        this.maxEntries = maxEntries;
+        this.maxSteps = maxSteps;
+    }
+
+    // Same contract as CppEngine.request: with onStep set, steps go to it (from memory on a
+    // hit, as they are decoded on a miss) and the returned response has no step list
+    // Time Complexity: O(1) for the lookup, O(S) to replay S steps; a miss adds the engine call
+    // Space Complexity: O(S) to keep the steps of a miss
+    public EngineResponse request(CppEngine engine, String action, String algo, boolean visualize, GameState state,
+                                  Consumer<VisualStep> onStep) throws IOException, InterruptedException {
+        if (maxEntries <= 0) return engine.request(action, algo, visualize, state, onStep);
+
+        Key key = new Key(action, algo, visualize, state);
+        EngineResponse cached;
+        synchronized (this) {
+            cached = entries.get(key);
+            if (cached != null) hits++; else misses++;
+        }
+        (cached != null ? HITS : MISSES).increment();
+        if (cached != null) {
+            if (onStep != null && cached.getSteps() != null) {
+                for (VisualStep step : cached.getSteps()) onStep.accept(step);
+            }
+            return cached.copy(onStep == null);
+        }
+
+        // Streamed steps are kept on the side, up to what the cache may hold
+        StepTrace collected = onStep != null ? new StepTrace() : null;
+        Consumer<VisualStep> tee = onStep == null ? null : new StepSink() {
+            @Override
+            public void accept(VisualStep step) {
+                if (collected.size() <= maxSteps) collected.accept(step);
+                onStep.accept(step);
+            }
+
+            @Override
+            public void acceptRecords(byte[] records, int offset, int count) {
+                if (collected.size() <= maxSteps) collected.acceptRecords(records, offset, count);
+                if (onStep instanceof StepSink) {
+                    ((StepSink) onStep).acceptRecords(records, offset, count);
+                } else {
+                    ByteBuffer buffer = ByteBuffer.wrap(records);
+                    for (int i = 0; i < count; i++) {
+                        onStep.accept(StepTrace.readRecord(buffer, offset + i * StepTrace.RECORD_BYTES));
+                    }
+                }
+            }
+        };
+        EngineResponse response = engine.request(action, algo, visualize, state, tee);
+
+        EngineResponse stored = response.copy(true);
+        if (collected != null) stored.setSteps(collected);
+        put(key, stored);
+        return response;
+    }
+
+    public synchronized int getHits() {
+        return hits;
+    }
+
+    public synchronized int getMisses() {
+        return misses;
+    }
+
+    /** Share of requests answered from the cache, 0 before the first request. */
+    public synchronized double getHitRate() {
+        int total = hits + misses;
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        heldSteps = 0;
+    }
+
+    // Time Complexity: O(1) amortized
+    // Space Complexity: O(1)
+    private synchronized void put(Key key, EngineResponse response) {
+        long steps = stepsOf(response);
+        if (steps > maxSteps) return;
+        EngineResponse previous = entries.put(key, response);
+        heldSteps += steps - stepsOf(previous);
+        Iterator<Map.Entry<Key, EngineResponse>> it = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || heldSteps > maxSteps) && it.hasNext()) {
+            heldSteps -= stepsOf(it.next().getValue());
+            it.remove();
+        }
+    }
+
+    private static long stepsOf(EngineResponse response) {
+        return response == null || response.getSteps() == null ? 0 : response.getSteps().size();
+    }
+}
@@ -0,0 +1,151 @@
+package com.nets.engine;
+
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+
+import java.io.IOException;
+import java.util.BitSet;
+
+/**
+ * Answers get_cpu_move for the exact algorithms (backtracking, dp and
+ * divideandconquer) from one solve instead of one solve per turn.
+ *
+ * For those algorithms the engine solves the whole board and returns a quarter
+ * turn of the first tile, in row-major order, whose rotation differs from the
+ * solution (or greedy's move once none does, or when there is no solution).
+ * The solvers try rotations in a fixed order that ignores the current ones
+ * (getRotationOptions in cpp/SolverUtils.hpp), so their solution depends only
+ * on tile types, ports and locks. One solve_game therefore gives the target
+ * rotations for every later turn on the same board; the plan keeps them with
+ * the set of tiles still off target, updated from the board's journal.
+ *
+ * The plan is solved again only when it no longer describes the board: a new
+ * board, another algorithm, or an edit other than a rotation (or more
+ * rotations than the journal keeps). Human moves away from the target just add
+ * tiles to the remaining plan. -Dnets.plans=false turns plans off, which sends
+ * every turn to the engine as before.
+ */
+public final class SolvePlans {
+
+    /** How a plan reaches the engine (e.g. CppEngine.request, possibly through ResponseCache). */
+    @FunctionalInterface
+    public interface EngineCall {
+        EngineResponse request(String action, String algo, boolean visualize, GameState state)
+                throws IOException, InterruptedException;
+    }
+
+    private boolean enabled = !"false".equalsIgnoreCase(System.getProperty("nets.plans"));
+
+    // Current plan
+    private int boardId = -1;
+    private String algo;
+    private int version;        // board version the plan was last brought up to date with
+    private boolean solvable;
+    private int[] target;       // solved rotation per cell
+    private final BitSet pending = new BitSet(); // cells whose rotation differs from target
+
+    private int solves;
+    private int planned;
+
+    /** True for the algorithms whose CPU moves come from a full solve. */
+    public static boolean isExact(String algo) {
+        return "backtracking".equals(algo) || "dp".equals(algo) || "divideandconquer".equals(algo);
+    }
+
+    public synchronized void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        boardId = -1;
+    }
+
+    public synchronized boolean isEnabled() {
+        return enabled;
+    }
+
+    // The get_cpu_move answer for state, or null when plans do not cover algo (the caller
+    // asks the engine as usual). The answer has no visualization steps.
+    // Time Complexity: one solve when the plan is (re)built, otherwise O(R + N/64) for R
+    // rotations since the last turn; greedy's engine call once the plan is done
+    // Space Complexity: O(N) for the plan
+    public synchronized EngineResponse nextMove(EngineCall engine, String algo, GameState state)
+            throws IOException, InterruptedException {
+        if (!enabled || !isExact(algo)) return null;
+        PackedBoard board = state.getBoard();
+        if (!update(board, algo)) {
+            solve(engine, algo, state);
+        }
+
+        int cell = solvable ? pending.nextSetBit(0) : -1;
+        if (cell < 0) {
+            // What the engine does when the board already matches (or cannot be solved)
+            return engine.request("get_cpu_move", "greedy", false, state);
+        }
+        planned++;
+        EngineResponse response = new EngineResponse();
+        response.setMove(new Move("CPU", cell / board.getCols(), cell % board.getCols(),
+                (board.getRotation(cell) + 90) % 360));
+        return response;
+    }
+
+    /** Number of solves run for plans. */
+    public synchronized int getSolves() {
+        return solves;
+    }
+
+    /** Number of CPU moves answered from a plan without asking the engine. */
+    public synchronized int getPlannedMoves() {
+        return planned;
+    }
+
+    // Brings the plan up to date with the rotations since it was last used; false when the
+    // plan does not describe this board any more
+    // Time Complexity: O(R) for R changed cells
+    // Space Complexity: O(R)
+    private boolean update(PackedBoard board, String algo) {
+        if (board.getId() != boardId || !algo.equals(this.algo)) return false;
+        int[] changed = board.changesSince(version);
+        if (changed == null) return false;
+        if (solvable) {
+            for (int cell : changed) {
+                pending.set(cell, board.getRotation(cell) != target[cell]);
+            }
+        }
+        version = board.getVersion();
+        return true;
+    }
+
+    // Time Complexity: the engine's solve plus O(N)
+    // Space Complexity: O(N)
+    private void solve(EngineCall engine, String algo, GameState state) throws IOException, InterruptedException {
+        boardId = -1; // no plan until the solve has succeeded
+        PackedBoard board = state.getBoard();
+        EngineResponse solution = engine.request("solve_game", solverCode(algo), false, state);
+        solves++;
+
+        int[][] rotations = solution.getSolvedRotations();
+        solvable = Boolean.TRUE.equals(solution.getSolved()) && rotations != null;
+        pending.clear();
+        if (solvable) {
+            int cols = board.getCols();
+            target = new int[board.size()];
+            for (int cell = 0; cell < target.length; cell++) {
+                target[cell] = rotations[cell / cols][cell % cols];
+                if (board.getRotation(cell) != target[cell]) pending.set(cell);
+            }
+        } else {
+            target = null;
+        }
+        this.algo = algo;
+        this.version = board.getVersion();
+        this.boardId = board.getId();
+    }
+
+    // solve_game's names for the same solvers
+    private static String solverCode(String algo) {
+        switch (algo) {
+            case "backtracking": return "bt";
+            case "divideandconquer": return "dac";
+            default: return "dp";
+        }
+    }
+}
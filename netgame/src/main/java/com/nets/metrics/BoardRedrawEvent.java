@@ -0,0 +1,29 @@
+package com.nets.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One full redraw of the game board canvas (a new board, size or tile size). */
+@Name("com.nets.BoardRedraw")
+@Label("Board Redraw")
+@Category({"Nets", "Rendering"})
+@Description("Every tile of the game board drawn in one pulse")
+@StackTrace(false)
+public final class BoardRedrawEvent extends Event {
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int cols;
+
+    @Label("Tile Size")
+    public double tileSize;
+
+    @Label("Sprites")
+    @Description("Tiles blitted from the sprite atlas rather than stroked")
+    public boolean sprites;
+}
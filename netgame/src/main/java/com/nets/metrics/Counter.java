@@ -0,0 +1,23 @@
+package com.nets.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/** A count that any thread can add to without contention. */
+public final class Counter implements CounterMXBean {
+    private final LongAdder count = new LongAdder();
+
+    Counter() {}
+
+    public void increment() {
+        count.increment();
+    }
+
+    public void add(long n) {
+        count.add(n);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+}
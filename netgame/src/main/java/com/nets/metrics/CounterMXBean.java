@@ -0,0 +1,6 @@
+package com.nets.metrics;
+
+/** A counter as JMX shows it (com.nets:type=Counter,name=...). */
+public interface CounterMXBean {
+    long getCount();
+}
@@ -0,0 +1,53 @@
+package com.nets.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One CppEngine request, from encoding the board to the decoded response. */
+@Name("com.nets.EngineRequest")
+@Label("Engine Request")
+@Category({"Nets", "Engine"})
+@Description("A request to the C++ engine: encode, engine compute, decode")
+@StackTrace(false)
+public final class EngineRequestEvent extends Event {
+    @Label("Action")
+    public String action;
+
+    @Label("Algorithm")
+    public String algorithm;
+
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int cols;
+
+    @Label("Protocol")
+    @Description("binary, json, or oneshot for a process per request")
+    public String protocol;
+
+    @Label("Request Size")
+    @DataAmount
+    public long requestBytes;
+
+    @Label("Response Size")
+    @DataAmount
+    public long responseBytes;
+
+    @Label("Steps")
+    @Description("Visualization steps decoded, collected or streamed")
+    public int steps;
+
+    @Label("Session Started")
+    @Description("The request had to start (or restart) the engine session first")
+    public boolean sessionStarted;
+
+    @Label("Outcome")
+    @Description("ok, failed or cancelled")
+    public String outcome;
+}
@@ -0,0 +1,100 @@
+package com.nets.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Distribution of non-negative long values (durations in nanoseconds, sizes in
+ * bytes) in log-linear buckets: 0-7 exactly, then four buckets per power of
+ * two, so a percentile is within about 25% of the true value. Recording is a
+ * few atomic adds and never allocates; any thread may record.
+ */
+public final class Histogram implements HistogramMXBean {
+    private static final int EXACT = 8;
+    private static final int BUCKETS = EXACT + (63 - 3) * 4;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    Histogram() {}
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public void record(long value) {
+        if (value < 0) value = 0;
+        buckets.incrementAndGet(bucket(value));
+        count.increment();
+        sum.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    }
+
+    @Override
+    public long getCount() {
+        return count.sum();
+    }
+
+    @Override
+    public double getMean() {
+        long n = count.sum();
+        return n == 0 ? 0 : (double) sum.sum() / n;
+    }
+
+    @Override
+    public long getMax() {
+        return max.get();
+    }
+
+    @Override
+    public long getP50() {
+        return percentile(0.5);
+    }
+
+    @Override
+    public long getP90() {
+        return percentile(0.9);
+    }
+
+    @Override
+    public long getP99() {
+        return percentile(0.99);
+    }
+
+    @Override
+    public long getP999() {
+        return percentile(0.999);
+    }
+
+    // Upper end of the bucket holding the p-th value (at most the maximum seen)
+    // Time Complexity: O(buckets)
+    // Space Complexity: O(1)
+    public long percentile(double p) {
+        long n = 0;
+        for (int i = 0; i < BUCKETS; i++) n += buckets.get(i);
+        if (n == 0) return 0;
+        long rank = Math.max(1, (long) Math.ceil(p * n));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) return Math.min(lowerBound(i + 1) - 1, max.get());
+        }
+        return max.get();
+    }
+
+    static int bucket(long value) {
+        if (value < EXACT) return (int) value;
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int sub = (int) (value >>> (msb - 2)) & 3;
+        return EXACT + (msb - 3) * 4 + sub;
+    }
+
+    static long lowerBound(int bucket) {
+        if (bucket < EXACT) return bucket;
+        if (bucket >= BUCKETS) return Long.MAX_VALUE;
+        int msb = 3 + (bucket - EXACT) / 4;
+        int sub = (bucket - EXACT) % 4;
+        return (long) (4 + sub) << (msb - 2);
+    }
+}
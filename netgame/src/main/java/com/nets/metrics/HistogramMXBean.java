@@ -0,0 +1,22 @@
+package com.nets.metrics;
+
+/**
+ * A histogram as JMX shows it (com.nets:type=Histogram,name=...). Values are in
+ * the unit the name ends with (.nanos or .bytes); percentiles are accurate to
+ * about 25%.
+ */
+public interface HistogramMXBean {
+    long getCount();
+
+    double getMean();
+
+    long getMax();
+
+    long getP50();
+
+    long getP90();
+
+    long getP99();
+
+    long getP999();
+}
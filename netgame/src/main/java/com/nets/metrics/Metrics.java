@@ -0,0 +1,134 @@
+package com.nets.metrics;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Process-wide registry of named counters and histograms.
+ *
+ * Every metric is registered with the platform MBean server when it is first
+ * used (com.nets:type=Counter|Histogram,name=...), next to com.nets:type=Metrics
+ * for the whole dump, so jconsole or any JMX client can read them live;
+ * -Dnets.metrics.jmx=false skips that. startLogging() also writes the dump
+ * every -Dnets.metrics.logSeconds (default 60, 0 for never) to
+ * -Dnets.metrics.file, or to stdout when no file is given.
+ *
+ * Names are dotted and end with the unit of a histogram (.nanos or .bytes).
+ */
+public final class Metrics {
+    private static final boolean JMX = !"false".equalsIgnoreCase(System.getProperty("nets.metrics.jmx"));
+
+    private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<>();
+    private static final Map<String, Histogram> HISTOGRAMS = new ConcurrentHashMap<>();
+    private static ScheduledExecutorService logger;
+
+    static {
+        register("Metrics", null, new Registry());
+    }
+
+    private Metrics() {}
+
+    private static final class Registry implements MetricsMXBean {
+        @Override
+        public String getDump() {
+            return dump();
+        }
+    }
+
+    // The counter with this name, created on first use
+    // Time Complexity: O(1) expected
+    // Space Complexity: O(1)
+    public static Counter counter(String name) {
+        Counter counter = COUNTERS.get(name);
+        if (counter != null) return counter;
+        return COUNTERS.computeIfAbsent(name, n -> register("Counter", n, new Counter()));
+    }
+
+    // The histogram with this name, created on first use
+    // Time Complexity: O(1) expected
+    // Space Complexity: O(1)
+    public static Histogram histogram(String name) {
+        Histogram histogram = HISTOGRAMS.get(name);
+        if (histogram != null) return histogram;
+        return HISTOGRAMS.computeIfAbsent(name, n -> register("Histogram", n, new Histogram()));
+    }
+
+    // Every metric that has a value, one per line in name order; durations in ms
+    // Time Complexity: O(M log M) for M metrics
+    // Space Complexity: O(M)
+    public static String dump() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Counter> e : new ConcurrentSkipListMap<>(COUNTERS).entrySet()) {
+            if (e.getValue().getCount() == 0) continue;
+            out.append(String.format("%-48s %d%n", e.getKey(), e.getValue().getCount()));
+        }
+        for (Map.Entry<String, Histogram> e : new ConcurrentSkipListMap<>(HISTOGRAMS).entrySet()) {
+            Histogram h = e.getValue();
+            if (h.getCount() == 0) continue;
+            boolean nanos = e.getKey().endsWith(".nanos");
+            double scale = nanos ? 1e6 : 1;
+            String unit = nanos ? " ms" : "";
+            out.append(String.format("%-48s n=%d mean=%.3f p50=%.3f p90=%.3f p99=%.3f max=%.3f%s%n", e.getKey(),
+                    h.getCount(), h.getMean() / scale, h.getP50() / scale, h.getP90() / scale, h.getP99() / scale,
+                    h.getMax() / scale, unit));
+        }
+        return out.toString();
+    }
+
+    // Writes the dump periodically on a daemon thread, as configured above; calling it
+    // again does nothing
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public static synchronized void startLogging() {
+        long seconds = Long.getLong("nets.metrics.logSeconds", 60);
+        if (logger != null || seconds <= 0) return;
+        String file = System.getProperty("nets.metrics.file");
+        logger = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "nets-metrics-log");
+            t.setDaemon(true);
+            return t;
+        });
+        logger.scheduleAtFixedRate(() -> log(file), seconds, seconds, TimeUnit.SECONDS);
+    }
+
+    // Writes one dump now (also used for a last one at exit)
+    public static void log(String file) {
+        String dump = dump();
+        if (dump.isEmpty()) return;
+        String header = "metrics " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        if (file == null || file.isEmpty()) {
+            System.out.print(header + System.lineSeparator() + dump);
+            return;
+        }
+        try (PrintWriter out = new PrintWriter(new FileWriter(file, true))) {
+            out.print(header + System.lineSeparator() + dump);
+        } catch (IOException e) {
+            System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+        }
+    }
+
+    private static <T> T register(String type, String name, T bean) {
+        if (!JMX) return bean;
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName id = new ObjectName("com.nets:type=" + type + (name != null ? ",name=" + name : ""));
+            if (!server.isRegistered(id)) server.registerMBean(bean, id);
+        } catch (JMException | RuntimeException e) {
+            System.err.println("Could not register metric " + name + " with JMX: " + e.getMessage());
+        }
+        return bean;
+    }
+}
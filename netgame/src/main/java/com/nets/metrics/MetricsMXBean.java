@@ -0,0 +1,6 @@
+package com.nets.metrics;
+
+/** The whole registry (com.nets:type=Metrics): the same text the periodic log writes. */
+public interface MetricsMXBean {
+    String getDump();
+}
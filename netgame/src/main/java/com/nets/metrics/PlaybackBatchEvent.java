@@ -0,0 +1,30 @@
+package com.nets.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/** One VisualizerView frame: the steps it shows at once and the tiles they turn. */
+@Name("com.nets.PlaybackBatch")
+@Label("Playback Batch")
+@Category({"Nets", "Rendering"})
+@Description("Visualizer steps shown as one frame")
+@StackTrace(false)
+public final class PlaybackBatchEvent extends Event {
+    @Label("First Step")
+    public int from;
+
+    @Label("Steps")
+    public int steps;
+
+    @Label("Tiles Turned")
+    public int tiles;
+
+    @Label("Step Delay")
+    @Timespan(Timespan.MILLISECONDS)
+    public long stepDelayMs;
+}
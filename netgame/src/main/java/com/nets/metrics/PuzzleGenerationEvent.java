@@ -0,0 +1,25 @@
+package com.nets.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/** One puzzle generated: the solved board, its scramble and the game state around it. */
+@Name("com.nets.PuzzleGeneration")
+@Label("Puzzle Generation")
+@Category({"Nets", "Generation"})
+@Description("A puzzle generated for a new game or the puzzle pool")
+@StackTrace(false)
+public final class PuzzleGenerationEvent extends Event {
+    @Label("Rows")
+    public int rows;
+
+    @Label("Columns")
+    public int cols;
+
+    @Label("Seed")
+    public int seed;
+}
@@ -0,0 +1,24 @@
+package com.nets.model;
+
+/**
+ * Changes to a game as they happen, so a view can update what changed instead
+ * of rescanning the board after every move.
+ *
+ * PackedBoard reports cell changes, Meta and Stats report status changes; each
+ * holds one listener (GameState.setListener registers it with all three).
+ * Events are only sent for real changes and arrive on the thread that made
+ * them. Copies and snapshots of a board start without a listener.
+ */
+public interface BoardListener {
+    /** The cell turned. */
+    default void tileRotated(int cell) {}
+
+    /** The cell's powered flag flipped. */
+    default void poweredChanged(int cell) {}
+
+    /** Something else about the cell changed: its type, lock or ports. */
+    default void tileChanged(int cell) {}
+
+    /** Status, turn or stats changed. */
+    default void statusChanged() {}
+}
@@ -1,7 +1,14 @@
 package com.nets.model;
 
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.annotations.SerializedName;
+
 public class GameState {
-    private Tile[][] grid;
+    // Serialized under the same "grid" key and shape as a Tile[][] used to be
+    @SerializedName("grid")
+    @JsonAdapter(PackedBoardAdapter.class)
+    private PackedBoard board;
+    private transient Tile[][] grid; // Tile views over board, created on first use
     private Move last_move;
     private Meta meta;
     private Stats stats;
@@ -9,14 +16,43 @@ public class GameState {
 
     public GameState() {}
 
+    public PackedBoard getBoard() {
+        return board;
+    }
+
+    public void setBoard(PackedBoard board) {
+        this.board = board;
+        this.grid = null;
+    }
+
+    // Tile views over the packed board; writes through them change the board
     public Tile[][] getGrid() {
+        if (grid == null && board != null) {
+            grid = board.tileViews();
+        }
         return grid;
     }
 
+    // Packs the given tiles into a new board and turns them into views of it
     public void setGrid(Tile[][] grid) {
+        PackedBoard packed = new PackedBoard(grid.length, grid[0].length);
+        for (int r = 0; r < grid.length; r++) {
+            for (int c = 0; c < grid[0].length; c++) {
+                grid[r][c].attach(packed, packed.index(r, c));
+            }
+        }
+        this.board = packed;
         this.grid = grid;
     }
 
+    // Registers listener with the board, meta and stats (null removes it); set the
+    // listener again after replacing any of them
+    public void setListener(BoardListener listener) {
+        if (board != null) board.setListener(listener);
+        if (meta != null) meta.setListener(listener);
+        if (stats != null) stats.setListener(listener);
+    }
+
     public Move getLastMove() {
         return last_move;
     }
@@ -9,6 +9,7 @@ public class Meta {
     private String status;
     private String turn;
     private boolean wraps;
+    private transient BoardListener listener;
 
     public Meta() {}
 
@@ -41,7 +42,9 @@ public class Meta {
     }
 
     public void setStatus(String status) {
+        if (java.util.Objects.equals(status, this.status)) return;
         this.status = status;
+        if (listener != null) listener.statusChanged();
     }
 
     public String getTurn() {
@@ -49,7 +52,14 @@ public class Meta {
     }
 
     public void setTurn(String turn) {
+        if (java.util.Objects.equals(turn, this.turn)) return;
         this.turn = turn;
+        if (listener != null) listener.statusChanged();
+    }
+
+    /** Told when the status or turn changes (null for none). */
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
     }
 
     public boolean isWraps() {
@@ -0,0 +1,409 @@
+package com.nets.model;
+
+/**
+ * Compact board: one {@code short} per cell instead of a {@link Tile} object.
+ *
+ * Cell layout (low to high bits):
+ * <pre>
+ *   0-3   base port mask (unrotated; N=1, E=2, S=4, W=8)
+ *   4-5   quarter turns clockwise
+ *   6-8   TileType ordinal
+ *   9     locked
+ *   10    powered
+ *   11    custom connections (base mask came from Tile.connections, e.g. POWER)
+ * </pre>
+ * Port masks in the current rotation come from a 64-entry table, so analysis,
+ * generation and serialization work on plain arrays without allocating.
+ *
+ * Each board also has an id and a version for engine sessions that keep a copy
+ * of it: every rotation bumps the version and is recorded in a short journal,
+ * so changesSince() can list the cells that turned since a version the engine
+ * already has. Other edits (type, lock, ports) clear the journal, which makes
+ * the next request send the whole board.
+ *
+ * The board also keeps a Zobrist hash of everything but the powered bits,
+ * updated in O(1) by every edit, so equal boards can be recognised without
+ * comparing cells (see getHash()).
+ *
+ * snapshot() makes a read-only copy that keeps the id and version, so a request
+ * built on another thread from the snapshot still only needs the deltas.
+ *
+ * A BoardListener set with setListener() hears about every cell that changes;
+ * copies and snapshots are made without it.
+ */
+public final class PackedBoard {
+    public static final int NORTH = 1;
+    public static final int EAST = 2;
+    public static final int SOUTH = 4;
+    public static final int WEST = 8;
+
+    private static final int TURN_SHIFT = 4;
+    private static final int TYPE_SHIFT = 6;
+    private static final int LOCKED = 1 << 9;
+    private static final int POWERED = 1 << 10;
+    private static final int CUSTOM = 1 << 11;
+
+    private static final java.util.concurrent.atomic.AtomicInteger NEXT_ID = new java.util.concurrent.atomic.AtomicInteger();
+    private static final int JOURNAL_SIZE = 64;
+
+    private static final TileType[] TYPES = TileType.values();
+    private static final int EMPTY_ORDINAL = TileType.EMPTY.ordinal();
+
+    // Unrotated ports per TileType ordinal, same as getActivePortsMask in cpp/Tile.hpp
+    private static final int[] TYPE_PORTS = new int[TYPES.length];
+    // ROTATED[base << 2 | turns] = base rotated clockwise by turns quarter turns
+    private static final byte[] ROTATED = new byte[64];
+
+    static {
+        TYPE_PORTS[TileType.CORNER.ordinal()] = NORTH | EAST;
+        TYPE_PORTS[TileType.T_JUNCTION.ordinal()] = NORTH | EAST | SOUTH;
+        TYPE_PORTS[TileType.STRAIGHT.ordinal()] = NORTH | SOUTH;
+        TYPE_PORTS[TileType.PC.ordinal()] = NORTH;
+        TYPE_PORTS[TileType.EMPTY.ordinal()] = 0;
+        TYPE_PORTS[TileType.POWER.ordinal()] = NORTH | EAST | SOUTH | WEST;
+        TYPE_PORTS[TileType.CROSS.ordinal()] = NORTH | EAST | SOUTH | WEST;
+
+        for (int base = 0; base < 16; base++) {
+            for (int turns = 0; turns < 4; turns++) {
+                int rotated = turns == 0 ? base : ((base << turns) | (base >> (4 - turns))) & 0xF;
+                ROTATED[base << 2 | turns] = (byte) rotated;
+            }
+        }
+    }
+
+    private final int rows;
+    private final int cols;
+    private final short[] cells;
+
+    private final int id;
+    private final boolean frozen; // snapshots refuse edits that would fork a version
+    private int version;
+    private int journalFrom;  // oldest version changesSince() can start from
+    private int[] journal;    // cell rotated at version v is journal[v % JOURNAL_SIZE]; allocated on first use
+    private long hash;        // XOR of zobrist(cell, value) over all cells
+    private BoardListener listener;
+
+    // Time Complexity: O(N)
+    // Space Complexity: O(N), two bytes per cell
+    public PackedBoard(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.cells = new short[rows * cols];
+        this.id = NEXT_ID.incrementAndGet();
+        this.frozen = false;
+        short empty = (short) (EMPTY_ORDINAL << TYPE_SHIFT);
+        java.util.Arrays.fill(cells, empty);
+    }
+
+    private PackedBoard(PackedBoard other, boolean snapshot) {
+        this.rows = other.rows;
+        this.cols = other.cols;
+        this.cells = other.cells.clone();
+        this.id = snapshot ? other.id : NEXT_ID.incrementAndGet();
+        this.frozen = snapshot;
+        this.hash = other.hash;
+        if (snapshot) {
+            this.version = other.version;
+            this.journalFrom = other.journalFrom;
+            this.journal = other.journal != null ? other.journal.clone() : null;
+        }
+    }
+
+    // Packs a Tile grid; the tiles themselves are left untouched
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public static PackedBoard fromTiles(Tile[][] grid) {
+        PackedBoard board = new PackedBoard(grid.length, grid[0].length);
+        for (int r = 0; r < board.rows; r++) {
+            for (int c = 0; c < board.cols; c++) {
+                Tile tile = grid[r][c];
+                int cell = r * board.cols + c;
+                board.set(cell, tile.getType(), tile.getRotation(), tile.isLocked());
+                board.setPowered(cell, tile.isPowered());
+                board.setConnections(cell, tile.getConnections());
+            }
+        }
+        return board;
+    }
+
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public PackedBoard copy() {
+        return new PackedBoard(this, false);
+    }
+
+    // Read-only copy with the same id, version and journal. Both boards agree on every
+    // version the snapshot has, so an engine holding either one can take deltas from the
+    // other. Rotating, retyping or locking the snapshot throws IllegalStateException.
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public PackedBoard snapshot() {
+        return new PackedBoard(this, true);
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int size() {
+        return cells.length;
+    }
+
+    public int index(int row, int col) {
+        return row * cols + col;
+    }
+
+    /** Identifies this board instance (copies get their own id, snapshots share it). */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Zobrist hash of the cells' type, rotation, ports and lock (not the powered
+     * flag). Boards with the same cells have the same hash whatever their history,
+     * e.g. after a tile has been turned all the way round.
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /** Receives this board's cell changes from now on (null for none). */
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
+    }
+
+    /** Number of changes made to this board so far. */
+    public int getVersion() {
+        return version;
+    }
+
+    // Cells whose rotation changed after version since, each listed once; null when the
+    // journal no longer reaches back that far or something other than a rotation changed
+    // Time Complexity: O(JOURNAL_SIZE^2) at worst
+    // Space Complexity: O(JOURNAL_SIZE)
+    public int[] changesSince(int since) {
+        if (since < journalFrom || since > version) return null;
+        int[] changed = new int[version - since];
+        int n = 0;
+        for (int v = since + 1; v <= version; v++) {
+            int cell = journal[v % JOURNAL_SIZE];
+            boolean seen = false;
+            for (int i = 0; i < n && !seen; i++) seen = changed[i] == cell;
+            if (!seen) changed[n++] = cell;
+        }
+        return java.util.Arrays.copyOf(changed, n);
+    }
+
+    // Every cell write goes through here to keep the hash current
+    private void write(int cell, int value) {
+        short updated = (short) value;
+        hash ^= zobrist(cell, cells[cell]) ^ zobrist(cell, updated);
+        cells[cell] = updated;
+    }
+
+    // Random 64-bit key per (cell, value), from the SplitMix64 finalizer instead of a
+    // table; 0 for an untouched EMPTY cell, so a new board starts at hash 0
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private static long zobrist(int cell, short value) {
+        int v = value & ~POWERED & 0xFFFF;
+        if (v == EMPTY_ORDINAL << TYPE_SHIFT) return 0;
+        long z = ((long) cell << 16 | v) + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private void checkWritable() {
+        if (frozen) throw new IllegalStateException("Board snapshot " + id + " is read-only");
+    }
+
+    private void recordRotation(int cell) {
+        if (journal == null) journal = new int[JOURNAL_SIZE];
+        version++;
+        journal[version % JOURNAL_SIZE] = cell;
+        if (version - journalFrom > JOURNAL_SIZE) journalFrom = version - JOURNAL_SIZE;
+    }
+
+    private void resetJournal() {
+        version++;
+        journalFrom = version;
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public void set(int cell, TileType type, int rotation, boolean locked) {
+        checkWritable();
+        int ordinal = type.ordinal();
+        write(cell, TYPE_PORTS[ordinal] | turns(rotation) << TURN_SHIFT
+                | ordinal << TYPE_SHIFT | (locked ? LOCKED : 0));
+        resetJournal();
+        if (listener != null) listener.tileChanged(cell);
+    }
+
+    /** The cell's packed value: type, rotation, ports and flags. Cells with equal values look the same. */
+    public int getPacked(int cell) {
+        return cells[cell] & 0xFFFF;
+    }
+
+    public TileType getType(int cell) {
+        return TYPES[(cells[cell] >> TYPE_SHIFT) & 0x7];
+    }
+
+    public boolean isEmpty(int cell) {
+        return ((cells[cell] >> TYPE_SHIFT) & 0x7) == EMPTY_ORDINAL;
+    }
+
+    // Changes the type and resets the ports to that type's defaults
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public void setType(int cell, TileType type) {
+        checkWritable();
+        int ordinal = type.ordinal();
+        int keep = cells[cell] & (3 << TURN_SHIFT | LOCKED | POWERED);
+        write(cell, keep | TYPE_PORTS[ordinal] | ordinal << TYPE_SHIFT);
+        resetJournal();
+        if (listener != null) listener.tileChanged(cell);
+    }
+
+    /** Rotation in degrees: 0, 90, 180 or 270. */
+    public int getRotation(int cell) {
+        return ((cells[cell] >> TURN_SHIFT) & 3) * 90;
+    }
+
+    public void setRotation(int cell, int degrees) {
+        checkWritable();
+        short updated = (short) ((cells[cell] & ~(3 << TURN_SHIFT)) | turns(degrees) << TURN_SHIFT);
+        if (updated != cells[cell]) {
+            write(cell, updated);
+            recordRotation(cell);
+            if (listener != null) listener.tileRotated(cell);
+        }
+    }
+
+    // Same contract as Tile.rotate: locked cells do not move
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public void rotate(int cell, int degrees) {
+        if (!isLocked(cell)) {
+            setRotation(cell, getRotation(cell) + degrees);
+        }
+    }
+
+    public boolean isLocked(int cell) {
+        return (cells[cell] & LOCKED) != 0;
+    }
+
+    public void setLocked(int cell, boolean locked) {
+        checkWritable();
+        if (locked != isLocked(cell)) {
+            write(cell, locked ? cells[cell] | LOCKED : cells[cell] & ~LOCKED);
+            resetJournal();
+            if (listener != null) listener.tileChanged(cell);
+        }
+    }
+
+    public boolean isPowered(int cell) {
+        return (cells[cell] & POWERED) != 0;
+    }
+
+    public void setPowered(int cell, boolean powered) {
+        if (powered == isPowered(cell)) return;
+        cells[cell] = (short) (powered ? cells[cell] | POWERED : cells[cell] & ~POWERED);
+        if (listener != null) listener.poweredChanged(cell);
+    }
+
+    public boolean hasCustomConnections(int cell) {
+        return (cells[cell] & CUSTOM) != 0;
+    }
+
+    /** Unrotated custom connections as N, E, S, W flags, or null when the type defaults apply. */
+    public boolean[] getConnections(int cell) {
+        if (!hasCustomConnections(cell)) return null;
+        int base = cells[cell] & 0xF;
+        return new boolean[]{(base & NORTH) != 0, (base & EAST) != 0, (base & SOUTH) != 0, (base & WEST) != 0};
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public void setConnections(int cell, boolean[] connections) {
+        if (connections == null || connections.length == 0) {
+            setType(cell, getType(cell)); // back to the type's default ports
+            return;
+        }
+        int base = 0;
+        for (int i = 0; i < 4 && i < connections.length; i++) {
+            if (connections[i]) base |= 1 << i;
+        }
+        setBaseMask(cell, base);
+    }
+
+    /** Unrotated ports (bit 0 = N, 1 = E, 2 = S, 3 = W). */
+    public int baseMask(int cell) {
+        return cells[cell] & 0xF;
+    }
+
+    /** Sets unrotated custom ports directly (bit 0 = N, 1 = E, 2 = S, 3 = W). */
+    public void setBaseMask(int cell, int base) {
+        checkWritable();
+        write(cell, (cells[cell] & ~0xF) | (base & 0xF) | CUSTOM);
+        resetJournal();
+        if (listener != null) listener.tileChanged(cell);
+    }
+
+    /** Ports in the current rotation; EMPTY cells have none. */
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public int portMask(int cell) {
+        int v = cells[cell];
+        if (((v >> TYPE_SHIFT) & 0x7) == EMPTY_ORDINAL) return 0;
+        return ROTATED[(v & 0xF) << 2 | (v >> TURN_SHIFT) & 3];
+    }
+
+    /** Ports the cell would have at the given rotation. */
+    public int portMaskAt(int cell, int degrees) {
+        int v = cells[cell];
+        if (((v >> TYPE_SHIFT) & 0x7) == EMPTY_ORDINAL) return 0;
+        return ROTATED[(v & 0xF) << 2 | turns(degrees)];
+    }
+
+    /** Rotates a port mask clockwise by the given number of quarter turns. */
+    public static int rotateMask(int mask, int quarterTurns) {
+        return ROTATED[(mask & 0xF) << 2 | (quarterTurns & 3)];
+    }
+
+    /** Same dimensions and identical cells, including rotation, locked and powered bits. */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof PackedBoard)) return false;
+        PackedBoard other = (PackedBoard) o;
+        return rows == other.rows && cols == other.cols && java.util.Arrays.equals(cells, other.cells);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * rows + cols) + java.util.Arrays.hashCode(cells);
+    }
+
+    // Tile views over every cell, for code that works with Tile objects (the UI)
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    public Tile[][] tileViews() {
+        Tile[][] grid = new Tile[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                grid[r][c] = new Tile(this, r * cols + c);
+            }
+        }
+        return grid;
+    }
+
+    private static int turns(int degrees) {
+        return ((degrees / 90) % 4 + 4) % 4;
+    }
+}
@@ -0,0 +1,107 @@
+package com.nets.model;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads and writes a PackedBoard in the engine's "grid" format: rows of
+ * {"type", "rotation", "locked", "isPowered", "connections"?} objects, exactly
+ * what Gson produced for the old Tile[][]. Writing streams straight from the
+ * packed cells without creating Tile objects.
+ */
+public class PackedBoardAdapter extends TypeAdapter<PackedBoard> {
+
+    // Time Complexity: O(N)
+    // Space Complexity: O(1)
+    @Override
+    public void write(JsonWriter out, PackedBoard board) throws IOException {
+        if (board == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (int r = 0; r < board.getRows(); r++) {
+            out.beginArray();
+            for (int c = 0; c < board.getCols(); c++) {
+                int cell = board.index(r, c);
+                out.beginObject();
+                out.name("type").value(board.getType(cell).name());
+                out.name("rotation").value(board.getRotation(cell));
+                out.name("locked").value(board.isLocked(cell));
+                out.name("isPowered").value(board.isPowered(cell));
+                if (board.hasCustomConnections(cell)) {
+                    int ports = board.baseMask(cell);
+                    out.name("connections").beginArray();
+                    for (int d = 0; d < 4; d++) out.value((ports & (1 << d)) != 0);
+                    out.endArray();
+                }
+                out.endObject();
+            }
+            out.endArray();
+        }
+        out.endArray();
+    }
+
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    @Override
+    public PackedBoard read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        List<Tile[]> rows = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            List<Tile> row = new ArrayList<>();
+            in.beginArray();
+            while (in.hasNext()) {
+                row.add(readTile(in));
+            }
+            in.endArray();
+            rows.add(row.toArray(new Tile[0]));
+        }
+        in.endArray();
+        if (rows.isEmpty()) return new PackedBoard(0, 0);
+        return PackedBoard.fromTiles(rows.toArray(new Tile[0][]));
+    }
+
+    private static Tile readTile(JsonReader in) throws IOException {
+        Tile tile = new Tile(TileType.EMPTY, 0, false);
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+            switch (name) {
+                case "type": tile.setType(TileType.valueOf(in.nextString())); break;
+                case "rotation": tile.setRotation(in.nextInt()); break;
+                case "locked": tile.setLocked(in.nextBoolean()); break;
+                case "isPowered": tile.setPowered(in.nextBoolean()); break;
+                case "connections": {
+                    boolean[] conn = new boolean[4];
+                    int i = 0;
+                    in.beginArray();
+                    while (in.hasNext()) {
+                        boolean b = in.nextBoolean();
+                        if (i < 4) conn[i++] = b;
+                    }
+                    in.endArray();
+                    tile.setConnections(conn);
+                    break;
+                }
+                default: in.skipValue();
+            }
+        }
+        in.endObject();
+        return tile;
+    }
+}
@@ -4,6 +4,7 @@ public class Stats {
     private int components;
     private boolean is_solved;
     private int loose_ends;
+    private transient BoardListener listener;
 
     public Stats() {}
 
@@ -12,7 +13,9 @@ public class Stats {
     }
 
     public void setComponents(int components) {
+        if (components == this.components) return;
         this.components = components;
+        if (listener != null) listener.statusChanged();
     }
 
     public boolean isSolved() {
@@ -20,7 +23,9 @@ public class Stats {
     }
 
     public void setSolved(boolean is_solved) {
+        if (is_solved == this.is_solved) return;
         this.is_solved = is_solved;
+        if (listener != null) listener.statusChanged();
     }
 
     public int getLooseEnds() {
@@ -28,6 +33,13 @@ public class Stats {
     }
 
     public void setLooseEnds(int loose_ends) {
+        if (loose_ends == this.loose_ends) return;
         this.loose_ends = loose_ends;
+        if (listener != null) listener.statusChanged();
+    }
+
+    /** Told when any of the stats changes (null for none). */
+    public void setListener(BoardListener listener) {
+        this.listener = listener;
     }
 }
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.nets.model;
+
+import java.util.List;
+
+/**
+ * Visualization steps that are still arriving from the engine. The decoding
+ * thread appends with accept() and ends the feed with finish() or fail();
+ * the player reads with await(), which blocks until that step exists or the
+ * feed has ended. Steps are kept in a StepTrace.
+ */
+public class StepFeed implements StepSink {
+    private final StepTrace steps;
+    private boolean finished;
+    private Throwable failure;
+
+    public StepFeed() {
+        this.steps = new StepTrace();
+    }
+
+    /** A feed that already holds all of its steps; a StepTrace is used as it is, not copied. */
+    public StepFeed(List<VisualStep> complete) {
+        if (complete instanceof StepTrace) {
+            this.steps = (StepTrace) complete;
+        } else {
+            this.steps = new StepTrace();
+            for (VisualStep step : complete) steps.accept(step);
+        }
+        finished = true;
+    }
+
+    @Override
+    public synchronized void accept(VisualStep step) {
+        steps.accept(step);
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void acceptRecords(byte[] records, int offset, int count) {
+        steps.acceptRecords(records, offset, count);
+        notifyAll();
+    }
+
+    public synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    public synchronized void fail(Throwable error) {
+        failure = error;
+        finish();
+    }
+
+    // Step at index, waiting for it if needed; null once the feed ended before reaching it
+    // Time Complexity: O(1) besides waiting
+    // Space Complexity: O(1)
+    public synchronized VisualStep await(int index) throws InterruptedException {
+        while (index >= steps.size() && !finished) {
+            wait();
+        }
+        return index < steps.size() ? steps.get(index) : null;
+    }
+
+    /** The steps received so far (all of them once finished). */
+    public StepTrace getTrace() {
+        return steps;
+    }
+
+    public synchronized int size() {
+        return steps.size();
+    }
+
+    public synchronized boolean isFinished() {
+        return finished;
+    }
+
+    /** Why the feed ended early, or null. */
+    public synchronized Throwable getFailure() {
+        return failure;
+    }
+}
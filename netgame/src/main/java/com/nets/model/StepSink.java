@@ -0,0 +1,14 @@
+package com.nets.model;
+
+import java.util.function.Consumer;
+
+/**
+ * A step consumer that can also take steps as raw trace records (the layout of
+ * StepTrace and of the binary protocol), so decoders can copy them in bulk
+ * instead of building a VisualStep per step.
+ */
+public interface StepSink extends Consumer<VisualStep> {
+
+    /** Appends count records of StepTrace.RECORD_BYTES bytes each, starting at byte offset. */
+    void acceptRecords(byte[] records, int offset, int count);
+}
@@ -0,0 +1,264 @@
+package com.nets.model;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Cleaner;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Visualization steps stored as fixed-size records instead of VisualStep
+ * objects, so a trace of millions of steps costs 28 bytes per step and no
+ * per-step allocation while it is kept.
+ *
+ * Record layout (big-endian, the same as a step record of the binary protocol):
+ * <pre>
+ *   row s16, col s16, rotation s16, type u8, leftreq u8, upmask s32,
+ *   score f64, r0 s16, r1 s16, c0 s16, c1 s16
+ * </pre>
+ * Records live in chunks of CHUNK_STEPS. The first heapSteps steps are kept in
+ * heap buffers; later chunks are memory-mapped from a temporary file, so a very
+ * long trace stays off the Java heap (-Dnets.trace.heapSteps, default 2^20 =
+ * 28 MB). The file is deleted when the trace is closed or collected.
+ *
+ * As a List, get(i) builds a VisualStep on demand; it is read-only apart from
+ * appending. One thread may append while others read: get(i) is safe for any
+ * i below a size() it has seen.
+ */
+public final class StepTrace extends AbstractList<VisualStep> implements RandomAccess, StepSink, AutoCloseable {
+    public static final int RECORD_BYTES = 28;
+
+    private static final String[] TYPES = {"TRY", "UNDO", "SUCCESS", "FAIL", "CONSIDER", "SCORE", "REGION"};
+
+    private static final int CHUNK_SHIFT = 14;
+    private static final int CHUNK_STEPS = 1 << CHUNK_SHIFT; // 16384 steps, 448 KB
+    private static final int CHUNK_BYTES = CHUNK_STEPS * RECORD_BYTES;
+    private static final int FIRST_CHUNK_STEPS = 64;         // short traces stay small
+
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private final int heapChunks;
+    private volatile ByteBuffer[] chunks = new ByteBuffer[4];
+    private volatile int size;
+
+    private Spill spill;                // created with the first mapped chunk
+    private Cleaner.Cleanable cleanable;
+    private boolean closed;
+
+    // The spill file, closed (and so deleted) by close() or once the trace is unreachable
+    private static final class Spill implements Runnable {
+        final FileChannel channel;
+
+        Spill(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void run() {
+            try {
+                channel.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+    }
+
+    public StepTrace() {
+        this(Long.getLong("nets.trace.heapSteps", 1L << 20));
+    }
+
+    public StepTrace(long heapSteps) {
+        long steps = Math.min(Math.max(heapSteps, 1), Integer.MAX_VALUE);
+        this.heapChunks = (int) ((steps + CHUNK_STEPS - 1) / CHUNK_STEPS);
+    }
+
+    /** Engine name of a record's type code ("TRY", "UNDO", ...), or null for an unknown code. */
+    public static String typeName(int code) {
+        return code >= 0 && code < TYPES.length ? TYPES[code] : null;
+    }
+
+    /** Record type code of a step type name; unknown names map to 0xFF. */
+    public static int typeCode(String name) {
+        for (int i = 0; i < TYPES.length; i++) {
+            if (TYPES[i].equals(name)) return i;
+        }
+        return 0xFF;
+    }
+
+    // Decodes the record at pos without moving the buffer's position
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public static VisualStep readRecord(ByteBuffer in, int pos) {
+        return new VisualStep(in.getShort(pos), in.getShort(pos + 2), in.getShort(pos + 4),
+                typeName(in.get(pos + 6) & 0xFF), in.getDouble(pos + 12), in.getInt(pos + 8), in.get(pos + 7) & 0xFF,
+                in.getShort(pos + 20), in.getShort(pos + 22), in.getShort(pos + 24), in.getShort(pos + 26));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    // Time Complexity: O(1)
+    // Space Complexity: O(1), one VisualStep
+    @Override
+    public VisualStep get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return readRecord(chunks[index >>> CHUNK_SHIFT], offset(index));
+    }
+
+    /** Row of step index without building a VisualStep. */
+    public int getRow(int index) {
+        return record(index).getShort(offset(index));
+    }
+
+    public int getCol(int index) {
+        return record(index).getShort(offset(index) + 2);
+    }
+
+    public int getRotation(int index) {
+        return record(index).getShort(offset(index) + 4);
+    }
+
+    public String getType(int index) {
+        return typeName(record(index).get(offset(index) + 6) & 0xFF);
+    }
+
+    /** Type code of step index (see typeName), without building a VisualStep. */
+    public int getTypeCode(int index) {
+        return record(index).get(offset(index) + 6) & 0xFF;
+    }
+
+    public double getScore(int index) {
+        return record(index).getDouble(offset(index) + 12);
+    }
+
+    // Time Complexity: O(1) amortized
+    // Space Complexity: O(1) amortized
+    @Override
+    public synchronized void accept(VisualStep step) {
+        int index = size;
+        ByteBuffer chunk = writableChunk(index, 1);
+        int pos = offset(index);
+        chunk.putShort(pos, (short) step.getRow());
+        chunk.putShort(pos + 2, (short) step.getCol());
+        chunk.putShort(pos + 4, (short) step.getRotation());
+        chunk.put(pos + 6, (byte) typeCode(step.getType()));
+        chunk.put(pos + 7, (byte) step.getLeftreq());
+        chunk.putInt(pos + 8, step.getUpmask());
+        chunk.putDouble(pos + 12, step.getScore());
+        chunk.putShort(pos + 20, (short) step.getR0());
+        chunk.putShort(pos + 22, (short) step.getR1());
+        chunk.putShort(pos + 24, (short) step.getC0());
+        chunk.putShort(pos + 26, (short) step.getC1());
+        size = index + 1;
+    }
+
+    /** Appends step; the only modification a trace supports. */
+    @Override
+    public boolean add(VisualStep step) {
+        accept(step);
+        return true;
+    }
+
+    // Copies records as they are; the layout already matches
+    // Time Complexity: O(count)
+    // Space Complexity: O(1) amortized
+    @Override
+    public synchronized void acceptRecords(byte[] records, int offset, int count) {
+        int index = size;
+        int done = 0;
+        while (done < count) {
+            int n = Math.min(count - done, CHUNK_STEPS - (index & (CHUNK_STEPS - 1)));
+            ByteBuffer chunk = writableChunk(index, n);
+            chunk.put(offset(index), records, offset + done * RECORD_BYTES, n * RECORD_BYTES);
+            index += n;
+            done += n;
+            size = index; // published per chunk so readers can start early
+        }
+    }
+
+    /** True once part of the trace lives in the spill file. */
+    public synchronized boolean isSpilled() {
+        return spill != null;
+    }
+
+    /** Heap bytes held by record buffers (mapped chunks excluded). */
+    public synchronized long getHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : chunks) {
+            if (chunk != null && !chunk.isDirect()) bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+
+    // Releases the buffers and deletes the spill file; the trace is empty afterwards
+    @Override
+    public synchronized void close() {
+        closed = true;
+        size = 0;
+        chunks = new ByteBuffer[0];
+        if (cleanable != null) cleanable.clean();
+        spill = null;
+    }
+
+    private ByteBuffer record(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+        return chunks[index >>> CHUNK_SHIFT];
+    }
+
+    private static int offset(int index) {
+        return (index & (CHUNK_STEPS - 1)) * RECORD_BYTES;
+    }
+
+    // The chunk that will hold steps index .. index + count - 1 (all in one chunk)
+    private ByteBuffer writableChunk(int index, int count) {
+        if (closed) throw new IllegalStateException("Step trace is closed");
+        int c = index >>> CHUNK_SHIFT;
+        ByteBuffer[] current = chunks;
+        if (c >= current.length) {
+            current = java.util.Arrays.copyOf(current, Math.max(c + 1, current.length * 2));
+        }
+        ByteBuffer chunk = current[c];
+        int needed = offset(index) + count * RECORD_BYTES;
+        if (chunk == null) {
+            chunk = c < heapChunks ? ByteBuffer.allocate(c == 0 ? firstChunkBytes(needed) : CHUNK_BYTES) : mapChunk(c);
+        } else if (chunk.capacity() < needed) {
+            // Only the first chunk starts small; it doubles up to a full chunk
+            ByteBuffer grown = ByteBuffer.allocate(firstChunkBytes(needed));
+            grown.put(0, chunk, 0, chunk.capacity());
+            chunk = grown;
+        }
+        current[c] = chunk;
+        chunks = current;
+        return chunk;
+    }
+
+    private static int firstChunkBytes(int needed) {
+        int bytes = FIRST_CHUNK_STEPS * RECORD_BYTES;
+        while (bytes < needed) bytes *= 2;
+        return Math.min(bytes, CHUNK_BYTES);
+    }
+
+    // Time Complexity: O(1) besides the mapping
+    // Space Complexity: O(1) heap; CHUNK_BYTES of file-backed memory
+    private ByteBuffer mapChunk(int c) {
+        try {
+            if (spill == null) {
+                Path file = Files.createTempFile("nets-trace", ".bin");
+                file.toFile().deleteOnExit();
+                spill = new Spill(FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE));
+                cleanable = CLEANER.register(this, spill);
+            }
+            return spill.channel.map(FileChannel.MapMode.READ_WRITE, (long) (c - heapChunks) * CHUNK_BYTES, CHUNK_BYTES);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot extend step trace on disk", e);
+        }
+    }
+}
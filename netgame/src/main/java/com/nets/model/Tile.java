@@ -7,6 +7,10 @@ public class Tile {
     private boolean isPowered;
     private boolean[] connections;
 
+    // When set, this Tile is a view of one cell of a packed board and all reads and writes go there
+    private transient PackedBoard board;
+    private transient int cell;
+
     public Tile() {}
 
     public Tile(TileType type, int rotation, boolean locked) {
@@ -17,47 +21,70 @@ public class Tile {
         this.connections = null;
     }
 
+    public Tile(PackedBoard board, int cell) {
+        this.board = board;
+        this.cell = cell;
+    }
+
+    // Copies this tile into a board cell and turns it into a view of that cell
+    void attach(PackedBoard board, int cell) {
+        board.set(cell, getType(), getRotation(), isLocked());
+        board.setPowered(cell, isPowered());
+        board.setConnections(cell, getConnections());
+        this.board = board;
+        this.cell = cell;
+    }
+
     public boolean[] getConnections() {
-        return connections;
+        return board != null ? board.getConnections(cell) : connections;
     }
 
     public void setConnections(boolean[] connections) {
-        this.connections = connections;
+        if (board != null) board.setConnections(cell, connections);
+        else this.connections = connections;
     }
 
     public TileType getType() {
-        return type;
+        return board != null ? board.getType(cell) : type;
     }
 
     public void setType(TileType type) {
-        this.type = type;
+        if (board != null) board.setType(cell, type);
+        else this.type = type;
     }
 
     public int getRotation() {
-        return rotation;
+        return board != null ? board.getRotation(cell) : rotation;
     }
 
     public void setRotation(int rotation) {
-        this.rotation = rotation;
+        if (board != null) board.setRotation(cell, rotation);
+        else this.rotation = rotation;
     }
 
     public boolean isLocked() {
-        return locked;
+        return board != null ? board.isLocked(cell) : locked;
     }
 
     public void setLocked(boolean locked) {
-        this.locked = locked;
+        if (board != null) board.setLocked(cell, locked);
+        else this.locked = locked;
     }
 
     public boolean isPowered() {
-        return isPowered;
+        return board != null ? board.isPowered(cell) : isPowered;
     }
 
     public void setPowered(boolean powered) {
-        isPowered = powered;
+        if (board != null) board.setPowered(cell, powered);
+        else isPowered = powered;
     }
 
     public void rotate(int degrees) {
+        if (board != null) {
+            board.rotate(cell, degrees);
+            return;
+        }
         if (!locked) {
             this.rotation = (this.rotation + degrees) % 360;
             if (this.rotation < 0) {
@@ -0,0 +1,171 @@
+package com.nets.model;
+
+/**
+ * Board rotations at every interval-th step of a StepTrace, so the board at any
+ * step is one checkpoint copy plus at most interval steps replayed, however
+ * long the trace is.
+ *
+ * A step turns its tile to getRotation() unless it is a REGION step, has no
+ * tile, or is a score (SCORE, or a positive score), the same steps the
+ * visualizer animates. Checkpoints hold one quarter-turn byte per cell. When
+ * they would take more than budgetBytes the interval doubles and every other
+ * checkpoint is dropped (-Dnets.trace.checkpointSteps, default 1024, and
+ * -Dnets.trace.checkpointBytes, default 32 MB).
+ *
+ * Each interval also records which step types it contains, so finding the
+ * next SUCCESS or REGION skips intervals without one.
+ *
+ * Checkpoints are built as far as they are needed, or ahead of time by
+ * extendTo() on another thread while the trace is still filling.
+ */
+public final class TraceCheckpoints {
+    private static final int SLICE = 1 << 16; // steps built per lock hold
+
+    private final StepTrace trace;
+    private final int cols;
+    private final int cells;
+    private final long budgetBytes;
+
+    private int interval;
+    private byte[][] grids = new byte[16][]; // grids[k]: quarter turns after k * interval steps
+    private byte[] typeMasks = new byte[16]; // typeMasks[k]: types among steps of interval k
+    private int count;
+    private final byte[] running;            // quarter turns after builtTo steps
+    private int builtTo;
+
+    public TraceCheckpoints(StepTrace trace, int[][] startRotations) {
+        this(trace, startRotations, Integer.getInteger("nets.trace.checkpointSteps", 1024),
+                Long.getLong("nets.trace.checkpointBytes", 32L << 20));
+    }
+
+    public TraceCheckpoints(StepTrace trace, int[][] startRotations, int interval, long budgetBytes) {
+        this.trace = trace;
+        this.cols = startRotations[0].length;
+        this.cells = startRotations.length * cols;
+        this.interval = Math.max(1, interval);
+        this.budgetBytes = budgetBytes;
+        this.running = new byte[cells];
+        for (int cell = 0; cell < cells; cell++) {
+            running[cell] = (byte) quarterTurns(startRotations[cell / cols][cell % cols]);
+        }
+        grids[0] = running.clone();
+        count = 1;
+    }
+
+    /** Type bit for nextOfType, from a step type name. */
+    public static int typeBit(String type) {
+        int code = StepTrace.typeCode(type);
+        return code < 8 ? 1 << code : 0;
+    }
+
+    public synchronized int getInterval() {
+        return interval;
+    }
+
+    /** Steps covered by checkpoints so far. */
+    public synchronized int getBuiltTo() {
+        return builtTo;
+    }
+
+    // Builds checkpoints up to position (at most the trace's size), a slice at a time so
+    // readers are not held up for long
+    // Time Complexity: O(S) for S new steps, plus O(N) per new checkpoint
+    // Space Complexity: O(N) per new checkpoint
+    public void extendTo(int position) {
+        while (true) {
+            synchronized (this) {
+                int end = Math.min(Math.min(position, trace.size()), builtTo + SLICE);
+                if (builtTo >= end) return;
+                for (int i = builtTo; i < end; i++) {
+                    if (i % interval == 0 && i / interval == count) addCheckpoint(i);
+                    int code = trace.getTypeCode(i);
+                    if (code < 8) typeMasks[i / interval] |= (byte) (1 << code);
+                    int cell = turnedCell(i);
+                    if (cell >= 0) running[cell] = (byte) quarterTurns(trace.getRotation(i));
+                }
+                builtTo = end;
+            }
+        }
+    }
+
+    // Rotation in degrees of every cell (row-major) after the first position steps
+    // Time Complexity: O(N + interval) once built
+    // Space Complexity: O(1)
+    public void rotationsAt(int position, int[] out) {
+        extendTo(position);
+        synchronized (this) {
+            position = Math.min(position, builtTo);
+            int k = Math.min(position / interval, count - 1);
+            byte[] grid = grids[k];
+            for (int cell = 0; cell < cells; cell++) out[cell] = grid[cell] * 90;
+            for (int i = k * interval; i < position; i++) {
+                int cell = turnedCell(i);
+                if (cell >= 0) out[cell] = quarterTurns(trace.getRotation(i)) * 90;
+            }
+        }
+    }
+
+    // Index of the first step at or after from whose type bit is in mask, or -1
+    // Time Complexity: O(S / interval) for intervals without a match, O(interval) for the one with it
+    // Space Complexity: O(1)
+    public int nextOfType(int from, int mask) {
+        extendTo(trace.size());
+        synchronized (this) {
+            int i = Math.max(from, 0);
+            while (i < builtTo) {
+                int k = i / interval;
+                int blockEnd = Math.min((k + 1) * interval, builtTo);
+                if ((typeMasks[k] & mask) != 0) {
+                    for (; i < blockEnd; i++) {
+                        int code = trace.getTypeCode(i);
+                        if (code < 8 && (mask & (1 << code)) != 0) return i;
+                    }
+                }
+                i = blockEnd;
+            }
+            return -1;
+        }
+    }
+
+    // Cell whose rotation step i sets, or -1
+    private int turnedCell(int i) {
+        int row = trace.getRow(i);
+        int col = trace.getCol(i);
+        if (row < 0 || col < 0) return -1;
+        String type = trace.getType(i);
+        if ("REGION".equals(type) || "SCORE".equals(type) || trace.getScore(i) > 0) return -1;
+        return row * cols + col;
+    }
+
+    // Called before step i is applied, so the checkpoint is the board after i steps
+    private void addCheckpoint(int i) {
+        if ((long) (count + 1) * cells > budgetBytes && count >= 2) {
+            thin();
+            if (i % interval != 0 || i / interval != count) return;
+        }
+        if (count == grids.length) {
+            grids = java.util.Arrays.copyOf(grids, count * 2);
+            typeMasks = java.util.Arrays.copyOf(typeMasks, count * 2);
+        }
+        grids[count++] = running.clone();
+    }
+
+    // Doubles the interval: keeps every other checkpoint and merges the type masks
+    private void thin() {
+        int kept = (count + 1) / 2;
+        for (int k = 0; k < kept; k++) {
+            grids[k] = grids[2 * k];
+            typeMasks[k] = (byte) (typeMasks[2 * k] | (2 * k + 1 < typeMasks.length ? typeMasks[2 * k + 1] : 0));
+        }
+        for (int k = kept; k < count; k++) {
+            grids[k] = null;
+            typeMasks[k] = 0;
+        }
+        count = kept;
+        interval *= 2;
+    }
+
+    private static int quarterTurns(int degrees) {
+        return ((degrees / 90) % 4 + 4) % 4;
+    }
+}
@@ -12,6 +12,21 @@ public class VisualStep {
 
     public VisualStep() {}
 
+    public VisualStep(int row, int col, int rotation, String type, double score,
+                      int upmask, int leftreq, int r0, int r1, int c0, int c1) {
+        this.row = row;
+        this.col = col;
+        this.rotation = rotation;
+        this.type = type;
+        this.score = score;
+        this.upmask = upmask;
+        this.leftreq = leftreq;
+        this.r0 = r0;
+        this.r1 = r1;
+        this.c0 = c0;
+        this.c1 = c1;
+    }
+
     public int getRow() { return row; }
     public int getCol() { return col; }
     public int getRotation() { return rotation; }
@@ -0,0 +1,199 @@
+package com.nets.server;
+
+import com.nets.engine.CppEngine;
+import com.nets.metrics.Counter;
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * A fixed set of worker threads, each owning one long-lived CppEngine session,
+ * that run engine jobs for many games.
+ *
+ * Jobs are queued per client (a class, a bot; whoever created the game) and
+ * workers take them round-robin across clients, so a client with a thousand
+ * games waiting does not hold up one with a single game; within a client jobs
+ * run in order. The queue is bounded in total and per client: submit() throws
+ * RejectedExecutionException once either is full, and nothing is queued, so
+ * callers can turn that into a "busy, retry" answer instead of building up
+ * latency. Sizes come from -Dnets.server.engines (default: processors),
+ * -Dnets.server.queue (default 1024) and -Dnets.server.queuePerClient
+ * (default 256).
+ *
+ * Queue wait and job time go to Metrics (server.queue.nanos, server.job.nanos)
+ * with the rejections (server.rejected).
+ */
+public final class EnginePool implements AutoCloseable {
+
+    /** Work for one engine; runs on a worker thread, which has the engine to itself. */
+    @FunctionalInterface
+    public interface Job<T> {
+        T run(CppEngine engine) throws IOException, InterruptedException;
+    }
+
+    private static final Histogram QUEUE_NANOS = Metrics.histogram("server.queue.nanos");
+    private static final Histogram JOB_NANOS = Metrics.histogram("server.job.nanos");
+    private static final Counter REJECTED = Metrics.counter("server.rejected");
+    private static final Counter FAILED = Metrics.counter("server.jobFailures");
+
+    private static final class Task<T> {
+        final Job<T> job;
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        final long queuedAt = System.nanoTime();
+
+        Task(Job<T> job) {
+            this.job = job;
+        }
+
+        void run(CppEngine engine) {
+            long start = System.nanoTime();
+            QUEUE_NANOS.record(start - queuedAt);
+            try {
+                result.complete(job.run(engine));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                result.completeExceptionally(e);
+            } catch (Exception e) {
+                FAILED.increment();
+                result.completeExceptionally(e);
+            } finally {
+                JOB_NANOS.record(System.nanoTime() - start);
+            }
+        }
+    }
+
+    private final int maxQueued;
+    private final int maxPerClient;
+    private final Thread[] workers;
+    private final CppEngine[] engines;
+
+    // Guarded by this: each client's FIFO, and the clients with work in round-robin order
+    private final Map<String, ArrayDeque<Task<?>>> queues = new HashMap<>();
+    private final ArrayDeque<String> ready = new ArrayDeque<>();
+    private int queued;
+    private boolean closed;
+
+    public EnginePool() {
+        this(Integer.getInteger("nets.server.engines", Runtime.getRuntime().availableProcessors()),
+                Integer.getInteger("nets.server.queue", 1024),
+                Integer.getInteger("nets.server.queuePerClient", 256));
+    }
+
+    public EnginePool(int engines, int maxQueued, int maxPerClient) {
+        this.maxQueued = maxQueued;
+        this.maxPerClient = maxPerClient;
+        this.workers = new Thread[Math.max(1, engines)];
+        this.engines = new CppEngine[workers.length];
+        for (int i = 0; i < workers.length; i++) {
+            CppEngine engine = new CppEngine();
+            this.engines[i] = engine;
+            workers[i] = new Thread(() -> work(engine), "nets-engine-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+    }
+
+    // Queues job behind client's earlier ones; throws RejectedExecutionException, queueing
+    // nothing, when the pool or the client's share is full or the pool is closed
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public synchronized <T> CompletableFuture<T> submit(String client, Job<T> job) {
+        if (closed) throw new RejectedExecutionException("Engine pool is closed");
+        ArrayDeque<Task<?>> queue = queues.get(client);
+        if (queued >= maxQueued || (queue != null && queue.size() >= maxPerClient)) {
+            REJECTED.increment();
+            throw new RejectedExecutionException("Engine queue full (" + queued + " jobs waiting)");
+        }
+        if (queue == null) {
+            queue = new ArrayDeque<>();
+            queues.put(client, queue);
+            ready.addLast(client);
+        }
+        Task<T> task = new Task<>(job);
+        queue.addLast(task);
+        queued++;
+        notify();
+        return task.result;
+    }
+
+    public int getEngines() {
+        return workers.length;
+    }
+
+    /** Jobs waiting for a worker. */
+    public synchronized int getQueued() {
+        return queued;
+    }
+
+    /** Engine sessions started by all workers, restarts included. */
+    public int getSpawnCount() {
+        int spawns = 0;
+        for (CppEngine engine : engines) spawns += engine.getSpawnCount();
+        return spawns;
+    }
+
+    // Fails the jobs still queued and stops the workers; a running job finishes first
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            for (ArrayDeque<Task<?>> queue : queues.values()) {
+                for (Task<?> task : queue) task.result.completeExceptionally(new CancellationException("Engine pool closed"));
+            }
+            queues.clear();
+            ready.clear();
+            queued = 0;
+            notifyAll();
+        }
+        for (Thread worker : workers) {
+            try {
+                worker.join(5000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void work(CppEngine engine) {
+        try {
+            while (true) {
+                Task<?> task = next();
+                if (task == null) return;
+                task.run(engine);
+            }
+        } catch (InterruptedException e) {
+            // Pool closed
+        } finally {
+            engine.close();
+        }
+    }
+
+    // The next client's oldest job; the client goes to the back of the line if it has more
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private synchronized Task<?> next() throws InterruptedException {
+        while (ready.isEmpty()) {
+            if (closed) return null;
+            wait();
+        }
+        String client = ready.pollFirst();
+        ArrayDeque<Task<?>> queue = queues.get(client);
+        Task<?> task = queue.pollFirst();
+        if (queue.isEmpty()) {
+            queues.remove(client);
+        } else {
+            ready.addLast(client);
+        }
+        queued--;
+        return task;
+    }
+}
@@ -0,0 +1,418 @@
+package com.nets.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.nets.controller.GameSession;
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.engine.SolvePlans;
+import com.nets.metrics.Counter;
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless host for many independent games behind a loopback HTTP API, with
+ * the CPU's moves computed by an EnginePool.
+ *
+ * Each game is a GameSession, as in SelfPlay; a human move is applied on the
+ * HTTP thread and the CPU's reply is queued on the pool under the game's
+ * client, and the HTTP answer goes out, from an HTTP thread, when that reply
+ * has been applied. HTTP threads never wait on the engine, and engine workers
+ * never write to a client. When the pool's queue is full the move is refused
+ * with 503 before anything is applied, so the client can retry it as is.
+ *
+ * API (parameters in the query string, answers in JSON):
+ *   POST   /games?rows=&cols=&seed=&algorithm=&client=   new game (201)
+ *   GET    /games/{id}                                   board, turn and stats
+ *   POST   /games/{id}/move?row=&col=&degrees=           human move, then the CPU's
+ *   DELETE /games/{id}                                   end the game (204)
+ *   GET    /games                                        server totals
+ *   GET    /metrics                                      Metrics dump (text)
+ * Errors are 400 (bad parameters), 404 (no such game), 409 (not the human's
+ * turn, a locked or empty tile, game over), 502 (engine failure) and 503
+ * (server full or busy, with Retry-After).
+ *
+ * Games idle for -Dnets.server.idleSeconds (default 900) are dropped; at most
+ * -Dnets.server.maxGames (default 10000) are held, each side at most
+ * -Dnets.server.maxSide (default 50). The server binds to the loopback
+ * address only.
+ *
+ * Usage: java ... com.nets.server.GameServer [port]
+ */
+public final class GameServer implements AutoCloseable {
+    private static final Set<String> ALGORITHMS = Set.of("greedy", "backtracking", "dp", "divideandconquer");
+
+    private static final Histogram MOVE_NANOS = Metrics.histogram("server.move.nanos");
+    private static final Counter CREATED = Metrics.counter("server.gamesCreated");
+    private static final Counter EVICTED = Metrics.counter("server.gamesEvicted");
+
+    private final EnginePool pool;
+    private final HttpServer http;
+    private final ExecutorService httpThreads;
+    private final ScheduledExecutorService sweeper;
+    private final Map<Long, HostedGame> games = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final int maxGames = Integer.getInteger("nets.server.maxGames", 10_000);
+    private final int maxSide = Integer.getInteger("nets.server.maxSide", 50);
+    private final long idleNanos = TimeUnit.SECONDS.toNanos(Long.getLong("nets.server.idleSeconds", 900));
+
+    /** Starts serving on the loopback address; port 0 picks a free one. */
+    public GameServer(int port, EnginePool pool) throws IOException {
+        this.pool = pool;
+        this.http = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        this.httpThreads = Executors.newFixedThreadPool(Integer.getInteger("nets.server.httpThreads", 4), r -> {
+            Thread t = new Thread(r, "nets-http");
+            t.setDaemon(true);
+            return t;
+        });
+        http.setExecutor(httpThreads);
+        http.createContext("/games", this::handleGames);
+        http.createContext("/metrics", exchange -> send(exchange, 200, "text/plain", Metrics.dump()));
+        http.start();
+
+        sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "nets-idle-games");
+            t.setDaemon(true);
+            return t;
+        });
+        sweeper.scheduleAtFixedRate(this::evictIdle, 60, 60, TimeUnit.SECONDS);
+    }
+
+    public int getPort() {
+        return http.getAddress().getPort();
+    }
+
+    public int getGameCount() {
+        return games.size();
+    }
+
+    @Override
+    public void close() {
+        http.stop(0);
+        sweeper.shutdownNow();
+        httpThreads.shutdownNow();
+        pool.close();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("nets.server.port", 8090);
+        EnginePool pool = new EnginePool();
+        GameServer server = new GameServer(port, pool);
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.printf("Nets server on http://127.0.0.1:%d/games with %d engines%n", server.getPort(),
+                pool.getEngines());
+    }
+
+    // Routes /games, /games/{id} and /games/{id}/move
+    private void handleGames(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/"); // "", "games", id, action
+            String method = exchange.getRequestMethod();
+            Map<String, String> params = query(exchange);
+            if (path.length == 2) {
+                if ("POST".equals(method)) {
+                    create(exchange, params);
+                } else if ("GET".equals(method)) {
+                    JsonObject totals = new JsonObject();
+                    totals.addProperty("games", games.size());
+                    totals.addProperty("queued", pool.getQueued());
+                    totals.addProperty("engines", pool.getEngines());
+                    send(exchange, 200, totals);
+                } else {
+                    error(exchange, 405, "Use GET or POST");
+                }
+                return;
+            }
+            HostedGame game = games.get(parseId(path[2]));
+            if (game == null) {
+                error(exchange, 404, "No game " + path[2]);
+                return;
+            }
+            game.lastUsedNanos = System.nanoTime();
+            if (path.length == 3 && "GET".equals(method)) {
+                JsonObject json;
+                synchronized (game) {
+                    json = describe(game);
+                }
+                send(exchange, 200, json);
+            } else if (path.length == 3 && "DELETE".equals(method)) {
+                games.remove(game.id);
+                send(exchange, 204, "application/json", null);
+            } else if (path.length == 4 && "move".equals(path[3]) && "POST".equals(method)) {
+                move(exchange, game, params);
+            } else {
+                error(exchange, 404, "Unknown request " + method + " " + exchange.getRequestURI().getPath());
+            }
+        } catch (IllegalArgumentException e) {
+            error(exchange, 400, e.getMessage());
+        } catch (RuntimeException e) {
+            error(exchange, 500, String.valueOf(e));
+        }
+    }
+
+    // Time Complexity: O(N) to generate the puzzle
+    // Space Complexity: O(N)
+    private void create(HttpExchange exchange, Map<String, String> params) throws IOException {
+        int rows = intParam(params, "rows", 5);
+        int cols = intParam(params, "cols", rows);
+        if (rows < 2 || cols < 2 || rows > maxSide || cols > maxSide) {
+            throw new IllegalArgumentException("rows and cols must be 2.." + maxSide);
+        }
+        String algorithm = params.getOrDefault("algorithm", "greedy");
+        if (!ALGORITHMS.contains(algorithm)) throw new IllegalArgumentException("Unknown algorithm " + algorithm);
+        String client = params.getOrDefault("client", "anonymous");
+        if (games.size() >= maxGames) {
+            busy(exchange, "Server holds " + games.size() + " games");
+            return;
+        }
+        int seed = params.containsKey("seed") ? intParam(params, "seed", 0) : ThreadLocalRandom.current().nextInt();
+
+        HostedGame game = new HostedGame(nextId.getAndIncrement(), client, algorithm,
+                GameSession.generate(rows, cols, seed));
+        games.put(game.id, game);
+        CREATED.increment();
+        JsonObject json;
+        synchronized (game) {
+            json = describe(game);
+        }
+        send(exchange, 201, json);
+    }
+
+    // Applies the human move and queues the CPU's; the answer is sent once the CPU has moved
+    // (or straight away when the human's move won)
+    // Time Complexity: O(affected sub-network) here; the CPU move runs on the pool
+    // Space Complexity: O(1)
+    private void move(HttpExchange exchange, HostedGame game, Map<String, String> params) throws IOException {
+        long start = System.nanoTime();
+        int row = intParam(params, "row", -1);
+        int col = intParam(params, "col", -1);
+        int degrees = intParam(params, "degrees", 90);
+        if (degrees % 90 != 0) throw new IllegalArgumentException("degrees must be a multiple of 90");
+
+        CompletableFuture<Move> cpu;
+        Move human;
+        synchronized (game) {
+            GameSession session = game.session;
+            PackedBoard board = session.getState().getBoard();
+            if (row < 0 || col < 0 || row >= board.getRows() || col >= board.getCols()) {
+                throw new IllegalArgumentException("No tile at (" + row + ", " + col + ")");
+            }
+            String conflict = !session.isPlaying() ? "The game is over"
+                    : !session.isHumanTurn() || game.cpuPending ? "It is the CPU's turn"
+                    : board.isEmpty(board.index(row, col)) ? "The tile is empty"
+                    : board.isLocked(board.index(row, col)) ? "The tile is locked" : null;
+            if (conflict != null) {
+                error(exchange, 409, conflict);
+                return;
+            }
+            try {
+                cpu = pool.submit(game.client, engine -> cpuMove(game, engine));
+            } catch (RejectedExecutionException e) {
+                busy(exchange, e.getMessage());
+                return;
+            }
+            // The job snapshots the board under this lock, so it sees the human's move
+            boolean won = session.humanMove(row, col, degrees);
+            game.cpuPending = !won;
+            human = session.getState().getLastMove();
+        }
+
+        // Answered on an HTTP thread: a slow client must not hold up the engine worker
+        cpu.whenCompleteAsync((move, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null
+                            ? error.getCause() : error;
+                    error(exchange, 502, "CPU move failed: " + cause);
+                    return;
+                }
+                JsonObject json;
+                synchronized (game) {
+                    json = describeTurn(game, human, move);
+                }
+                send(exchange, 200, json);
+                MOVE_NANOS.record(System.nanoTime() - start);
+            } catch (IOException e) {
+                // The client went away
+            }
+        }, httpThreads);
+    }
+
+    // Runs on a pool worker: snapshot under the game's lock, engine call outside it, then the
+    // move is applied under the lock again. Null when there was nothing to answer.
+    // Time Complexity: O(N) for the snapshot plus the engine's work
+    // Space Complexity: O(N)
+    private static Move cpuMove(HostedGame game, CppEngine engine)
+            throws IOException, InterruptedException {
+        GameState snapshot;
+        synchronized (game) {
+            if (!game.cpuPending) return null; // the human's move won
+            snapshot = game.session.snapshot();
+        }
+        try {
+            SolvePlans.EngineCall call = (action, a, visualize, state) -> engine.request(action, a, visualize, state);
+            EngineResponse planned = game.plans.nextMove(call, game.algorithm, snapshot);
+            EngineResponse response = planned != null ? planned
+                    : engine.request("get_cpu_move", game.algorithm, false, snapshot);
+            Move move = response.getMove();
+            synchronized (game) {
+                game.session.cpuMove(move);
+                game.cpuPending = false;
+            }
+            return move;
+        } catch (IOException | RuntimeException e) {
+            synchronized (game) {
+                game.session.getState().getMeta().setTurn("HUMAN"); // the human may move again
+                game.cpuPending = false;
+            }
+            throw e;
+        }
+    }
+
+    private void evictIdle() {
+        long now = System.nanoTime();
+        games.values().removeIf(game -> {
+            boolean idle = now - game.lastUsedNanos > idleNanos;
+            if (idle) EVICTED.increment();
+            return idle;
+        });
+    }
+
+    // Time Complexity: O(N)
+    // Space Complexity: O(N)
+    private static JsonObject describe(HostedGame game) {
+        GameState state = game.session.getState();
+        PackedBoard board = state.getBoard();
+        JsonObject json = status(game);
+        json.addProperty("client", game.client);
+        json.addProperty("algorithm", game.algorithm);
+        json.addProperty("rows", board.getRows());
+        json.addProperty("cols", board.getCols());
+        JsonArray types = new JsonArray();
+        JsonArray rotations = new JsonArray();
+        JsonArray locked = new JsonArray();
+        JsonArray powered = new JsonArray();
+        for (int cell = 0; cell < board.size(); cell++) {
+            types.add(board.getType(cell).name());
+            rotations.add(board.getRotation(cell));
+            locked.add(board.isLocked(cell));
+            powered.add(board.isPowered(cell));
+        }
+        json.add("types", types);
+        json.add("rotations", rotations);
+        json.add("locked", locked);
+        json.add("powered", powered);
+        return json;
+    }
+
+    private static JsonObject describeTurn(HostedGame game, Move human, Move cpu) {
+        JsonObject json = status(game);
+        json.add("human", move(human));
+        json.add("cpu", cpu != null ? move(cpu) : null);
+        return json;
+    }
+
+    private static JsonObject status(HostedGame game) {
+        GameState state = game.session.getState();
+        JsonObject json = new JsonObject();
+        json.addProperty("id", game.id);
+        json.addProperty("status", state.getMeta().getStatus());
+        json.addProperty("turn", game.cpuPending ? "CPU" : state.getMeta().getTurn());
+        json.addProperty("components", state.getStats().getComponents());
+        json.addProperty("looseEnds", state.getStats().getLooseEnds());
+        json.addProperty("solved", state.getStats().isSolved());
+        return json;
+    }
+
+    private static JsonObject move(Move move) {
+        JsonObject json = new JsonObject();
+        json.addProperty("row", move.getRow());
+        json.addProperty("col", move.getCol());
+        json.addProperty("rotation", move.getRotation());
+        return json;
+    }
+
+    private static Map<String, String> query(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) return params;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String key = URLDecoder.decode(eq < 0 ? pair : pair.substring(0, eq), StandardCharsets.UTF_8);
+            String value = eq < 0 ? "" : URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8);
+            params.put(key, value);
+        }
+        return params;
+    }
+
+    private static int intParam(Map<String, String> params, String name, int fallback) {
+        String value = params.get(name);
+        if (value == null) return fallback;
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(name + " must be an integer");
+        }
+    }
+
+    private static long parseId(String id) {
+        try {
+            return Long.parseLong(id);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static void busy(HttpExchange exchange, String message) throws IOException {
+        exchange.getResponseHeaders().set("Retry-After", "1");
+        error(exchange, 503, message);
+    }
+
+    private static void error(HttpExchange exchange, int code, String message) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty("error", message);
+        send(exchange, code, json);
+    }
+
+    private static void send(HttpExchange exchange, int code, JsonObject json) throws IOException {
+        send(exchange, code, "application/json", json.toString());
+    }
+
+    private static void send(HttpExchange exchange, int code, String contentType, String body) throws IOException {
+        try (exchange) {
+            byte[] bytes = body != null ? body.getBytes(StandardCharsets.UTF_8) : new byte[0];
+            exchange.getResponseHeaders().set("Content-Type", contentType + "; charset=utf-8");
+            exchange.sendResponseHeaders(code, bytes.length > 0 ? bytes.length : -1);
+            if (bytes.length > 0) {
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(bytes);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.nets.server;
+
+import com.nets.controller.GameSession;
+import com.nets.engine.SolvePlans;
+
+/**
+ * One game on the server: its GameSession, the client it belongs to, the CPU
+ * algorithm and that algorithm's solve plan. The session is guarded by this
+ * object's lock; cpuPending is set from the human move until the CPU's answer
+ * is applied, so a second human move cannot slip in between.
+ */
+final class HostedGame {
+    final long id;
+    final String client;
+    final String algorithm;
+    final GameSession session;
+    final SolvePlans plans = new SolvePlans();
+
+    boolean cpuPending;         // guarded by this
+    volatile long lastUsedNanos; // for idle eviction
+
+    HostedGame(long id, String client, String algorithm, GameSession session) {
+        this.id = id;
+        this.client = client;
+        this.algorithm = algorithm;
+        this.session = session;
+        this.lastUsedNanos = System.nanoTime();
+    }
+}
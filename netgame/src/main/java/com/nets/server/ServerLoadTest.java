@@ -0,0 +1,201 @@
+package com.nets.server;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nets.metrics.Metrics;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Load test for GameServer: starts a server with its EnginePool in this JVM,
+ * then raises the number of open games step by step and, at each step, has a
+ * fixed number of client threads play moves over loopback HTTP for a while.
+ *
+ * Each client thread owns a share of the games and plays them round-robin: a
+ * random movable tile is turned and the request returns once the CPU has
+ * answered, so one request is two moves. Games that end are replaced. Games
+ * belong to four clients, so the pool's fair queuing is exercised.
+ *
+ * Reports per step: sustained turns (human move plus CPU reply) per second,
+ * request latency (p50, p99, p99.9, max), 503 busy answers, and heap in use.
+ *
+ * Usage: java ... com.nets.server.ServerLoadTest [seconds] [threads] [size] [algorithm] [games...]
+ * Defaults: 10 s per step, 16 client threads, 5x5 boards, greedy, 10 100 1000 5000 games.
+ * Pool sizes come from the -Dnets.server.* properties (see EnginePool).
+ */
+public class ServerLoadTest {
+    private static final int CLIENTS = 4;
+
+    /** A game as a client sees it: enough to pick legal moves. */
+    private static final class ClientGame {
+        long id;
+        int cols;
+        int[] movable;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 16;
+        int size = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        String algorithm = args.length > 3 ? args[3] : "greedy";
+        int[] steps = args.length > 4 ? Arrays.stream(args, 4, args.length).mapToInt(Integer::parseInt).toArray()
+                : new int[]{10, 100, 1000, 5000};
+
+        try (EnginePool pool = new EnginePool(); GameServer server = new GameServer(0, pool)) {
+            String base = "http://127.0.0.1:" + server.getPort();
+            System.out.printf("%d engines, %d client threads, %dx%d %s, %d s per step%n", pool.getEngines(), threads,
+                    size, size, algorithm, seconds);
+            System.out.printf("%8s %10s %9s %9s %9s %9s %8s %9s%n", "games", "turns/s", "p50 ms", "p99 ms",
+                    "p99.9 ms", "max ms", "busy", "heap MB");
+
+            List<ClientGame> games = new ArrayList<>();
+            for (int target : steps) {
+                while (games.size() < target) {
+                    games.add(create(base, size, algorithm, "client-" + games.size() % CLIENTS));
+                }
+                run(base, games, threads, seconds, size, algorithm);
+            }
+            System.out.printf("%nengine sessions started: %d%n%n", pool.getSpawnCount());
+            System.out.print(Metrics.dump());
+        }
+    }
+
+    // Plays for seconds with threads clients, each on its share of games, and prints one row
+    private static void run(String base, List<ClientGame> games, int threads, int seconds, int size,
+                            String algorithm) throws InterruptedException {
+        int workers = Math.min(threads, games.size());
+        double[][] latencies = new double[workers][];
+        int[] counts = new int[workers];
+        Exception[] failures = new Exception[workers];
+        AtomicLong busy = new AtomicLong();
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+
+        Thread[] clients = new Thread[workers];
+        for (int w = 0; w < workers; w++) {
+            int worker = w;
+            clients[w] = new Thread(() -> {
+                SplittableRandom rand = new SplittableRandom(worker);
+                double[] own = new double[1024];
+                int n = 0;
+                int next = worker;
+                try {
+                    while (System.nanoTime() < end) {
+                        ClientGame game = games.get(next);
+                        long t0 = System.nanoTime();
+                        int cell = game.movable[rand.nextInt(game.movable.length)];
+                        Reply reply = call("POST", base + "/games/" + game.id + "/move?row=" + cell / game.cols
+                                + "&col=" + cell % game.cols + "&degrees=90");
+                        if (reply.code == 503) {
+                            busy.incrementAndGet();
+                            Thread.sleep(1);
+                            continue;
+                        }
+                        if (reply.code != 200) throw new IllegalStateException("Move failed: " + reply);
+                        if (n == own.length) own = Arrays.copyOf(own, 2 * n);
+                        own[n++] = (System.nanoTime() - t0) / 1e6;
+                        if (!"PLAYING".equals(reply.json.get("status").getAsString())) {
+                            call("DELETE", base + "/games/" + game.id);
+                            games.set(next, create(base, size, algorithm, "client-" + next % CLIENTS));
+                        }
+                        next += workers;
+                        if (next >= games.size()) next = worker;
+                    }
+                } catch (Exception e) {
+                    failures[worker] = e; // rethrown once every client has stopped
+                    return;
+                }
+                latencies[worker] = own;
+                counts[worker] = n;
+            }, "load-client-" + w);
+            clients[w].start();
+        }
+        for (Thread client : clients) client.join();
+        IllegalStateException failed = null;
+        for (Exception e : failures) {
+            if (e == null) continue;
+            if (failed == null) failed = new IllegalStateException("Load client failed: " + e, e);
+            else failed.addSuppressed(e);
+        }
+        if (failed != null) throw failed;
+
+        int total = 0;
+        for (int count : counts) total += count;
+        double[] all = new double[total];
+        int at = 0;
+        for (int w = 0; w < workers; w++) {
+            System.arraycopy(latencies[w], 0, all, at, counts[w]);
+            at += counts[w];
+        }
+        Arrays.sort(all);
+        System.gc();
+        Runtime rt = Runtime.getRuntime();
+        System.out.printf("%8d %10.0f %9.2f %9.2f %9.2f %9.2f %8d %9.0f%n", games.size(), (double) total / seconds,
+                percentile(all, 0.5), percentile(all, 0.99), percentile(all, 0.999), percentile(all, 1),
+                busy.get(), (rt.totalMemory() - rt.freeMemory()) / 1e6);
+    }
+
+    private static ClientGame create(String base, int size, String algorithm, String client) throws IOException {
+        Reply reply = call("POST", base + "/games?rows=" + size + "&cols=" + size + "&algorithm=" + algorithm
+                + "&client=" + client);
+        if (reply.code != 201) throw new IllegalStateException("Create failed: " + reply);
+        ClientGame game = new ClientGame();
+        game.id = reply.json.get("id").getAsLong();
+        game.cols = reply.json.get("cols").getAsInt();
+        JsonArray types = reply.json.getAsJsonArray("types");
+        JsonArray locked = reply.json.getAsJsonArray("locked");
+        int[] movable = new int[types.size()];
+        int n = 0;
+        for (int cell = 0; cell < types.size(); cell++) {
+            if (!"EMPTY".equals(types.get(cell).getAsString()) && !locked.get(cell).getAsBoolean()) movable[n++] = cell;
+        }
+        game.movable = Arrays.copyOf(movable, n);
+        return game;
+    }
+
+    private static final class Reply {
+        int code;
+        JsonObject json;
+
+        @Override
+        public String toString() {
+            return code + " " + json;
+        }
+    }
+
+    private static Reply call(String method, String url) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod(method);
+        Reply reply = new Reply();
+        reply.code = connection.getResponseCode();
+        InputStream in = reply.code < 400 ? connection.getInputStream() : connection.getErrorStream();
+        if (in != null) {
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (in) {
+                in.transferTo(body);
+            }
+            String text = body.toString(StandardCharsets.UTF_8);
+            if (!text.isEmpty()) {
+                JsonElement json = JsonParser.parseString(text);
+                reply.json = json.isJsonObject() ? json.getAsJsonObject() : null;
+            }
+        }
+        return reply;
+    }
+
+    private static double percentile(double[] sorted, double p) {
+        if (sorted.length == 0) return 0;
+        return sorted[(int) (p * (sorted.length - 1))];
+    }
+}
@@ -0,0 +1,311 @@
+package com.nets.view;
+
+import com.nets.metrics.BoardRedrawEvent;
+import com.nets.model.PackedBoard;
+import com.nets.model.TileType;
+import javafx.animation.AnimationTimer;
+import javafx.scene.Cursor;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+
+import java.util.BitSet;
+
+/**
+ * The game board drawn on a single Canvas: one node and one set of mouse
+ * handlers however many cells there are.
+ *
+ * Cells are laid out like the old GridPane (PADDING around, GAP between).
+ * Changes only mark cells dirty (markDirty, setRotationAnimated); dirty cells
+ * are redrawn once on the next pulse, so a move redraws the tiles it changed
+ * and nothing else. Rotation animations run on the same pulse.
+ *
+ * Clicks and hovering map to cells by arithmetic on the mouse position.
+ * A full redraw is recorded as a com.nets.BoardRedraw JFR event.
+ */
+public class BoardCanvas extends Region {
+
+    @FunctionalInterface
+    public interface CellHandler {
+        void handle(int row, int col, MouseEvent event);
+    }
+
+    @FunctionalInterface
+    public interface CellFilter {
+        boolean test(int row, int col);
+    }
+
+    public static final double GAP = 2;
+    public static final double PADDING = 10;
+
+    private static final Color BOARD_COLOR = Color.web("#16213e");
+    private static final Color HOVER_SHADE = Color.web("#16213e", 0.2); // a tile at 0.8 opacity
+
+    private final Canvas canvas = new Canvas();
+    private PackedBoard board;
+    private int rows;
+    private int cols;
+    private double tileSize = 10;
+
+    private int cells;
+    private double[] visual = new double[0]; // rotation drawn per cell, in degrees
+    private final BitSet dirty = new BitSet();
+    private boolean fullRedraw;
+    private long tilesDrawn;
+
+    // Rotation animations, indexed by cell
+    private final BitSet spinning = new BitSet();
+    private double[] spinFrom = new double[0];
+    private double[] spinTo = new double[0];
+    private double[] spinMs = new double[0];
+    private long[] spinStart = new long[0];  // pulse time of the first frame, 0 before it
+
+    private int hovered = -1;
+    private CellFilter hoverable = (row, col) -> false;
+    private CellHandler onCellClicked;
+
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            render(now);
+        }
+    };
+    private boolean pulseRunning;
+
+    public BoardCanvas() {
+        getChildren().add(canvas);
+        setMinSize(USE_PREF_SIZE, USE_PREF_SIZE);
+        setMaxSize(USE_PREF_SIZE, USE_PREF_SIZE);
+
+        canvas.setOnMouseClicked(e -> {
+            int cell = cellAt(e.getX(), e.getY());
+            if (cell >= 0 && onCellClicked != null) onCellClicked.handle(cell / cols, cell % cols, e);
+        });
+        canvas.setOnMouseMoved(e -> hover(cellAt(e.getX(), e.getY())));
+        canvas.setOnMouseExited(e -> hover(-1));
+    }
+
+    /** Shows board (the live game or another board, such as the solution) from scratch. */
+    public void setBoard(PackedBoard board) {
+        this.board = board;
+        if (board.getRows() != rows || board.getCols() != cols) {
+            rows = board.getRows();
+            cols = board.getCols();
+            cells = rows * cols;
+            visual = new double[cells];
+            spinFrom = new double[cells];
+            spinTo = new double[cells];
+            spinMs = new double[cells];
+            spinStart = new long[cells];
+            hovered = -1;
+            resizeCanvas();
+        }
+        spinning.clear();
+        for (int cell = 0; cell < cells; cell++) {
+            visual[cell] = board.getRotation(cell);
+        }
+        fullRedraw = true;
+        schedule();
+    }
+
+    public PackedBoard getBoard() {
+        return board;
+    }
+
+    public void setTileSize(double size) {
+        if (size == tileSize) return;
+        tileSize = size;
+        resizeCanvas();
+        fullRedraw = true;
+        schedule();
+    }
+
+    public double getTileSize() {
+        return tileSize;
+    }
+
+    public void setOnCellClicked(CellHandler handler) {
+        this.onCellClicked = handler;
+    }
+
+    /** Cells that take the hover shade and hand cursor under the mouse. */
+    public void setHoverable(CellFilter filter) {
+        this.hoverable = filter != null ? filter : (row, col) -> false;
+    }
+
+    /** Redraws one cell on the next pulse; a cell being animated keeps its animation. */
+    public void markDirty(int row, int col) {
+        int cell = row * cols + col;
+        if (!spinning.get(cell)) visual[cell] = board.getRotation(cell);
+        dirty.set(cell);
+        schedule();
+    }
+
+    // Turns the drawn tile to targetRotation over durationMs, clockwise or back, the same
+    // way TileView.setRotationAnimated does
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    public void setRotationAnimated(int row, int col, int targetRotation, double durationMs, boolean clockwise) {
+        int cell = row * cols + col;
+        double start = visual[cell];
+        double finalTarget = ((targetRotation % 360) + 360) % 360;
+        double startNormalized = ((start % 360) + 360) % 360;
+        double diff = finalTarget - startNormalized;
+        if (clockwise) {
+            if (diff < 0) diff += 360;
+        } else {
+            if (diff > 0) diff -= 360;
+        }
+        dirty.set(cell);
+        if (durationMs <= 0 || diff == 0) {
+            spinning.clear(cell);
+            visual[cell] = finalTarget;
+        } else {
+            spinning.set(cell);
+            spinFrom[cell] = start;
+            spinTo[cell] = start + diff;
+            spinMs[cell] = durationMs;
+            spinStart[cell] = 0;
+        }
+        schedule();
+    }
+
+    /** Tiles drawn since the board was created, for measuring redraw cost. */
+    public long getTilesDrawn() {
+        return tilesDrawn;
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return extent(cols);
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return extent(rows);
+    }
+
+    @Override
+    protected void layoutChildren() {
+        canvas.relocate(0, 0);
+    }
+
+    private double extent(int count) {
+        return 2 * PADDING + count * tileSize + Math.max(0, count - 1) * GAP;
+    }
+
+    private void resizeCanvas() {
+        canvas.setWidth(extent(cols));
+        canvas.setHeight(extent(rows));
+        requestLayout();
+    }
+
+    // Cell under (x, y) in canvas coordinates, or -1 over padding or gaps
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    private int cellAt(double x, double y) {
+        double pitch = tileSize + GAP;
+        double dx = x - PADDING;
+        double dy = y - PADDING;
+        if (dx < 0 || dy < 0) return -1;
+        int col = (int) (dx / pitch);
+        int row = (int) (dy / pitch);
+        if (row >= rows || col >= cols) return -1;
+        if (dx - col * pitch >= tileSize || dy - row * pitch >= tileSize) return -1;
+        return row * cols + col;
+    }
+
+    private void hover(int cell) {
+        if (cell >= 0 && !hoverable.test(cell / cols, cell % cols)) cell = -1;
+        if (cell == hovered) return;
+        if (hovered >= 0) dirty.set(hovered);
+        if (cell >= 0) dirty.set(cell);
+        hovered = cell;
+        canvas.setCursor(cell >= 0 ? Cursor.HAND : Cursor.DEFAULT);
+        schedule();
+    }
+
+    private void schedule() {
+        if (!pulseRunning) {
+            pulseRunning = true;
+            pulse.start();
+        }
+    }
+
+    // Advances animations and draws the dirty cells; stops the pulse once nothing moves
+    // Time Complexity: O(D + A) for D dirty cells and A animations, O(N) for a full redraw
+    // Space Complexity: O(1)
+    private void render(long now) {
+        if (board == null) {
+            pulse.stop();
+            pulseRunning = false;
+            return;
+        }
+        for (int cell = spinning.nextSetBit(0); cell >= 0; cell = spinning.nextSetBit(cell + 1)) {
+            if (spinStart[cell] == 0) spinStart[cell] = now;
+            double t = (now - spinStart[cell]) / 1e6 / spinMs[cell];
+            if (t >= 1) {
+                visual[cell] = ((spinTo[cell] % 360) + 360) % 360;
+                spinning.clear(cell);
+            } else {
+                visual[cell] = spinFrom[cell] + (spinTo[cell] - spinFrom[cell]) * t;
+            }
+            dirty.set(cell);
+        }
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        BoardRedrawEvent event = null;
+        if (fullRedraw) {
+            event = new BoardRedrawEvent();
+            event.begin();
+            gc.setFill(BOARD_COLOR);
+            gc.fillRect(0, 0, canvas.getWidth(), canvas.getHeight());
+            dirty.set(0, cells);
+            fullRedraw = false;
+        }
+        for (int cell = dirty.nextSetBit(0); cell >= 0; cell = dirty.nextSetBit(cell + 1)) {
+            drawCell(gc, cell);
+        }
+        dirty.clear();
+        if (event != null) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.rows = rows;
+                event.cols = cols;
+                event.tileSize = tileSize;
+                event.sprites = TilePainter.SPRITES;
+                event.commit();
+            }
+        }
+
+        if (spinning.isEmpty()) {
+            pulse.stop();
+            pulseRunning = false;
+        }
+    }
+
+    private void drawCell(GraphicsContext gc, int cell) {
+        double pitch = tileSize + GAP;
+        double x = PADDING + (cell % cols) * pitch;
+        double y = PADDING + (cell / cols) * pitch;
+        TileType type = board.getType(cell);
+
+        gc.save();
+        if (!TilePainter.SPRITES) {
+            gc.beginPath();
+            gc.rect(x, y, tileSize, tileSize);
+            gc.clip(); // round line caps must not spill into the gap or the next tile; sprites are already clipped
+        }
+        TilePainter.paint(gc, x, y, tileSize, type, board.isPowered(cell), board.isLocked(cell),
+                board.hasCustomConnections(cell) ? board.baseMask(cell) : 0, visual[cell]);
+        if (cell == hovered) {
+            gc.setFill(HOVER_SHADE);
+            gc.fillRect(x, y, tileSize, tileSize);
+        }
+        gc.restore();
+
+        tilesDrawn++;
+    }
+}
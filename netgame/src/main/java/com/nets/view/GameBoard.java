@@ -1,11 +1,11 @@
 package com.nets.view;
 
+import com.nets.model.BoardListener;
 import com.nets.model.GameState;
+import com.nets.model.PackedBoard;
 import com.nets.model.Stats;
-import com.nets.model.Tile;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
-import javafx.scene.layout.GridPane;
 import javafx.scene.layout.VBox;
 import javafx.scene.control.Label;
 import javafx.scene.paint.Color;
@@ -15,13 +15,52 @@ import javafx.scene.text.FontWeight;
 import javafx.stage.Screen;
 import javafx.geometry.Rectangle2D;
 
+/**
+ * The game screen: status line, board and stats. It listens to the loaded game
+ * (see BoardListener), so a move redraws the turned tile and the tiles whose
+ * power flipped, and the labels change with the status and stats.
+ */
 public class GameBoard extends VBox {
-    private GridPane gridPane;
-    private TileView[][] tileViews;
+    private static final double HUMAN_TURN_MS = 150;
+    private static final double CPU_TURN_MS = 300;
+
+    private BoardCanvas boardCanvas;
     private Label statusLabel;
     private Label statsLabel;
     private GameState gameState;
     private javafx.scene.layout.HBox middleContainer;
+    private long cellsRedrawn; // cells invalidated by game events, for the redraw count per move
+
+    // Redraws only the cells the game reports; events for a board that is not showing
+    // (while the solution is up) are dropped, showGameBoard() draws it afresh
+    private final BoardListener changes = new BoardListener() {
+        @Override
+        public void tileRotated(int cell) {
+            if (!showingGame()) return;
+            PackedBoard board = gameState.getBoard();
+            double ms = "CPU".equals(gameState.getMeta().getTurn()) ? CPU_TURN_MS : HUMAN_TURN_MS;
+            boardCanvas.setRotationAnimated(cell / board.getCols(), cell % board.getCols(), board.getRotation(cell), ms, true);
+            cellsRedrawn++;
+        }
+
+        @Override
+        public void poweredChanged(int cell) {
+            tileChanged(cell);
+        }
+
+        @Override
+        public void tileChanged(int cell) {
+            if (!showingGame()) return;
+            int cols = gameState.getBoard().getCols();
+            boardCanvas.markDirty(cell / cols, cell % cols);
+            cellsRedrawn++;
+        }
+
+        @Override
+        public void statusChanged() {
+            updateUI();
+        }
+    };
 
     public GameBoard() {
         setSpacing(20);
@@ -37,15 +76,10 @@ public class GameBoard extends VBox {
         middleContainer = new javafx.scene.layout.HBox(80);
         middleContainer.setAlignment(Pos.CENTER);
 
-        // Grid pane
-        gridPane = new GridPane();
-        gridPane.setHgap(2);
-        gridPane.setVgap(2);
-        gridPane.setAlignment(Pos.CENTER);
-        gridPane.setStyle("-fx-background-color: #16213e;");
-        gridPane.setPadding(new Insets(10));
+        // The whole grid on one canvas
+        boardCanvas = new BoardCanvas();
         
-        middleContainer.getChildren().add(gridPane);
+        middleContainer.getChildren().add(boardCanvas);
 
         // Stats label
         statsLabel = new Label();
@@ -68,16 +102,9 @@ public class GameBoard extends VBox {
         statusLabel.setFont(Font.font("Arial", FontWeight.BOLD, baseSize * 0.035));
         statsLabel.setFont(Font.font("Arial", FontWeight.NORMAL, baseSize * 0.02));
 
-        // Resize tiles
-        if (gameState != null && tileViews != null) {
-            double tileSize = calculateTileSize(gameState.getMeta().getWidth(), gameState.getMeta().getHeight());
-            for (int row = 0; row < tileViews.length; row++) {
-                for (int col = 0; col < tileViews[row].length; col++) {
-                    if (tileViews[row][col] != null) {
-                        tileViews[row][col].setSize(tileSize);
-                    }
-                }
-            }
+        // Resize tiles; the canvas redraws only when the size really changes
+        if (gameState != null) {
+            boardCanvas.setTileSize(calculateTileSize(gameState.getMeta().getWidth(), gameState.getMeta().getHeight()));
         }
     }
 
@@ -112,23 +139,11 @@ public class GameBoard extends VBox {
     }
 
     public void loadGameState(GameState state) {
+        if (gameState != null) gameState.setListener(null);
         this.gameState = state;
-        gridPane.getChildren().clear();
-
-        int height = state.getMeta().getHeight();
-        int width = state.getMeta().getWidth();
-        tileViews = new TileView[height][width];
-
-        double tileSize = calculateTileSize(width, height);
-
-        for (int row = 0; row < height; row++) {
-            for (int col = 0; col < width; col++) {
-                Tile tile = state.getGrid()[row][col];
-                TileView tileView = new TileView(tile, row, col, tileSize);
-                tileViews[row][col] = tileView;
-                gridPane.add(tileView, col, row);
-            }
-        }
+        state.setListener(changes);
+        boardCanvas.setTileSize(calculateTileSize(state.getMeta().getWidth(), state.getMeta().getHeight()));
+        boardCanvas.setBoard(state.getBoard());
 
         updateUI();
         updateResponsiveSizes();
@@ -159,12 +174,29 @@ public class GameBoard extends VBox {
         ));
     }
 
-    public TileView getTileView(int row, int col) {
-        return tileViews[row][col];
+    public BoardCanvas getBoardCanvas() {
+        return boardCanvas;
+    }
+
+    // Goes back to the game's board if another one (the solution) is showing
+    // Time Complexity: O(1), plus a full redraw when switching back
+    // Space Complexity: O(1)
+    public void showGameBoard() {
+        if (gameState != null && !showingGame()) boardCanvas.setBoard(gameState.getBoard());
+    }
+
+    /** Shows another board in place of the game's, e.g. the solution; showGameBoard() goes back. */
+    public void showBoard(PackedBoard board) {
+        boardCanvas.setBoard(board);
+    }
+
+    /** Cells redrawn because the game changed them, since this view was created. */
+    public long getCellsRedrawn() {
+        return cellsRedrawn;
     }
 
-    public TileView[][] getTileViews() {
-        return tileViews;
+    private boolean showingGame() {
+        return boardCanvas.getBoard() == gameState.getBoard();
     }
 
     public GameState getGameState() {
@@ -172,6 +204,6 @@ public class GameBoard extends VBox {
     }
 
     public void rotateBoardVisual() {
-        gridPane.setRotate(gridPane.getRotate() + 90);
+        boardCanvas.setRotate(boardCanvas.getRotate() + 90);
     }
 }
\ No newline at end of file
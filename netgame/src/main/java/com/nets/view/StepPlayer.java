@@ -0,0 +1,96 @@
+package com.nets.view;
+
+import com.nets.model.StepFeed;
+import javafx.animation.AnimationTimer;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * Plays a StepFeed on the FX pulse. Each frame works out how many steps are
+ * due at the current speed (stepDelayMs per step) and hands them to the view as
+ * one range, so a fast setting costs one render per frame however many steps
+ * it covers. Steps the engine has not sent yet are waited for without banking
+ * time, so playback does not jump ahead once they arrive.
+ */
+final class StepPlayer extends AnimationTimer {
+
+    /** Renders steps from (inclusive) to to (exclusive) in one frame. */
+    @FunctionalInterface
+    interface Frame {
+        void show(int from, int to, double stepDelayMs);
+    }
+
+    private final StepFeed feed;
+    private final DoubleSupplier stepDelayMs;
+    private final Frame frame;
+    private final Runnable onEnd;
+
+    private int position;   // next step to show
+    private double due;     // steps owed at the current speed, fractional
+    private long lastFrame = -1;
+    private boolean running;
+
+    StepPlayer(StepFeed feed, DoubleSupplier stepDelayMs, Frame frame, Runnable onEnd) {
+        this.feed = feed;
+        this.stepDelayMs = stepDelayMs;
+        this.frame = frame;
+        this.onEnd = onEnd;
+    }
+
+    @Override
+    public void start() {
+        lastFrame = -1;
+        running = true;
+        super.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        super.stop();
+    }
+
+    boolean isRunning() {
+        return running;
+    }
+
+    int getPosition() {
+        return position;
+    }
+
+    // Moves the cursor without showing anything; the caller has brought the view there
+    void setPosition(int position) {
+        this.position = position;
+        this.due = 0;
+    }
+
+    // Time Complexity: O(1) here plus the view's O(steps due) render
+    // Space Complexity: O(1)
+    @Override
+    public void handle(long now) {
+        double delay = Math.max(stepDelayMs.getAsDouble(), 1e-3);
+        if (lastFrame < 0) {
+            due = Math.max(due, 1); // the first step shows at once
+        } else {
+            due += (now - lastFrame) / 1e6 / delay;
+        }
+        lastFrame = now;
+
+        int available = feed.size();
+        int to = (int) Math.min(available, position + (long) due);
+        if (to > position) {
+            due -= to - position;
+            int from = position;
+            position = to;
+            frame.show(from, to, delay);
+        }
+        if (position >= available) {
+            if (feed.isFinished() && position >= feed.size()) { // size is final once finished
+                stop();
+                onEnd.run();
+            } else {
+                due = Math.min(due, 1);
+            }
+        }
+    }
+}
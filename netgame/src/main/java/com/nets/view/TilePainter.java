@@ -0,0 +1,208 @@
+package com.nets.view;
+
+import com.nets.metrics.Histogram;
+import com.nets.metrics.Metrics;
+import com.nets.model.PackedBoard;
+import com.nets.model.TileType;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+/**
+ * Draws one tile into any GraphicsContext at a given place and size, so the
+ * per-cell TileView and the whole-board BoardCanvas share the same look.
+ *
+ * A tile is three layers: background and border, the wires (the only part
+ * that rotates) and the lock marker. By default each layer is blitted from
+ * TileSprites, which renders every variant once per tile size; with
+ * -Dnets.sprites=false every layer is stroked from scratch as before.
+ * The time spent issuing each tile's draw calls goes to Metrics
+ * (tile.paint.sprites.nanos or tile.paint.vector.nanos) for comparing the two.
+ */
+final class TilePainter {
+    static final boolean SPRITES = !"false".equalsIgnoreCase(System.getProperty("nets.sprites"));
+
+    private static final Histogram PAINT_NANOS =
+            Metrics.histogram(SPRITES ? "tile.paint.sprites.nanos" : "tile.paint.vector.nanos");
+
+    // Wire colors
+    private static final Color WIRE_POWERED_COLOR = Color.rgb(0, 255, 100); // Bright Green - for connected wires
+    private static final Color WIRE_UNPOWERED_COLOR = Color.rgb(255, 200, 0); // Gold/Yellow - for disconnected wires
+
+    // PC colors
+    private static final Color PC_POWERED_COLOR = Color.rgb(0, 200, 255); // Cyan/Light Blue - for connected PCs
+    private static final Color PC_UNPOWERED_COLOR = Color.rgb(150, 150, 150); // Gray - for disconnected PCs
+
+    private static final Color BG_COLOR = Color.rgb(40, 40, 60);
+    private static final Color LOCKED_COLOR = Color.rgb(60, 60, 80);
+
+    private TilePainter() {}
+
+    // Paints the tile into the square at (x, y). powerPorts are the POWER tile's unrotated
+    // ports (PackedBoard.NORTH ...), drawn before rotation.
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    static void paint(GraphicsContext gc, double x, double y, double size, TileType type, boolean powered,
+                      boolean locked, int powerPorts, double rotation) {
+        long start = System.nanoTime();
+        if (SPRITES) {
+            TileSprites.forSize(size).draw(gc, x, y, type, powered, locked, powerPorts, rotation);
+        } else {
+            gc.save();
+            gc.translate(x, y);
+            paintBackground(gc, size, locked);
+            gc.save();
+            gc.translate(size / 2, size / 2);
+            gc.rotate(rotation);
+            gc.translate(-size / 2, -size / 2);
+            paintWires(gc, size, type, powered, powerPorts);
+            gc.restore();
+            if (hasLockMarker(type, locked)) paintLock(gc, size);
+            gc.restore();
+        }
+        PAINT_NANOS.record(System.nanoTime() - start);
+    }
+
+    static boolean hasLockMarker(TileType type, boolean locked) {
+        return locked && type != TileType.POWER;
+    }
+
+    // Background and border at (0, 0); these do not rotate
+    static void paintBackground(GraphicsContext gc, double size, boolean locked) {
+        // Background
+        gc.setFill(locked ? LOCKED_COLOR : BG_COLOR);
+        gc.fillRect(0, 0, size, size);
+
+        // Border
+        gc.setStroke(Color.rgb(80, 80, 100));
+        gc.setLineWidth(1);
+        gc.strokeRect(0, 0, size, size);
+    }
+
+    // Wires and symbols at rotation 0 over a transparent square at (0, 0)
+    static void paintWires(GraphicsContext gc, double size, TileType type, boolean powered, int powerPorts) {
+        double lineWidth = size * 0.075; // Proportional line width
+
+        // Choose color based on powered status and tile type
+        Color wireColor;
+        if (type == TileType.PC) {
+            wireColor = powered ? PC_POWERED_COLOR : PC_UNPOWERED_COLOR;
+        } else {
+            wireColor = powered ? WIRE_POWERED_COLOR : WIRE_UNPOWERED_COLOR;
+        }
+
+        gc.setStroke(wireColor);
+        gc.setLineWidth(lineWidth);
+        gc.setLineCap(javafx.scene.shape.StrokeLineCap.ROUND);
+
+        switch (type) {
+            case STRAIGHT:
+                drawStraight(gc, size);
+                break;
+            case CORNER:
+                drawCorner(gc, size);
+                break;
+            case T_JUNCTION:
+                drawTJunction(gc, size);
+                break;
+            case CROSS:
+                drawCross(gc, size);
+                break;
+            case PC:
+                drawPC(gc, size, lineWidth, wireColor);
+                break;
+            case POWER:
+                drawPower(gc, size, lineWidth, powerPorts);
+                break;
+            case EMPTY:
+                // No drawing needed
+                break;
+        }
+    }
+
+    // Lock indicator in the bottom-right corner; it does not rotate
+    static void paintLock(GraphicsContext gc, double size) {
+        gc.setFill(Color.rgb(200, 200, 200, 0.5));
+        double lockSize = size * 0.2;
+        gc.fillOval(size - lockSize - 5, size - lockSize - 5, lockSize, lockSize);
+    }
+
+    /** Unrotated ports as a mask from N, E, S, W flags (null for none). */
+    static int portMask(boolean[] conns) {
+        int mask = 0;
+        if (conns != null) {
+            if (conns.length > 0 && conns[0]) mask |= PackedBoard.NORTH;
+            if (conns.length > 1 && conns[1]) mask |= PackedBoard.EAST;
+            if (conns.length > 2 && conns[2]) mask |= PackedBoard.SOUTH;
+            if (conns.length > 3 && conns[3]) mask |= PackedBoard.WEST;
+        }
+        return mask;
+    }
+
+    private static void drawStraight(GraphicsContext gc, double size) {
+        double center = size / 2;
+        gc.strokeLine(center, 0, center, size);
+    }
+
+    private static void drawCorner(GraphicsContext gc, double size) {
+        double center = size / 2;
+        gc.strokeLine(center, 0, center, center);
+        gc.strokeLine(center, center, size, center);
+    }
+
+    private static void drawTJunction(GraphicsContext gc, double size) {
+        double center = size / 2;
+        // N, E, S connections
+        gc.strokeLine(center, 0, center, size); // N to S
+        gc.strokeLine(center, center, size, center); // center to E
+    }
+
+    private static void drawCross(GraphicsContext gc, double size) {
+        double center = size / 2;
+        gc.strokeLine(center, 0, center, size); // N to S
+        gc.strokeLine(0, center, size, center); // W to E
+    }
+
+    private static void drawPC(GraphicsContext gc, double size, double lineWidth, Color wireColor) {
+        double center = size / 2;
+
+        // Draw wire connection (vertical line from top to center)
+        gc.strokeLine(center, 0, center, center - (size * 0.125));
+
+        // Draw PC as a filled square (like in reference game)
+        double squareSize = size * 0.375;
+        gc.setFill(wireColor);
+        gc.fillRect(center - squareSize/2, center - squareSize/2, squareSize, squareSize);
+
+        // Add border to make it stand out
+        gc.setStroke(wireColor.brighter());
+        gc.setLineWidth(lineWidth * 0.3);
+        gc.strokeRect(center - squareSize/2, center - squareSize/2, squareSize, squareSize);
+    }
+
+    private static void drawPower(GraphicsContext gc, double size, double lineWidth, int ports) {
+        double center = size / 2;
+
+        // Dynamically draw connections for the power source
+        if ((ports & PackedBoard.NORTH) != 0) gc.strokeLine(center, 0, center, center);
+        if ((ports & PackedBoard.EAST) != 0) gc.strokeLine(center, center, size, center);
+        if ((ports & PackedBoard.SOUTH) != 0) gc.strokeLine(center, center, center, size);
+        if ((ports & PackedBoard.WEST) != 0) gc.strokeLine(0, center, center, center);
+
+        // Draw power as filled square (black/dark)
+        double squareSize = size * 0.375;
+        gc.setFill(Color.BLACK);
+        gc.fillRect(center - squareSize/2, center - squareSize/2, squareSize, squareSize);
+
+        // Add bright border
+        gc.setStroke(Color.rgb(255, 255, 0)); // Yellow border for power
+        gc.setLineWidth(lineWidth * 0.5);
+        gc.strokeRect(center - squareSize/2, center - squareSize/2, squareSize, squareSize);
+
+        // Draw lightning bolt symbol inside
+        gc.setFill(Color.rgb(255, 255, 0));
+        double boltScale = size / 80.0;
+        double[] xPoints = {center - 3 * boltScale, center - 6 * boltScale, center, center + 3 * boltScale, center + 6 * boltScale, center};
+        double[] yPoints = {center - 8 * boltScale, center - 2 * boltScale, center - 2 * boltScale, center + 8 * boltScale, center + 2 * boltScale, center + 2 * boltScale};
+        gc.fillPolygon(xPoints, yPoints, 6);
+    }
+}
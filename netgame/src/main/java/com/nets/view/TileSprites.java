@@ -0,0 +1,152 @@
+package com.nets.view;
+
+import com.nets.model.TileType;
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import javafx.stage.Screen;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Every tile layer TilePainter can draw, rendered once for one tile size into
+ * a single WritableImage: the two backgrounds, the lock marker, and the wires
+ * of each type powered and unpowered (POWER once per set of ports). Drawing a
+ * tile is then two or three image blits, the wires one rotated.
+ *
+ * Atlases are made on first use for a size (a resize makes a new one) and
+ * the last few sizes are kept, so the board and the visualizer each keep
+ * theirs. Sprites are rendered at the screen's output scale. FX thread only.
+ */
+final class TileSprites {
+    private static final int BACKGROUND = 0;
+    private static final int LOCKED_BACKGROUND = 1;
+    private static final int LOCK = 2;
+    private static final int PER_ROW = 8;
+    private static final int KEPT_SIZES = 4;
+
+    private static final TileType[] TYPES = TileType.values();
+    // WIRES[(ordinal * 16 + ports) * 2 + powered] = slot, or -1 (ports only matter for POWER)
+    private static final int[] WIRES = new int[TYPES.length * 16 * 2];
+    private static final int SLOTS;
+
+    static {
+        java.util.Arrays.fill(WIRES, -1);
+        int slot = LOCK + 1;
+        for (TileType type : TYPES) {
+            if (type == TileType.EMPTY) continue;
+            int masks = type == TileType.POWER ? 16 : 1;
+            for (int ports = 0; ports < masks; ports++) {
+                for (int powered = 0; powered < 2; powered++) {
+                    WIRES[(type.ordinal() * 16 + ports) * 2 + powered] = slot++;
+                }
+            }
+        }
+        SLOTS = slot;
+    }
+
+    private static final Map<Double, TileSprites> ATLASES = new LinkedHashMap<>(8, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Double, TileSprites> eldest) {
+            return size() > KEPT_SIZES;
+        }
+    };
+
+    private static long built;
+
+    private final double size;
+    private final double pixels; // slot side in image pixels
+    private final double pitch;  // slot spacing in image pixels
+    private final WritableImage image;
+
+    // Time Complexity: O(1) for a known size, otherwise one atlas render
+    // Space Complexity: O(S^2) pixels per kept size
+    static TileSprites forSize(double size) {
+        return ATLASES.computeIfAbsent(size, TileSprites::new);
+    }
+
+    /** Atlases rendered so far. */
+    static long getBuilt() {
+        return built;
+    }
+
+    private TileSprites(double size) {
+        this.size = size;
+        double scale = Math.max(1, Screen.getPrimary().getOutputScaleX());
+        this.pixels = Math.ceil(size * scale);
+        this.pitch = pixels + 2; // a transparent pixel each side keeps smoothing from bleeding
+        int rows = (SLOTS + PER_ROW - 1) / PER_ROW;
+
+        Canvas canvas = new Canvas(PER_ROW * pitch, rows * pitch);
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        render(gc, BACKGROUND, g -> TilePainter.paintBackground(g, size, false));
+        render(gc, LOCKED_BACKGROUND, g -> TilePainter.paintBackground(g, size, true));
+        render(gc, LOCK, g -> TilePainter.paintLock(g, size));
+        for (TileType type : TYPES) {
+            if (type == TileType.EMPTY) continue;
+            int masks = type == TileType.POWER ? 16 : 1;
+            for (int ports = 0; ports < masks; ports++) {
+                int mask = ports;
+                render(gc, wireSlot(type, false, mask), g -> TilePainter.paintWires(g, size, type, false, mask));
+                render(gc, wireSlot(type, true, mask), g -> TilePainter.paintWires(g, size, type, true, mask));
+            }
+        }
+
+        SnapshotParameters params = new SnapshotParameters();
+        params.setFill(Color.TRANSPARENT);
+        image = canvas.snapshot(params, new WritableImage((int) canvas.getWidth(), (int) canvas.getHeight()));
+        built++;
+    }
+
+    // Blits the tile's layers into the square at (x, y)
+    // Time Complexity: O(1)
+    // Space Complexity: O(1)
+    void draw(GraphicsContext gc, double x, double y, TileType type, boolean powered, boolean locked,
+              int powerPorts, double rotation) {
+        blit(gc, locked ? LOCKED_BACKGROUND : BACKGROUND, x, y);
+        if (type != TileType.EMPTY) {
+            int slot = wireSlot(type, powered, type == TileType.POWER ? powerPorts : 0);
+            if (rotation % 360 == 0) {
+                blit(gc, slot, x, y);
+            } else {
+                gc.save();
+                gc.translate(x + size / 2, y + size / 2);
+                gc.rotate(rotation);
+                blit(gc, slot, -size / 2, -size / 2);
+                gc.restore();
+            }
+        }
+        if (TilePainter.hasLockMarker(type, locked)) blit(gc, LOCK, x, y);
+    }
+
+    private void blit(GraphicsContext gc, int slot, double x, double y) {
+        gc.drawImage(image, slotX(slot), slotY(slot), pixels, pixels, x, y, size, size);
+    }
+
+    // Paints one layer into its slot, scaled to image pixels and clipped to the tile square
+    private void render(GraphicsContext gc, int slot, java.util.function.Consumer<GraphicsContext> layer) {
+        gc.save();
+        gc.translate(slotX(slot), slotY(slot));
+        gc.beginPath();
+        gc.rect(0, 0, pixels, pixels);
+        gc.clip();
+        gc.scale(pixels / size, pixels / size);
+        layer.accept(gc);
+        gc.restore();
+    }
+
+    private double slotX(int slot) {
+        return (slot % PER_ROW) * pitch + 1;
+    }
+
+    private double slotY(int slot) {
+        return (slot / PER_ROW) * pitch + 1;
+    }
+
+    private static int wireSlot(TileType type, boolean powered, int ports) {
+        return WIRES[(type.ordinal() * 16 + (ports & 0xF)) * 2 + (powered ? 1 : 0)];
+    }
+}
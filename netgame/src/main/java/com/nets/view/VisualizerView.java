@@ -1,7 +1,7 @@
 package com.nets.view;
 
+import com.nets.metrics.PlaybackBatchEvent;
 import com.nets.model.*;
-import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -15,6 +15,7 @@ import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
 import javafx.animation.KeyFrame;
 import javafx.animation.KeyValue;
+import javafx.animation.PauseTransition;
 import javafx.animation.Timeline;
 import javafx.util.Duration;
 
@@ -23,7 +24,7 @@ import java.util.List;
 public class VisualizerView extends VBox {
     private TileView[][] tileViews;
     private GameState initialState;
-    private List<VisualStep> steps;
+    private StepFeed steps; // may still be filling while playback runs
     private Move actualMove;
     private int[][] preMoveRotations;
     private String currentAlgoDisplay;
@@ -38,6 +39,29 @@ public class VisualizerView extends VBox {
     private Rectangle selectionFrame;
     private Rectangle regionHighlight;
     private Timeline highlightTimeline;
+    private StepPlayer player;
+    private PauseTransition finalMoveDelay;
+    private Button playBtn;
+
+    // Timeline: seeks restore the board from the nearest checkpoint
+    private Slider timelineSlider;
+    private Label timelineLabel;
+    private boolean updatingTimeline;
+    private TraceCheckpoints checkpoints;
+    private Thread checkpointBuilder;
+    private int[] seekRotations;
+
+    // Per-frame buffers for showSteps: the last rotation of each tile touched this frame
+    private int[] cellStamp;
+    private int[] touchedCells;
+    private int[] cellRotation;
+    private boolean[] cellClockwise;
+    private int frameStamp;
+
+    // Tile edges for region rectangles, measured again whenever the grid moves its tiles
+    private double[] columnX;
+    private double[] rowY;
+    private boolean tileEdgesStale = true;
 
     private Label upmaskLabel;
     private Label leftreqLabel;
@@ -45,6 +69,12 @@ public class VisualizerView extends VBox {
 
     public VisualizerView(GameState state, List<VisualStep> steps, int[][] preMoveRotations, 
                           Move actualMove, String algoName, Scene parentScene, Runnable onClose) {
+        this(state, steps != null ? new StepFeed(steps) : null, preMoveRotations, actualMove, algoName, parentScene, onClose);
+    }
+
+    // Plays from a feed that may still be receiving steps; playback waits for steps not yet decoded
+    public VisualizerView(GameState state, StepFeed steps, int[][] preMoveRotations,
+                          Move actualMove, String algoName, Scene parentScene, Runnable onClose) {
         this.initialState = state;
         this.steps = steps;
         this.actualMove = actualMove;
@@ -71,13 +101,19 @@ public class VisualizerView extends VBox {
 
         // Use the passed scene or wait for sceneProperty
         VBox sidePanel = createSidePanel(parentScene != null ? parentScene : getScene());
+        HBox timeline = createTimeline(parentScene != null ? parentScene : getScene());
         HBox controls = createControls(parentScene != null ? parentScene : getScene());
         mainLayout.getChildren().setAll(gridPane, sidePanel);
-        getChildren().setAll(mainLayout, controls);
+        getChildren().setAll(mainLayout, timeline, controls);
+        if (steps != null) startCheckpoints();
         updateTileSizes();
 
         widthProperty().addListener((obs, oldVal, newVal) -> updateTileSizes());
         heightProperty().addListener((obs, oldVal, newVal) -> updateTileSizes());
+        // Playback runs on the FX pulse, so it must end with the tab
+        sceneProperty().addListener((obs, oldVal, newVal) -> {
+            if (newVal == null) stopVisualization();
+        });
     }
 
     private void setupGrid() {
@@ -97,6 +133,18 @@ public class VisualizerView extends VBox {
             }
         }
 
+        int cells = rows * cols;
+        cellStamp = new int[cells];
+        touchedCells = new int[cells];
+        cellRotation = new int[cells];
+        cellClockwise = new boolean[cells];
+        columnX = new double[cols];
+        rowY = new double[rows];
+        // The first and last tile move whenever the layout changes any tile's place or size
+        for (TileView corner : new TileView[]{tileViews[0][0], tileViews[rows - 1][cols - 1]}) {
+            corner.boundsInParentProperty().addListener((obs, oldVal, newVal) -> tileEdgesStale = true);
+        }
+
         // Dedicated neon highlight frame - UNMANAGED to not affect grid layout
         selectionFrame = new Rectangle();
         selectionFrame.setFill(Color.rgb(255, 255, 0, 0.15));
@@ -120,6 +168,7 @@ public class VisualizerView extends VBox {
         regionHighlight.setMouseTransparent(true);
         regionHighlight.setManaged(false);
         gridPane.getChildren().add(regionHighlight);
+        regionHighlight.toBack(); // Ensure it is behind tiles but in grid
     }
 
     private void updateTileSizes() {
@@ -206,15 +255,16 @@ public class VisualizerView extends VBox {
         String baseStyle = "-fx-text-fill: white; -fx-font-weight: bold; -fx-cursor: hand; -fx-background-radius: 8;";
         javafx.beans.binding.StringBinding btnStyle = scene.widthProperty().divide(110).asString(baseStyle + "-fx-font-size: %fpx; -fx-padding: 8 16;");
 
-        Button playBtn = new Button("Play Visualization");
+        playBtn = new Button("Play Visualization");
         playBtn.styleProperty().bind(javafx.beans.binding.Bindings.concat(btnStyle, "-fx-background-color: #00d4ff;"));
-        playBtn.setOnAction(e -> startVisualization());
+        playBtn.setOnAction(e -> {
+            if (playing) pauseVisualization(); else startVisualization();
+        });
 
         Button closeBtn = new Button("Close Visualizer");
         closeBtn.styleProperty().bind(javafx.beans.binding.Bindings.concat(btnStyle, "-fx-background-color: #e94560;"));
         closeBtn.setOnAction(e -> { 
-            playing = false; 
-            if (highlightTimeline != null) highlightTimeline.stop();
+            stopVisualization();
             onClose.run(); 
         });
 
@@ -222,11 +272,78 @@ public class VisualizerView extends VBox {
         return controls;
     }
 
+    private HBox createTimeline(Scene scene) {
+        HBox timeline = new HBox(10);
+        timeline.setAlignment(Pos.CENTER);
+        String baseStyle = "-fx-text-fill: white; -fx-font-weight: bold; -fx-cursor: hand; -fx-background-radius: 8; -fx-background-color: #16213e;";
+        javafx.beans.binding.StringBinding btnStyle = scene.widthProperty().divide(120).asString(baseStyle + "-fx-font-size: %fpx; -fx-padding: 6 12;");
+
+        Button backBtn = new Button("◀ Step");
+        backBtn.styleProperty().bind(btnStyle);
+        backBtn.setOnAction(e -> seekTo(position() - 1));
+
+        timelineSlider = new Slider(0, 1, 0);
+        timelineSlider.prefWidthProperty().bind(scene.widthProperty().multiply(0.4));
+        timelineSlider.valueProperty().addListener((obs, oldVal, newVal) -> {
+            if (!updatingTimeline) seekTo((int) Math.round(newVal.doubleValue()));
+        });
+
+        Button forwardBtn = new Button("Step ▶");
+        forwardBtn.styleProperty().bind(btnStyle);
+        forwardBtn.setOnAction(e -> seekTo(position() + 1));
+
+        timelineLabel = new Label("Step 0 / 0");
+        timelineLabel.styleProperty().bind(scene.widthProperty().divide(100).asString("-fx-text-fill: white; -fx-font-size: %fpx; -fx-font-family: monospace;"));
+        timelineLabel.setMinWidth(Region.USE_PREF_SIZE);
+
+        Button successBtn = new Button("Next SUCCESS");
+        successBtn.styleProperty().bind(btnStyle);
+        successBtn.setOnAction(e -> seekToNext("SUCCESS"));
+
+        Button regionBtn = new Button("Next REGION");
+        regionBtn.styleProperty().bind(btnStyle);
+        regionBtn.setOnAction(e -> seekToNext("REGION"));
+
+        timeline.getChildren().addAll(backBtn, timelineSlider, forwardBtn, timelineLabel, successBtn, regionBtn);
+        return timeline;
+    }
+
+    // Builds checkpoints on a background thread as steps arrive, so seeks find them ready
+    private void startCheckpoints() {
+        checkpoints = new TraceCheckpoints(steps.getTrace(), preMoveRotations);
+        seekRotations = new int[tileViews.length * tileViews[0].length];
+        player = new StepPlayer(steps, this::stepDelayMs, this::showSteps, this::finishVisualization);
+        checkpointBuilder = new Thread(() -> {
+            try {
+                while (true) {
+                    int size = steps.size();
+                    checkpoints.extendTo(size);
+                    if (steps.await(size) == null) break;
+                }
+                checkpoints.extendTo(steps.size());
+            } catch (InterruptedException e) {
+                // Visualizer closed
+            }
+        }, "nets-trace-checkpoints");
+        checkpointBuilder.setDaemon(true);
+        checkpointBuilder.start();
+    }
+
     private void startVisualization() {
         if (playing || steps == null) return;
         playing = true;
+        playBtn.setText("Pause");
         if (highlightTimeline != null) highlightTimeline.stop();
         selectionFrame.setVisible(false);
+
+        // Resume from a position on the timeline; from the start again once played through
+        if (position() > 0 && !(steps.isFinished() && position() >= steps.size())) {
+            player.start();
+            return;
+        }
+        regionHighlight.setVisible(false);
+        player.setPosition(0);
+        updateTimeline(0);
         
         for (int r = 0; r < tileViews.length; r++) {
             for (int c = 0; c < tileViews[r].length; c++) {
@@ -238,142 +355,246 @@ public class VisualizerView extends VBox {
             }
         }
 
-        new Thread(() -> {
-            for (int i = 0; i < steps.size(); i++) {
-                if (!playing) break;
-                final int idx = i;
-                VisualStep step = steps.get(idx);
-
-                double sliderVal = speedSlider.getValue();
-                long stepDelay = (long) (1500.0 * Math.pow(0.001, sliderVal / 500.0));
-                double animDuration = Math.min(stepDelay * 0.8, 300); // 80% of delay or max 300ms
-
-                Platform.runLater(() -> {
-                    if ("REGION".equals(step.getType())) {
-                        updateRegionHighlight(step.getR0(), step.getR1(), step.getC0(), step.getC1());
-                        extraLabel.setText(String.format("Region: (%d,%d) to (%d,%d)", step.getR0(), step.getC0(), step.getR1()-1, step.getC1()-1));
-                        return;
-                    }
-
-                    int r = step.getRow();
-                    int c = step.getCol();
-                    if (r < 0 || c < 0) return;
-                    TileView tv = tileViews[r][c];
-
-                    // For DAC, ensure region is highlighted while looking at tiles
-                    if (step.getR0() != -1) {
-                        updateRegionHighlight(step.getR0(), step.getR1(), step.getC0(), step.getC1());
-                    }
-
-                    if (currentAlgoDisplay.toLowerCase().contains("dp") || currentAlgoDisplay.toLowerCase().contains("dynamic")) {
-
-        upmaskLabel.setVisible(true); upmaskLabel.setManaged(true);
-        leftreqLabel.setVisible(true); leftreqLabel.setManaged(true);
-        scoreLabel.setVisible(false); scoreLabel.setManaged(false);
-        extraLabel.setVisible(false); extraLabel.setManaged(false);
-        
-        StringBuilder sb = new StringBuilder();
-        int width = initialState.getMeta().getWidth();
-        for (int j = 0; j < width; j++) {
-            if (j == c) sb.append("[");
-            sb.append((step.getUpmask() >> j) & 1);
-            if (j == c) sb.append("]");
-        }
-        upmaskLabel.setText("UpMask:  " + sb.toString());
-        leftreqLabel.setText("LeftReq: " + step.getLeftreq());
-    } else if (currentAlgoDisplay.toLowerCase().contains("greedy")) {
-        upmaskLabel.setVisible(false); upmaskLabel.setManaged(false);
-        leftreqLabel.setVisible(false); leftreqLabel.setManaged(false);
-        scoreLabel.setVisible(true); scoreLabel.setManaged(true);
-        extraLabel.setVisible(false); extraLabel.setManaged(false);
-    } else if (currentAlgoDisplay.toLowerCase().contains("conquer") || currentAlgoDisplay.toLowerCase().contains("dac")) {
-        upmaskLabel.setVisible(false); upmaskLabel.setManaged(false);
-        leftreqLabel.setVisible(false); leftreqLabel.setManaged(false);
-        scoreLabel.setVisible(false); scoreLabel.setManaged(false);
-        extraLabel.setVisible(true); extraLabel.setManaged(true);
-        extraLabel.setText("Region Search");
-    } else {
-        // Backtracking or other
-        upmaskLabel.setVisible(false); upmaskLabel.setManaged(false);
-        leftreqLabel.setVisible(false); leftreqLabel.setManaged(false);
-        scoreLabel.setVisible(false); scoreLabel.setManaged(false);
-        extraLabel.setVisible(false); extraLabel.setManaged(false);
+        player.start();
     }
 
-    if (step.getScore() > 0 || "SCORE".equals(step.getType())) {
-        scoreLabel.setText(String.format("Score: %.2f", step.getScore()));
-    } else {
-        boolean isClockwise = !"UNDO".equals(step.getType());
-        tv.getTile().setRotation(step.getRotation());
-        tv.setRotationAnimated(step.getRotation(), animDuration, isClockwise);
-        stepInfoLabel.setText(String.format("Search: %s (%d, %d)", step.getType(), r, c));
+    private void pauseVisualization() {
+        playing = false;
+        playBtn.setText("Play Visualization");
+        if (player != null) player.stop();
+        if (finalMoveDelay != null) finalMoveDelay.stop();
     }
-});
 
-                try {
-                    Thread.sleep(Math.max(2, stepDelay));
-                } catch (InterruptedException e) { break; }
-            }
+    private void stopVisualization() {
+        pauseVisualization();
+        if (highlightTimeline != null) highlightTimeline.stop();
+        if (checkpointBuilder != null) checkpointBuilder.interrupt();
+    }
 
-            if (playing && actualMove != null) {
-                try { Thread.sleep(300); } catch (InterruptedException e) {}
-                Platform.runLater(() -> {
-                    int r = actualMove.getRow();
-                    int c = actualMove.getCol();
-                    TileView tv = tileViews[r][c];
-                    tv.getTile().setRotation(actualMove.getRotation());
-                    tv.setRotationAnimated(actualMove.getRotation(), 300, true);
-                    tv.draw();
-                    
-                    showFinalSelectionFrame(r, c);
-                    
-                    stepInfoLabel.setText("FINAL MOVE EXECUTED");
-                    scoreLabel.setText("Move at (" + r + "," + c + ")");
-                });
-            }
-            playing = false;
-        }).start();
+    private int position() {
+        return player != null ? player.getPosition() : 0;
     }
 
-    private void updateRegionHighlight(int r0, int r1, int c0, int c1) {
-        if (r0 < 0 || r1 < 0 || c0 < 0 || c1 < 0) {
-            regionHighlight.setVisible(false);
-            return;
+    // Shows the board after the first target steps: pauses playback, restores the rotations
+    // from the nearest checkpoint (redrawing only tiles that differ) and shows step target-1
+    // Time Complexity: O(N + K) for N tiles and checkpoint interval K
+    // Space Complexity: O(1), the rotation buffer is reused
+    private void seekTo(int target) {
+        if (steps == null) return;
+        pauseVisualization();
+        if (highlightTimeline != null) highlightTimeline.stop();
+        selectionFrame.setVisible(false);
+        regionHighlight.setVisible(false);
+
+        target = Math.max(0, Math.min(target, steps.size()));
+        checkpoints.rotationsAt(target, seekRotations);
+        int cols = tileViews[0].length;
+        for (int cell = 0; cell < seekRotations.length; cell++) {
+            TileView tv = tileViews[cell / cols][cell % cols];
+            if (tv.getTile().getRotation() != seekRotations[cell]) {
+                tv.getTile().setRotation(seekRotations[cell]);
+                tv.setRotationAnimated(seekRotations[cell], 0, true);
+            }
         }
-        
-        // Find bounds of tiles in the region
-        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
-        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
-        
-        boolean found = false;
-        for (int r = r0; r < r1; r++) {
-            for (int c = c0; c < c1; c++) {
-                if (r >= 0 && r < tileViews.length && c >= 0 && c < tileViews[0].length) {
-                    TileView tv = tileViews[r][c];
-                    double tx = tv.getBoundsInParent().getMinX();
-                    double ty = tv.getBoundsInParent().getMinY();
-                    double tw = tv.getBoundsInParent().getWidth();
-                    double th = tv.getBoundsInParent().getHeight();
-                    
-                    minX = Math.min(minX, tx);
-                    minY = Math.min(minY, ty);
-                    maxX = Math.max(maxX, tx + tw);
-                    maxY = Math.max(maxY, ty + th);
-                    found = true;
+        player.setPosition(target);
+        if (target > 0) {
+            showSteps(target - 1, target, 0);
+        } else {
+            stepInfoLabel.setText("Ready to replay...");
+            updateTimeline(0);
+        }
+    }
+
+    private void seekToNext(String type) {
+        if (steps == null) return;
+        int index = checkpoints.nextOfType(position(), TraceCheckpoints.typeBit(type));
+        if (index >= 0) seekTo(index + 1);
+    }
+
+    private void updateTimeline(int position) {
+        int size = steps.size();
+        updatingTimeline = true;
+        timelineSlider.setMax(Math.max(size, 1));
+        timelineSlider.setValue(position);
+        updatingTimeline = false;
+        timelineLabel.setText(String.format("Step %d / %d%s", position, size, steps.isFinished() ? "" : "+"));
+    }
+
+    // Delay per step for the speed slider: 1500 ms at 0 down to 1.5 ms at 500
+    private double stepDelayMs() {
+        return 1500.0 * Math.pow(0.001, speedSlider.getValue() / 500.0);
+    }
+
+    // Shows steps from..to-1 as one frame. Each touched tile goes straight to the rotation
+    // of its last step, and the labels and region show the last step that sets them.
+    // Each frame is a com.nets.PlaybackBatch JFR event.
+    // Time Complexity: O(to - from)
+    // Space Complexity: O(1), the per-cell buffers are reused
+    private void showSteps(int from, int to, double stepDelay) {
+        PlaybackBatchEvent event = new PlaybackBatchEvent();
+        event.begin();
+        StepTrace trace = steps.getTrace();
+        int cols = tileViews[0].length;
+        frameStamp++;
+        int touched = 0;
+        VisualStep detailStep = null, regionStep = null, scoreStep = null, searchStep = null;
+        boolean regionLast = false; // a REGION step came after the last tile step
+
+        for (int i = from; i < to; i++) {
+            VisualStep step = trace.get(i);
+            if ("REGION".equals(step.getType())) {
+                regionStep = step;
+                regionLast = true;
+                continue;
+            }
+            int r = step.getRow();
+            int c = step.getCol();
+            if (r < 0 || c < 0) continue;
+
+            // For DAC, ensure region is highlighted while looking at tiles
+            if (step.getR0() != -1) regionStep = step;
+            detailStep = step;
+            regionLast = false;
+
+            if (step.getScore() > 0 || "SCORE".equals(step.getType())) {
+                scoreStep = step;
+            } else {
+                int cell = r * cols + c;
+                if (cellStamp[cell] != frameStamp) {
+                    cellStamp[cell] = frameStamp;
+                    touchedCells[touched++] = cell;
                 }
+                cellRotation[cell] = step.getRotation();
+                cellClockwise[cell] = !"UNDO".equals(step.getType());
+                searchStep = step;
             }
         }
-        
-        if (found) {
-            regionHighlight.setX(minX - 6);
-            regionHighlight.setY(minY - 6);
-            regionHighlight.setWidth(maxX - minX + 12);
-            regionHighlight.setHeight(maxY - minY + 12);
-            regionHighlight.setVisible(true);
-            regionHighlight.toBack(); // Ensure it is behind tiles but in grid
+
+        if (regionStep != null) {
+            updateRegionHighlight(regionStep.getR0(), regionStep.getR1(), regionStep.getC0(), regionStep.getC1());
+        }
+        if (detailStep != null) showStepDetails(detailStep);
+        if (regionLast) {
+            extraLabel.setText(String.format("Region: (%d,%d) to (%d,%d)", regionStep.getR0(), regionStep.getC0(), regionStep.getR1()-1, regionStep.getC1()-1));
+        }
+        if (scoreStep != null) {
+            scoreLabel.setText(String.format("Score: %.2f", scoreStep.getScore()));
+        }
+
+        double animDuration = Math.min(stepDelay * 0.8, 300); // 80% of delay or max 300ms
+        for (int k = 0; k < touched; k++) {
+            int cell = touchedCells[k];
+            TileView tv = tileViews[cell / cols][cell % cols];
+            tv.getTile().setRotation(cellRotation[cell]);
+            tv.setRotationAnimated(cellRotation[cell], animDuration, cellClockwise[cell]);
+        }
+        if (searchStep != null) {
+            stepInfoLabel.setText(String.format("Search: %s (%d, %d)", searchStep.getType(), searchStep.getRow(), searchStep.getCol()));
+        }
+        updateTimeline(to);
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.from = from;
+            event.steps = to - from;
+            event.tiles = touched;
+            event.stepDelayMs = Math.round(stepDelay);
+            event.commit();
+        }
+    }
+
+    // Labels that depend on the algorithm for a tile step
+    private void showStepDetails(VisualStep step) {
+        if (currentAlgoDisplay.toLowerCase().contains("dp") || currentAlgoDisplay.toLowerCase().contains("dynamic")) {
+            upmaskLabel.setVisible(true); upmaskLabel.setManaged(true);
+            leftreqLabel.setVisible(true); leftreqLabel.setManaged(true);
+            scoreLabel.setVisible(false); scoreLabel.setManaged(false);
+            extraLabel.setVisible(false); extraLabel.setManaged(false);
+
+            StringBuilder sb = new StringBuilder();
+            int width = initialState.getMeta().getWidth();
+            for (int j = 0; j < width; j++) {
+                if (j == step.getCol()) sb.append("[");
+                sb.append((step.getUpmask() >> j) & 1);
+                if (j == step.getCol()) sb.append("]");
+            }
+            upmaskLabel.setText("UpMask:  " + sb.toString());
+            leftreqLabel.setText("LeftReq: " + step.getLeftreq());
+        } else if (currentAlgoDisplay.toLowerCase().contains("greedy")) {
+            upmaskLabel.setVisible(false); upmaskLabel.setManaged(false);
+            leftreqLabel.setVisible(false); leftreqLabel.setManaged(false);
+            scoreLabel.setVisible(true); scoreLabel.setManaged(true);
+            extraLabel.setVisible(false); extraLabel.setManaged(false);
+        } else if (currentAlgoDisplay.toLowerCase().contains("conquer") || currentAlgoDisplay.toLowerCase().contains("dac")) {
+            upmaskLabel.setVisible(false); upmaskLabel.setManaged(false);
+            leftreqLabel.setVisible(false); leftreqLabel.setManaged(false);
+            scoreLabel.setVisible(false); scoreLabel.setManaged(false);
+            extraLabel.setVisible(true); extraLabel.setManaged(true);
+            extraLabel.setText("Region Search");
         } else {
+            // Backtracking or other
+            upmaskLabel.setVisible(false); upmaskLabel.setManaged(false);
+            leftreqLabel.setVisible(false); leftreqLabel.setManaged(false);
+            scoreLabel.setVisible(false); scoreLabel.setManaged(false);
+            extraLabel.setVisible(false); extraLabel.setManaged(false);
+        }
+    }
+
+    // All steps shown: the real move follows after a short pause
+    private void finishVisualization() {
+        if (!playing || actualMove == null) {
+            pauseVisualization();
+            return;
+        }
+        finalMoveDelay = new PauseTransition(Duration.millis(300));
+        finalMoveDelay.setOnFinished(e -> {
+            pauseVisualization();
+            int r = actualMove.getRow();
+            int c = actualMove.getCol();
+            TileView tv = tileViews[r][c];
+            tv.getTile().setRotation(actualMove.getRotation());
+            tv.setRotationAnimated(actualMove.getRotation(), 300, true);
+            tv.draw();
+            
+            showFinalSelectionFrame(r, c);
+            
+            stepInfoLabel.setText("FINAL MOVE EXECUTED");
+            scoreLabel.setText("Move at (" + r + "," + c + ")");
+        });
+        finalMoveDelay.play();
+    }
+
+    // Time Complexity: O(1), plus O(rows + cols) after the grid has been laid out again
+    // Space Complexity: O(1)
+    private void updateRegionHighlight(int r0, int r1, int c0, int c1) {
+        int rows = tileViews.length;
+        int cols = tileViews[0].length;
+        r0 = Math.max(r0, 0);
+        c0 = Math.max(c0, 0);
+        r1 = Math.min(r1, rows);
+        c1 = Math.min(c1, cols);
+        if (r0 >= r1 || c0 >= c1) {
             regionHighlight.setVisible(false);
+            return;
         }
+        if (tileEdgesStale) measureTileEdges();
+
+        double minX = columnX[c0];
+        double minY = rowY[r0];
+        double maxX = columnX[c1 - 1] + tileViews[0][c1 - 1].getWidth();
+        double maxY = rowY[r1 - 1] + tileViews[r1 - 1][0].getHeight();
+        regionHighlight.setX(minX - 6);
+        regionHighlight.setY(minY - 6);
+        regionHighlight.setWidth(maxX - minX + 12);
+        regionHighlight.setHeight(maxY - minY + 12);
+        regionHighlight.setVisible(true);
+    }
+
+    // Left edge of every column and top edge of every row, as the grid laid them out
+    private void measureTileEdges() {
+        for (int c = 0; c < columnX.length; c++) columnX[c] = tileViews[0][c].getBoundsInParent().getMinX();
+        for (int r = 0; r < rowY.length; r++) rowY[r] = tileViews[r][0].getBoundsInParent().getMinY();
+        tileEdgesStale = false;
     }
 
     private void showFinalSelectionFrame(int row, int col) {
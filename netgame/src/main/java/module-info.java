@@ -2,13 +2,20 @@ module com.nets {
     requires javafx.controls;
     requires javafx.fxml;
     requires com.google.gson;
+    requires java.management;
+    requires jdk.jfr;
+    requires jdk.httpserver;
 
 
     opens com.nets to javafx.fxml;
     exports com.nets;
+    exports com.nets.analysis;
     exports com.nets.controller;
+    exports com.nets.engine;
     opens com.nets.controller to javafx.fxml;
+    exports com.nets.metrics;
     exports com.nets.model;
+    exports com.nets.server;
     opens com.nets.model to javafx.fxml, com.google.gson;
     exports com.nets.view;
     opens com.nets.view to javafx.fxml;
@@ -0,0 +1,73 @@
+package com.nets.analysis;
+
+import com.nets.controller.PuzzleGenerator;
+import com.nets.model.PackedBoard;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ConnectivityTracker must agree with a full BoardAnalyzer pass after every
+ * rotation: components, loose ends, loops, solved state and the powered set.
+ * Random quarter turns run on scrambled puzzles and on solved trees, with and
+ * without wrapping. On the solved tree every turn is undone by the next one, so
+ * each pair cuts the one powered network and joins it again.
+ */
+class ConnectivityTrackerTest {
+    private static final int CLICKS = 2_000;
+
+    @ParameterizedTest
+    @CsvSource({
+            "10, 10, false, false", "10, 10, false, true", "10, 10, true, false", "10, 10, true, true",
+            "17, 31, false, false", "17, 31, false, true", "17, 31, true, false", "17, 31, true, true",
+    })
+    void matchesBoardAnalyzer(int rows, int cols, boolean solved, boolean wraps) {
+        SplittableRandom rand = new SplittableRandom(rows * 1000 + cols);
+        PackedBoard board = PuzzleGenerator.generateSolved(rows, cols, rand);
+        if (!solved) PuzzleGenerator.scramble(board, rand);
+
+        ConnectivityTracker tracker = new ConnectivityTracker(board, wraps, false);
+        assertMatches(board, wraps, tracker, "before any rotation");
+        int[] movable = movableCells(board);
+        Random random = new Random(cols);
+        for (int i = 0; i < CLICKS; i++) {
+            int cell = movable[random.nextInt(movable.length)];
+            board.rotate(cell, 90);
+            tracker.update(cell / cols, cell % cols);
+            assertMatches(board, wraps, tracker, "after " + (i + 1) + " rotations");
+            if (solved) {
+                board.rotate(cell, 270);
+                tracker.update(cell / cols, cell % cols);
+                assertMatches(board, wraps, tracker, "after undoing rotation " + (i + 1));
+            }
+        }
+    }
+
+    private static void assertMatches(PackedBoard board, boolean wraps, ConnectivityTracker tracker, String when) {
+        BoardAnalyzer.Result expected = BoardAnalyzer.analyze(board, wraps, false);
+        assertEquals(expected.getComponents(), tracker.getComponents(), "components " + when);
+        assertEquals(expected.getLooseEnds(), tracker.getLooseEnds(), "loose ends " + when);
+        assertEquals(expected.hasLoop(), tracker.hasLoop(), "loop " + when);
+        assertEquals(expected.isSolved(), tracker.isSolved(), "solved " + when);
+        assertEquals(expected.getPoweredCount(), tracker.getPoweredCount(), "powered count " + when);
+        int cols = board.getCols();
+        for (int cell = 0; cell < board.size(); cell++) {
+            assertEquals(expected.isPowered(cell / cols, cell % cols), tracker.isPowered(cell),
+                    "powered " + (cell / cols) + "," + (cell % cols) + " " + when);
+        }
+    }
+
+    private static int[] movableCells(PackedBoard board) {
+        int[] cells = new int[board.size()];
+        int count = 0;
+        for (int cell = 0; cell < board.size(); cell++) {
+            if (!board.isLocked(cell) && !board.isEmpty(cell)) cells[count++] = cell;
+        }
+        return Arrays.copyOf(cells, count);
+    }
+}
@@ -0,0 +1,121 @@
+package com.nets.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.nets.analysis.BoardAnalyzer;
+import com.nets.engine.CppEngine;
+import com.nets.model.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cross-checks BoardAnalyzer against the C++ engine's get_stats on a random corpus:
+ * generated puzzles with random scrambles plus fully random boards (every tile type,
+ * random locks and power connections, with and without wrapping).
+ *
+ * The default corpus is small enough for every build; -Dnets.analyzer.boards=2000
+ * runs the large one and -Dnets.analyzer.seed picks another corpus. Skipped when
+ * there is no engine (see EngineTests).
+ */
+class AnalyzerEngineTest {
+    private static final int BOARDS = Integer.getInteger("nets.analyzer.boards", 100);
+    private static final long SEED = Long.getLong("nets.analyzer.seed", 42L);
+
+    @Test
+    void analyzerMatchesEngineStats() throws Exception {
+        EngineTests.assumeEngine();
+        Random rand = new Random(SEED);
+        Gson gson = new Gson();
+        GameController generator = new GameController(null);
+
+        List<String> mismatches = new ArrayList<>();
+        try (CppEngine engine = new CppEngine()) {
+            for (int i = 0; i < BOARDS; i++) {
+                int rows = 3 + rand.nextInt(28);
+                int cols = 3 + rand.nextInt(28);
+                GameState state = (i % 4 == 0)
+                        ? scrambledPuzzle(generator, rows, cols, rand)
+                        : randomBoard(rows, cols, rand);
+
+                JsonObject request = new JsonObject();
+                request.addProperty("action", "get_stats");
+                request.add("gameState", gson.toJsonTree(state));
+                JsonObject stats = engine.call(request).getAsJsonObject("stats");
+
+                BoardAnalyzer.Result result = BoardAnalyzer.analyze(state);
+                int components = stats.get("components").getAsInt();
+                int looseEnds = stats.get("looseEnds").getAsInt();
+                boolean solved = stats.get("solved").getAsBoolean();
+                if (components != result.getComponents() || looseEnds != result.getLooseEnds()
+                        || solved != result.isSolved()) {
+                    mismatches.add(String.format("board %d (%dx%d, wraps=%b): engine %d/%d/%b, analyzer %d/%d/%b",
+                            i, rows, cols, state.getMeta().isWraps(),
+                            components, looseEnds, solved,
+                            result.getComponents(), result.getLooseEnds(), result.isSolved()));
+                }
+            }
+        }
+
+        assertTrue(mismatches.isEmpty(), () -> mismatches.size() + " of " + BOARDS + " boards disagree:\n"
+                + String.join("\n", mismatches));
+    }
+
+    // A generated puzzle, sometimes left solved, otherwise with a few extra random rotations
+    private static GameState scrambledPuzzle(GameController generator, int rows, int cols, Random rand) {
+        GameState state = generator.createNewGameState(rows, cols);
+        Tile[][] grid = state.getGrid();
+        if (rand.nextInt(5) == 0) {
+            // Restore the solution so solved boards are part of the corpus
+            GameState solved = new GameState();
+            solved.setMeta(state.getMeta());
+            solved.setRules(state.getRules());
+            solved.setStats(state.getStats());
+            solved.setBoard(generator.getSolvedBoard().copy());
+            return solved;
+        }
+        for (int k = rand.nextInt(rows * cols); k > 0; k--) {
+            grid[rand.nextInt(rows)][rand.nextInt(cols)].rotate(90);
+        }
+        return state;
+    }
+
+    private static GameState randomBoard(int rows, int cols, Random rand) {
+        TileType[] types = TileType.values();
+        Tile[][] grid = new Tile[rows][cols];
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < cols; c++) {
+                TileType type = types[rand.nextInt(types.length)];
+                if (type == TileType.POWER) type = TileType.CROSS;
+                grid[r][c] = new Tile(type, rand.nextInt(4) * 90, rand.nextInt(8) == 0);
+            }
+        }
+
+        Tile power = new Tile(TileType.POWER, rand.nextInt(4) * 90, true);
+        boolean[] conn = new boolean[4];
+        for (int d = 0; d < 4; d++) conn[d] = rand.nextBoolean();
+        power.setConnections(conn);
+        grid[rand.nextInt(rows)][rand.nextInt(cols)] = power;
+
+        Meta meta = new Meta();
+        meta.setWidth(cols);
+        meta.setHeight(rows);
+        meta.setStatus("PLAYING");
+        meta.setTurn("HUMAN");
+        meta.setWraps(rand.nextInt(3) == 0);
+
+        Rules rules = new Rules();
+        rules.setAllowLoops(false);
+
+        GameState state = new GameState();
+        state.setMeta(meta);
+        state.setRules(rules);
+        state.setStats(new Stats());
+        state.setGrid(grid);
+        return state;
+    }
+}
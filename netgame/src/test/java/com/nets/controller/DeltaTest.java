@@ -0,0 +1,115 @@
+package com.nets.controller;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.metrics.Counter;
+import com.nets.metrics.Metrics;
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * A session that keeps boards and sends only the tiles that turned must answer as
+ * one that sends whole boards every time. The same games go to both engines:
+ * runs of single-tile moves (deltas), turns that rotate more tiles than the
+ * board's journal holds (whole board again), and six boards played in turn, more
+ * than a session keeps. Then the engine's copy of a board is made to drift, once
+ * by storing it at another version and once by evicting it, so that the next
+ * delta is refused as stale and the board is sent again. Skipped when there is no
+ * engine (see EngineTests).
+ */
+class DeltaTest {
+    private static final int BOARDS = 6;
+    private static final int JOURNAL_OVERFLOW = 100; // rotations between requests, past PackedBoard's journal
+
+    private final Counter stale = Metrics.counter("engine.staleBoards");
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "json"})
+    void deltasAnswerAsWholeBoards(String protocol) throws Exception {
+        EngineTests.assumeEngine();
+        boolean binary = "binary".equals(protocol);
+        List<GameState> boards = new ArrayList<>();
+        for (int i = 0; i < BOARDS; i++) boards.add(PuzzlePool.generate(10, 10, 100 + i).getState());
+        Random random = new Random(7);
+
+        try (CppEngine deltas = new CppEngine(true, binary); CppEngine whole = new CppEngine(true, binary)) {
+            deltas.setBoardDeltas(true);
+            whole.setBoardDeltas(false);
+
+            for (int round = 0; round < 6; round++) {
+                for (int turn = 0; turn < 8; turn++) {
+                    int moves = turn == 7 && round % 2 == 1 ? JOURNAL_OVERFLOW : 1;
+                    play(boards.get(0), moves, random, deltas, whole);
+                }
+                for (int i = 1; i < BOARDS; i++) play(boards.get(i), 1, random, deltas, whole);
+            }
+            for (int turn = 0; turn < 4; turn++) play(boards.get(0), 1, random, deltas, whole);
+
+            // Stored at a version the Java side never sent
+            GameState state = boards.get(0);
+            long before = stale.getCount();
+            store(deltas, state, state.getBoard().getId(), state.getBoard().getVersion() + 1000);
+            play(state, 1, random, deltas, whole);
+            assertEquals(before + 1, stale.getCount(), "resyncs after a version drift");
+
+            // Pushed out of the session by boards the Java side does not track
+            for (int i = 0; i < 4; i++) store(deltas, boards.get(1), Integer.MAX_VALUE - i, 1);
+            play(state, 1, random, deltas, whole);
+            assertEquals(before + 2, stale.getCount(), "resyncs after an eviction");
+            play(state, 1, random, deltas, whole);
+            assertEquals(before + 2, stale.getCount(), "resyncs once the board is back");
+            assertEquals(protocol, deltas.getProtocol());
+        }
+    }
+
+    // Turns moves random tiles, then asks both engines for stats and a CPU move
+    // and plays that move
+    private static void play(GameState state, int moves, Random random, CppEngine deltas, CppEngine whole)
+            throws Exception {
+        PackedBoard board = state.getBoard();
+        for (int i = 0; i < moves; i++) {
+            int cell;
+            do {
+                cell = random.nextInt(board.size());
+            } while (board.isLocked(cell) || board.isEmpty(cell));
+            board.rotate(cell, 90);
+            state.setLastMove(new Move("HUMAN", cell / board.getCols(), cell % board.getCols(), board.getRotation(cell)));
+        }
+
+        String what = "board " + board.getId() + " at version " + board.getVersion();
+        for (String action : new String[]{"get_stats", "get_cpu_move"}) {
+            EngineResponse a = deltas.request(action, "greedy", false, state);
+            EngineResponse b = whole.request(action, "greedy", false, state);
+            assertEquals(EngineTests.describe(b), EngineTests.describe(a), action + " on " + what);
+        }
+        Move move = whole.request("get_cpu_move", "greedy", false, state).getMove();
+        assertNotNull(move, what);
+        board.setRotation(board.index(move.getRow(), move.getCol()), move.getRotation());
+    }
+
+    // Stores state in the engine's session under id and version, as a request
+    // keeping the board would
+    private static void store(CppEngine engine, GameState state, int id, int version) throws Exception {
+        JsonObject ref = new JsonObject();
+        ref.addProperty("id", id);
+        ref.addProperty("version", version);
+        JsonObject request = new JsonObject();
+        request.addProperty("action", "get_stats");
+        request.addProperty("algo", "greedy");
+        request.add("gameState", new Gson().toJsonTree(state));
+        request.add("board", ref);
+        engine.call(request);
+    }
+}
@@ -0,0 +1,86 @@
+package com.nets.controller;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import com.nets.model.Stats;
+import com.nets.model.VisualStep;
+
+import java.io.FileNotFoundException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Boards and comparisons shared by the tests that talk to the engine. The
+ * engine is found as CppEngine finds it (-Dnets.engine=/path/to/nets_engine to
+ * point at a specific build); tests are skipped when there is none.
+ */
+final class EngineTests {
+
+    private EngineTests() {}
+
+    static void assumeEngine() {
+        boolean found;
+        try {
+            CppEngine.locateExecutable();
+            found = true;
+        } catch (FileNotFoundException e) {
+            found = false;
+        }
+        assumeTrue(found, "nets_engine not found; set -D" + CppEngine.ENGINE_PATH_PROPERTY);
+    }
+
+    // A 12x12 puzzle scrambled in its top four rows, the rest solved and locked:
+    // backtracking records a complete trace of over 13,000 steps on it
+    static GameState traceBoard() {
+        return lockedBelow(PuzzlePool.generate(12, 12, 12345), 4);
+    }
+
+    // Scrambled rows above freeRows, solved and locked tiles below
+    static GameState lockedBelow(PuzzlePool.Puzzle puzzle, int freeRows) {
+        GameState state = puzzle.getState();
+        PackedBoard board = state.getBoard().copy();
+        PackedBoard solved = puzzle.getSolved();
+        for (int cell = freeRows * board.getCols(); cell < board.size(); cell++) {
+            board.setRotation(cell, solved.getRotation(cell));
+            board.setLocked(cell, true);
+        }
+        GameState copy = new GameState();
+        copy.setBoard(board);
+        copy.setMeta(state.getMeta());
+        copy.setRules(state.getRules());
+        return copy;
+    }
+
+    // Every field, so two lists compare equal only if the steps are the same
+    static List<String> describe(List<VisualStep> steps) {
+        if (steps == null) return null;
+        List<String> out = new ArrayList<>(steps.size());
+        for (VisualStep s : steps) {
+            out.add(s.getRow() + "," + s.getCol() + "," + s.getRotation() + "," + s.getType() + "," + s.getScore()
+                    + "," + s.getUpmask() + "," + s.getLeftreq() + "," + s.getR0() + "," + s.getR1()
+                    + "," + s.getC0() + "," + s.getC1());
+        }
+        return out;
+    }
+
+    // Everything but the steps, which callers compare with describe(List)
+    static String describe(EngineResponse response) {
+        return "move=" + describe(response.getMove()) + " stats=" + describe(response.getStats())
+                + " solved=" + response.getSolved() + " implementation=" + response.getImplementation()
+                + " rotations=" + Arrays.deepToString(response.getSolvedRotations());
+    }
+
+    static String describe(Move move) {
+        return move == null ? null : move.getRow() + "," + move.getCol() + "," + move.getRotation();
+    }
+
+    static String describe(Stats stats) {
+        return stats == null ? null : stats.getComponents() + "/" + stats.getLooseEnds() + "/" + stats.isSolved();
+    }
+}
@@ -0,0 +1,58 @@
+package com.nets.controller;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.model.GameState;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JSON and binary sessions must give the same answers: the two protocols have
+ * hand-written codecs on both sides (BinaryProtocol and cpp/BinaryProtocol.hpp).
+ * Every action and algorithm runs on the same boards over both, and the moves,
+ * stats, solutions and visualization steps are compared, including a
+ * backtracking trace of over 10,000 steps. The exact solvers skip the 30x30
+ * board, which is wider than DP handles. Skipped when there is no engine (see
+ * EngineTests).
+ */
+class ProtocolTest {
+    private static final String[] ACTIONS = {"get_stats", "get_cpu_move", "get_visualization_steps", "solve_game"};
+    private static final String[] ALGORITHMS = {"greedy", "backtracking", "dp", "divideandconquer"};
+
+    @Test
+    void jsonAndBinarySessionsAnswerAlike() throws Exception {
+        EngineTests.assumeEngine();
+        List<GameState> boards = new ArrayList<>();
+        boards.add(PuzzlePool.generate(5, 5, 1).getState());
+        boards.add(EngineTests.traceBoard());
+        boards.add(PuzzlePool.generate(30, 30, 3).getState());
+
+        int longest = 0;
+        try (CppEngine json = new CppEngine(true, false); CppEngine binary = new CppEngine(true, true)) {
+            for (GameState board : boards) {
+                int size = board.getBoard().getCols();
+                for (String action : ACTIONS) {
+                    for (String algo : ALGORITHMS) {
+                        if (!"greedy".equals(algo) && size > 16) continue; // beyond the exact solvers
+                        boolean visualize = "get_visualization_steps".equals(action);
+                        EngineResponse a = json.request(action, algo, visualize, board);
+                        EngineResponse b = binary.request(action, algo, visualize, board);
+
+                        String what = action + " " + algo + " on " + size + "x" + size;
+                        assertEquals(EngineTests.describe(a), EngineTests.describe(b), what);
+                        assertEquals(EngineTests.describe(a.getSteps()), EngineTests.describe(b.getSteps()), what);
+                        if (a.getSteps() != null) longest = Math.max(longest, a.getSteps().size());
+                    }
+                }
+            }
+            assertEquals("json", json.getProtocol());
+            assertEquals("binary", binary.getProtocol());
+        }
+        assertTrue(longest > 10_000, "longest trace has " + longest + " steps");
+    }
+}
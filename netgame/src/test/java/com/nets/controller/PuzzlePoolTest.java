@@ -0,0 +1,48 @@
+package com.nets.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * PuzzlePool evicts the size least recently taken or prefetched. Checking how
+ * many puzzles a size has, or refilling it, is not a use and must not save it
+ * from eviction.
+ */
+class PuzzlePoolTest {
+
+    @Test
+    void onlyTakeAndPrefetchCountAsUses() throws Exception {
+        try (PuzzlePool pool = new PuzzlePool(1, 2, 1_000_000)) {
+            pool.prefetch(5, 5);
+            pool.prefetch(6, 6);
+            awaitAvailable(pool, 5, 5);
+            awaitAvailable(pool, 6, 6);
+
+            for (int i = 0; i < 10; i++) assertEquals(1, pool.available(5, 5));
+            pool.prefetch(7, 7); // a third size: 5x5 was used least recently
+            awaitAvailable(pool, 7, 7);
+            assertEquals(0, pool.available(5, 5));
+            assertEquals(1, pool.available(6, 6));
+
+            pool.take(6, 6);
+            pool.prefetch(8, 8); // now 7x7 is the oldest
+            awaitAvailable(pool, 8, 8);
+            assertEquals(0, pool.available(7, 7));
+            awaitAvailable(pool, 6, 6);
+            assertEquals(2 * (6 * 6 + 8 * 8), pool.getHeldCells());
+            assertEquals(1, pool.getHits());
+        }
+    }
+
+    private static void awaitAvailable(PuzzlePool pool, int rows, int cols) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (pool.available(rows, cols) == 0) {
+            assertTrue(System.nanoTime() < deadline, rows + "x" + cols + " never filled");
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.nets.controller;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.engine.SolvePlans;
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SolvePlans must not change the game: the same fixed-seed game is played twice,
+ * once asking the engine for every CPU move and once through a plan, and every
+ * CPU move must be the same. The human turns a random tile each turn, and once
+ * rotates more tiles than the board's journal holds so that the plan is solved
+ * again; the last turns are left to the CPU, which finishes the board and falls
+ * back to greedy's move. Skipped when there is no engine (see EngineTests).
+ */
+class SolvePlansTest {
+    private static final int SIZE = 8;
+    private static final int TURNS = 200;
+    private static final int HUMAN_TURNS = 30;
+    private static final int BURST_TURN = 10;
+    private static final int BURST = 70; // rotations in one turn, past PackedBoard's journal
+
+    @ParameterizedTest
+    @ValueSource(strings = {"backtracking", "dp", "divideandconquer"})
+    void plannedMovesMatchTheEngine(String algo) throws Exception {
+        EngineTests.assumeEngine();
+        GameState off = PuzzlePool.generate(SIZE, SIZE, 2024).getState();
+        GameState on = PuzzlePool.generate(SIZE, SIZE, 2024).getState();
+        SplittableRandom humanOff = new SplittableRandom(5);
+        SplittableRandom humanOn = new SplittableRandom(5);
+        SolvePlans plans = new SolvePlans();
+        plans.setEnabled(true);
+
+        try (CppEngine engine = new CppEngine()) {
+            SolvePlans.EngineCall call = engine::request;
+            SolvePlans disabled = new SolvePlans();
+            disabled.setEnabled(false);
+            assertNull(disabled.nextMove(call, algo, off), "plans off leave the move to the engine");
+
+            for (int turn = 0; turn < TURNS; turn++) {
+                int moves = turn == BURST_TURN ? BURST : turn < HUMAN_TURNS ? 1 : 0;
+                humanMoves(off, moves, humanOff);
+                humanMoves(on, moves, humanOn);
+
+                Move expected = engine.request("get_cpu_move", algo, false, off).getMove();
+                EngineResponse planned = plans.nextMove(call, algo, on);
+                assertNotNull(planned, algo + " is covered by plans");
+                String what = algo + " on turn " + turn;
+                assertEquals(EngineTests.describe(expected), EngineTests.describe(planned.getMove()), what);
+                play(off, expected);
+                play(on, planned.getMove());
+            }
+        }
+        assertTrue(plans.getSolves() >= 2, "solves: " + plans.getSolves());
+        assertTrue(plans.getPlannedMoves() > 0, "planned moves: " + plans.getPlannedMoves());
+        assertTrue(plans.getPlannedMoves() < TURNS, "greedy answered once the board was done");
+    }
+
+    // Quarter turns of random movable tiles, as the human would play them
+    private static void humanMoves(GameState state, int moves, SplittableRandom rand) {
+        PackedBoard board = state.getBoard();
+        for (int i = 0; i < moves; i++) {
+            int cell;
+            do {
+                cell = rand.nextInt(board.size());
+            } while (board.isLocked(cell) || board.isEmpty(cell));
+            board.rotate(cell, 90);
+            state.setLastMove(new Move("HUMAN", cell / SIZE, cell % SIZE, board.getRotation(cell)));
+        }
+    }
+
+    private static void play(GameState state, Move move) {
+        if (move == null) return;
+        PackedBoard board = state.getBoard();
+        board.setRotation(board.index(move.getRow(), move.getCol()), move.getRotation());
+        state.setLastMove(move);
+    }
+}
@@ -0,0 +1,79 @@
+package com.nets.controller;
+
+import com.nets.engine.CppEngine;
+import com.nets.engine.EngineResponse;
+import com.nets.model.GameState;
+import com.nets.model.Move;
+import com.nets.model.PackedBoard;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A speculated CPU reply must be the one the engine gives for the live board
+ * after the human's move. Each turn lets SpeculativeMoves finish its guesses,
+ * then clicks one of them (a different rank every turn) and compares the reply
+ * from take() with get_cpu_move on the live board. A click outside the guesses
+ * must miss. Skipped when there is no engine (see EngineTests).
+ */
+class SpeculativeMovesTest {
+    private static final int SIZE = 10;
+    private static final int GUESSES = 4;
+    private static final int TURNS = 12;
+
+    @ParameterizedTest
+    @ValueSource(strings = {"greedy", "divideandconquer"})
+    void speculatedRepliesMatchTheEngine(String algo) throws Exception {
+        EngineTests.assumeEngine();
+        GameState state = PuzzlePool.generate(SIZE, SIZE, 4242).getState();
+        PackedBoard board = state.getBoard();
+
+        try (CppEngine engine = new CppEngine();
+             SpeculativeMoves speculation = new SpeculativeMoves(GUESSES, 60_000, 32)) {
+            for (int turn = 0; turn < TURNS; turn++) {
+                int[] ranked = SpeculativeMoves.rankMoves(board, state.getMeta().isWraps(), board.size());
+                int computed = speculation.getComputed();
+                speculation.start(state, algo);
+                awaitComputed(speculation, computed + Math.min(GUESSES, ranked.length));
+
+                boolean guessed = turn % (GUESSES + 1) < GUESSES;
+                int cell = ranked[guessed ? turn % (GUESSES + 1) : GUESSES];
+                board.rotate(cell, 90);
+                state.getMeta().setTurn("CPU");
+                state.setLastMove(new Move("HUMAN", cell / SIZE, cell % SIZE, board.getRotation(cell)));
+
+                CompletableFuture<EngineResponse> reply = speculation.take(state, algo);
+                EngineResponse answer = engine.request("get_cpu_move", algo, false, state);
+                String what = algo + " on turn " + turn;
+                if (guessed) {
+                    assertNotNull(reply, what);
+                    assertEquals(EngineTests.describe(answer), EngineTests.describe(reply.get(10, TimeUnit.SECONDS)), what);
+                } else {
+                    assertNull(reply, what);
+                }
+
+                Move cpu = answer.getMove();
+                board.setRotation(board.index(cpu.getRow(), cpu.getCol()), cpu.getRotation());
+                state.setLastMove(cpu);
+                state.getMeta().setTurn("HUMAN");
+            }
+            assertEquals(TURNS - TURNS / (GUESSES + 1), speculation.getHits());
+            assertEquals(TURNS / (GUESSES + 1), speculation.getMisses());
+        }
+    }
+
+    private static void awaitComputed(SpeculativeMoves speculation, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (speculation.getComputed() < count) {
+            assertTrue(System.nanoTime() < deadline, "speculation computed " + speculation.getComputed());
+            Thread.sleep(5);
+        }
+    }
+}
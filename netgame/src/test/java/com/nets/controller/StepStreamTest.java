@@ -0,0 +1,40 @@
+package com.nets.controller;
+
+import com.nets.engine.CppEngine;
+import com.nets.model.GameState;
+import com.nets.model.VisualStep;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Visualization steps handed to a consumer while the response is decoded must
+ * be the steps the same request returns as a list, over binary and JSON
+ * sessions and one-shot processes, on a trace of over 10,000 steps.
+ */
+class StepStreamTest {
+
+    @ParameterizedTest
+    @ValueSource(strings = {"binary", "json", "one-shot"})
+    void streamedStepsMatchCollectedOnes(String mode) throws Exception {
+        EngineTests.assumeEngine();
+        GameState trace = EngineTests.traceBoard();
+        try (CppEngine engine = "one-shot".equals(mode) ? new CppEngine(false)
+                : new CppEngine(true, "binary".equals(mode))) {
+            List<VisualStep> collected = engine.request("get_visualization_steps", "backtracking", true, trace)
+                    .getSteps();
+            List<VisualStep> streamed = new ArrayList<>();
+            assertNull(engine.request("get_visualization_steps", "backtracking", true, trace, streamed::add)
+                    .getSteps(), "a streamed response keeps no step list");
+
+            assertTrue(collected.size() > 10_000, "trace has " + collected.size() + " steps");
+            assertEquals(EngineTests.describe(collected), EngineTests.describe(streamed));
+        }
+    }
+}
@@ -2,239 +2,566 @@
 #include <iostream>
 #include <string>
 #include <exception>
+#ifdef _WIN32
+#include <fcntl.h>
+#include <io.h>
+#endif
 
 // Include the combined header-only files
 #include "cpp/ConnectivityCheck.hpp"
 #include "cpp/CpuStrategy.hpp"
 #include "cpp/DpSolver.hpp"
 #include "cpp/BtSolver.hpp"
+#include "cpp/BinaryProtocol.hpp"
 #include "cpp/DacSolver.hpp"
 #include "cpp/GameLogic.hpp"
 #include "cpp/GraphBuilder.hpp"
 #include "cpp/JsonExporter.hpp"
 #include "cpp/JsonImporter.hpp"
 #include "cpp/JsonUtils.hpp"
+#include "cpp/SessionBoards.hpp"
 #include "cpp/Tile.hpp"
 
 using namespace std;
 
-int main(int argc, char *argv[]) {
-  try {
-    json request;
-    if (argc > 1) {
-      string inputFile = argv[1];
-      ifstream i(inputFile);
-      if (!i.is_open()) {
-          cerr << "Error: Could not open input file: " << inputFile << endl;
-          return 1;
+// Raised for malformed requests. In one-shot mode these end the process with
+// exit code 1; in session mode they are reported back and the loop continues.
+struct RequestError : runtime_error {
+  using runtime_error::runtime_error;
+};
+
+// Capabilities advertised to the Java side when a session starts.
+// Time Complexity: $O(1)$
+// Space Complexity: $O(1)$
+json handshake() {
+  json response;
+  response["session"] = true;
+  response["protocols"] = {"json", "binary"};
+  response["features"] = {"board_deltas"};
+  return response;
+}
+
+// A request after parsing, independent of the wire format it arrived in.
+struct EngineRequest {
+  string action;
+  string algo = "greedy";
+  string solver = "dp";
+  bool visualize = false;
+  GameState state{0, 0, false};
+  pair<int, int> lastMovedTile = {-1, -1};
+};
+
+// What an action produced; the encoders only emit the parts that are set.
+struct EngineResult {
+  bool hasMove = false;
+  Move move = {0, 0, 0};
+  bool hasStats = false;
+  int components = 0;
+  int looseEnds = 0;
+  bool solved = false;
+  bool hasSteps = false;
+  vector<VisualStep> steps;
+  bool hasSolution = false;
+  bool solutionFound = false;
+  string implementation;
+  Board solution{0, 0, false};
+};
+
+// ---- Parse stage ----
+
+// "board": {"id", "version"} next to a gameState stores it in the session;
+// "board": {"id", "base", "version", "deltas": [{row, col, rotation}], "lastMove"}
+// without a gameState applies the deltas to the stored copy instead.
+// Time Complexity: $O(N)$ where N is the number of cells; $O(D)$ parsing for deltas
+// Space Complexity: $O(N)$
+EngineRequest parseJsonRequest(const json &request, SessionBoards *boards) {
+  if (!request.contains("action")) {
+      throw RequestError("Missing 'action' in request");
+  }
+  EngineRequest req;
+  req.action = request["action"];
+  if (req.action == "hello") return req;
+
+  req.algo = request.contains("algo") ? request["algo"].get<string>() : "greedy";
+  req.solver = request.contains("solver") ? request["solver"].get<string>() : "dp";
+  req.visualize = request.contains("visualize") ? request["visualize"].get<bool>() : false;
+
+  const json *boardRef = request.contains("board") ? &request["board"] : nullptr;
+  if (boardRef && !boards) {
+      throw RequestError("'board' is only accepted in session mode");
+  }
+  if (boardRef && boardRef->contains("deltas")) {
+      vector<TileDelta> deltas;
+      for (const json &d : (*boardRef)["deltas"]) {
+          deltas.push_back({d["row"].get<int>(), d["col"].get<int>(), d["rotation"].get<int>()});
       }
-      request = json::parse(i);
-    } else {
-      request = json::parse(cin);
-    }
+      req.state = boards->apply((*boardRef)["id"].get<uint32_t>(), (*boardRef)["base"].get<uint32_t>(),
+                                (*boardRef)["version"].get<uint32_t>(), deltas);
+      if (boardRef->contains("lastMove") && !(*boardRef)["lastMove"].is_null()) {
+          const json &moveJson = (*boardRef)["lastMove"];
+          req.lastMovedTile = {moveJson["row"].get<int>(), moveJson["col"].get<int>()};
+      }
+      return req;
+  }
 
-    if (!request.contains("action")) {
-        cerr << "Error: Missing 'action' in request" << endl;
-        return 1;
-    }
-    string action = request["action"];
-    
-    if (!request.contains("gameState")) {
-        cerr << "Error: Missing 'gameState' in request" << endl;
-        return 1;
-    }
-    json inputJson = request["gameState"];
+  if (!request.contains("gameState")) {
+      throw RequestError("Missing 'gameState' in request");
+  }
+  const json &inputJson = request["gameState"];
 
-    if (!inputJson.contains("meta") || !inputJson["meta"].contains("width") || !inputJson["meta"].contains("height")) {
-        cerr << "Error: Missing 'meta' or 'width'/'height' in gameState" << endl;
-        return 1;
-    }
+  if (!inputJson.contains("meta") || !inputJson["meta"].contains("width") || !inputJson["meta"].contains("height")) {
+      throw RequestError("Missing 'meta' or 'width'/'height' in gameState");
+  }
 
-    int width = inputJson["meta"]["width"];
-    int height = inputJson["meta"]["height"];
-    bool wraps = inputJson["meta"].contains("wraps") ? inputJson["meta"]["wraps"].get<bool>() : false;
+  int width = inputJson["meta"]["width"];
+  int height = inputJson["meta"]["height"];
+  bool wraps = inputJson["meta"].contains("wraps") ? inputJson["meta"]["wraps"].get<bool>() : false;
 
-    GameState state(width, height, wraps);
-    if (inputJson["meta"].contains("status")) {
-        state.status = stringToStatus(inputJson["meta"]["status"]);
-    }
-    if (inputJson["meta"].contains("turn")) {
-        state.turn = static_cast<int>(stringToActor(inputJson["meta"]["turn"]));
-    }
+  GameState &state = req.state;
+  state = GameState(width, height, wraps);
+  if (inputJson["meta"].contains("status")) {
+      state.status = stringToStatus(inputJson["meta"]["status"]);
+  }
+  if (inputJson["meta"].contains("turn")) {
+      state.turn = static_cast<int>(stringToActor(inputJson["meta"]["turn"]));
+  }
 
-    if (!inputJson.contains("grid")) {
-        cerr << "Error: Missing 'grid' in gameState" << endl;
-        return 1;
-    }
-    auto gridJson = inputJson["grid"];
-    for (int r = 0; r < height; ++r) {
-      for (int c = 0; c < width; ++c) {
-        if (r >= gridJson.size() || c >= gridJson[r].size()) continue;
-        
-        auto tObj = gridJson[r][c];
-        TileType type = tObj.contains("type") ? stringToTileType(tObj["type"]) : EMPTY;
-        int rotation = tObj.contains("rotation") ? tObj["rotation"].get<int>() : 0;
-        bool locked = tObj.contains("locked") ? tObj["locked"].get<bool>() : false;
-        state.board.at(r, c) = Tile(type, rotation, locked);
-
-        if (tObj.contains("connections")) {
-          state.board.at(r, c).customConnections =
-              tObj["connections"].get<vector<bool>>();
-        }
+  if (!inputJson.contains("grid")) {
+      throw RequestError("Missing 'grid' in gameState");
+  }
+  const json &gridJson = inputJson["grid"];
+  for (int r = 0; r < height; ++r) {
+    for (int c = 0; c < width; ++c) {
+      if (r >= gridJson.size() || c >= gridJson[r].size()) continue;
+      
+      const json &tObj = gridJson[r][c];
+      TileType type = tObj.contains("type") ? stringToTileType(tObj["type"]) : EMPTY;
+      int rotation = tObj.contains("rotation") ? tObj["rotation"].get<int>() : 0;
+      bool locked = tObj.contains("locked") ? tObj["locked"].get<bool>() : false;
+      state.board.at(r, c) = Tile(type, rotation, locked);
 
-        if (type == POWER)
-          state.board.powerTile = {r, c};
+      if (tObj.contains("connections")) {
+        state.board.at(r, c).customConnections =
+            tObj["connections"].get<vector<bool>>();
       }
-    }
 
-    pair<int, int> lastMovedTile = {-1, -1};
-    // Support both camelCase and snake_case for last move
-    json moveJson;
-    if (inputJson.contains("lastMove") && !inputJson["lastMove"].is_null()) {
-        moveJson = inputJson["lastMove"];
-    } else if (inputJson.contains("last_move") && !inputJson["last_move"].is_null()) {
-        moveJson = inputJson["last_move"];
+      if (type == POWER)
+        state.board.powerTile = {r, c};
     }
+  }
 
-    if (!moveJson.is_null() && moveJson.contains("row") && moveJson.contains("col")) {
-        lastMovedTile = {moveJson["row"].get<int>(), moveJson["col"].get<int>()};
-    }
+  // Support both camelCase and snake_case for last move
+  json moveJson;
+  if (inputJson.contains("lastMove") && !inputJson["lastMove"].is_null()) {
+      moveJson = inputJson["lastMove"];
+  } else if (inputJson.contains("last_move") && !inputJson["last_move"].is_null()) {
+      moveJson = inputJson["last_move"];
+  }
 
-    json response;
+  if (!moveJson.is_null() && moveJson.contains("row") && moveJson.contains("col")) {
+      req.lastMovedTile = {moveJson["row"].get<int>(), moveJson["col"].get<int>()};
+  }
+  if (boardRef) {
+      boards->store((*boardRef)["id"].get<uint32_t>(), (*boardRef)["version"].get<uint32_t>(), state);
+  }
+  return req;
+}
 
-    if (action == "get_cpu_move") {
-      string algo = request.contains("algo") ? request["algo"].get<string>() : "greedy";
-      bool visualize = request.contains("visualize") ? request["visualize"].get<bool>() : false;
-      Move bestMove = {0, 0, 0};
-      vector<VisualStep> steps;
+// Binary request: u8 action, u8 algo, u8 flags (1 visualize, 2 wraps, 4 last move,
+// 8 store board, 16 board deltas), u16 width, u16 height, i16 lastRow, i16 lastCol.
+// Then, with flag 16: u32 board id, u32 base version, u32 version, u16 count and
+// count deltas (u16 row, u16 col, u8 quarter turns). Otherwise (after u32 id and
+// u32 version with flag 8) one byte per cell, then one connection mask per cell
+// that has custom connections.
+// Time Complexity: $O(N)$, or $O(D)$ parsing for deltas
+// Space Complexity: $O(N)$
+EngineRequest parseBinaryRequest(binproto::Reader &in, uint8_t action, SessionBoards *boards) {
+  static const char *const actions[] = {"", "get_cpu_move", "get_stats", "get_visualization_steps", "solve_game"};
+  if (action < binproto::ACTION_CPU_MOVE || action > binproto::ACTION_SOLVE) {
+      throw RequestError("Unknown binary action " + to_string(action));
+  }
+  EngineRequest req;
+  req.action = actions[action];
+
+  uint8_t algo = in.u8();
+  if (algo > 3) throw RequestError("Unknown binary algo " + to_string(algo));
+  req.algo = binproto::algoNames()[algo];
+  req.solver = algo == 1 ? "bt" : algo == 3 ? "dac" : "dp";
+
+  uint8_t flags = in.u8();
+  req.visualize = (flags & binproto::FLAG_VISUALIZE) != 0;
+  int width = in.u16();
+  int height = in.u16();
+  int lastRow = in.i16();
+  int lastCol = in.i16();
+  if (flags & binproto::FLAG_LAST_MOVE) req.lastMovedTile = {lastRow, lastCol};
+
+  if ((flags & (binproto::FLAG_STORE_BOARD | binproto::FLAG_BOARD_DELTAS)) && !boards) {
+      throw RequestError("Stored boards are only available in session mode");
+  }
+  if (flags & binproto::FLAG_BOARD_DELTAS) {
+      uint32_t id = in.u32();
+      uint32_t base = in.u32();
+      uint32_t version = in.u32();
+      vector<TileDelta> deltas(in.u16());
+      for (TileDelta &d : deltas) {
+          d.row = in.u16();
+          d.col = in.u16();
+          d.rotation = (in.u8() & 3) * 90;
+      }
+      req.state = boards->apply(id, base, version, deltas);
+      if (req.state.board.width != width || req.state.board.height != height) {
+          throw StaleBoard("Board " + to_string(id) + " has different dimensions");
+      }
+      return req;
+  }
+  uint32_t storeId = 0, storeVersion = 0;
+  if (flags & binproto::FLAG_STORE_BOARD) {
+      storeId = in.u32();
+      storeVersion = in.u32();
+  }
 
-      if (algo == "backtracking" || algo == "dp" || algo == "divideandconquer") {
+  GameState &state = req.state;
+  state = GameState(width, height, (flags & binproto::FLAG_WRAPS) != 0);
+  vector<int> custom;
+  for (int cell = 0; cell < width * height; ++cell) {
+      uint8_t bits = in.u8();
+      if ((bits & 0x7) > CROSS) throw RequestError("Bad tile type in binary request");
+      Tile &tile = state.board.grid[cell];
+      tile = binproto::decodeCell(bits);
+      if (bits & 0x40) custom.push_back(cell);
+      if (tile.type == POWER) state.board.powerTile = {cell / width, cell % width};
+  }
+  for (int cell : custom) {
+      state.board.grid[cell].customConnections = binproto::decodeConnections(in.u8());
+  }
+  if (flags & binproto::FLAG_STORE_BOARD) boards->store(storeId, storeVersion, state);
+  return req;
+}
+
+// ---- Execute stage ----
+
+// Time Complexity: dominated by the requested action (see the solvers)
+// Space Complexity: $O(N)$ for the board plus any recorded steps
+EngineResult execute(EngineRequest &req) {
+  GameState &state = req.state;
+  int width = state.board.width;
+  int height = state.board.height;
+  const string &algo = req.algo;
+  EngineResult result;
+
+  if (req.action == "get_cpu_move") {
+    Move bestMove = {0, 0, 0};
+    vector<VisualStep> &steps = result.steps;
+
+    if (algo == "backtracking" || algo == "dp" || algo == "divideandconquer") {
+        Board solvedBoard = state.board;
+        bool success = false;
+        if (algo == "backtracking") {
+            success = solve_bt(solvedBoard, req.visualize ? &steps : nullptr);
+        } else if (algo == "dp") {
+            success = solve_dp(solvedBoard, req.visualize ? &steps : nullptr);
+        } else if (algo == "divideandconquer") {
+            success = solve_dac(solvedBoard, req.visualize ? &steps : nullptr);
+        }
+
+        if (success) {
+            // Find first tile that differs
+            bool found = false;
+            for (int r = 0; r < height && !found; ++r) {
+                for (int c = 0; c < width && !found; ++c) {
+                    int currentRot = state.board.at(r, c).rotation;
+                    int targetRot = solvedBoard.at(r, c).rotation;
+                    if (currentRot != targetRot) {
+                        // Rotate 90 degrees clockwise towards target
+                        bestMove = {r, c, (currentRot + 90) % 360};
+                        found = true;
+                    }
+                }
+            }
+            if (!found) {
+                bestMove = chooseBestMove_greedy(state.board, req.lastMovedTile);
+            }
+        } else {
+            bestMove = chooseBestMove_greedy(state.board, req.lastMovedTile);
+        }
+    } else {
+        bestMove = chooseBestMove_greedy(state.board, req.lastMovedTile);
+    }
+
+    result.hasMove = true;
+    result.move = bestMove;
+    result.hasSteps = req.visualize;
+  } else if (req.action == "get_visualization_steps") {
+      vector<VisualStep> &steps = result.steps;
+      
+      if (algo == "greedy") {
+          for (int r = 0; r < height; ++r) {
+              for (int c = 0; c < width; ++c) {
+                  if (state.board.at(r, c).locked || state.board.at(r, c).type == EMPTY) continue;
+                  
+                  int originalRot = state.board.at(r, c).rotation;
+                  for (int rot : {0, 90, 180, 270}) {
+                      state.board.at(r, c).rotation = rot;
+                      double score = (double)evaluateBoard_greedy(state.board);
+                      steps.push_back({r, c, rot, "TRY", 0});
+                      steps.push_back({r, c, rot, "SCORE", score});
+                  }
+                  state.board.at(r, c).rotation = originalRot;
+                  steps.push_back({r, c, originalRot, "UNDO", 0});
+              }
+          }
+      } else if (algo == "backtracking" || algo == "dp" || algo == "divideandconquer") {
           Board solvedBoard = state.board;
-          bool success = false;
           if (algo == "backtracking") {
-              success = solve_bt(solvedBoard, visualize ? &steps : nullptr);
+              solve_bt(solvedBoard, &steps);
           } else if (algo == "dp") {
-              success = solve_dp(solvedBoard, visualize ? &steps : nullptr);
+              solve_dp(solvedBoard, &steps);
           } else if (algo == "divideandconquer") {
-              success = solve_dac(solvedBoard, visualize ? &steps : nullptr);
+              solve_dac(solvedBoard, &steps);
           }
+      }
+      result.hasSteps = true;
 
-          if (success) {
-              // Find first tile that differs
-              bool found = false;
-              for (int r = 0; r < height && !found; ++r) {
-                  for (int c = 0; c < width && !found; ++c) {
-                      int currentRot = state.board.at(r, c).rotation;
-                      int targetRot = solvedBoard.at(r, c).rotation;
-                      if (currentRot != targetRot) {
-                          // Rotate 90 degrees clockwise towards target
-                          bestMove = {r, c, (currentRot + 90) % 360};
-                          found = true;
-                      }
-                  }
-              }
-              if (!found) {
-                  bestMove = chooseBestMove_greedy(state.board, lastMovedTile);
-              }
-          } else {
-              bestMove = chooseBestMove_greedy(state.board, lastMovedTile);
-          }
-      } else {
-          bestMove = chooseBestMove_greedy(state.board, lastMovedTile);
+  } else if (req.action == "get_stats") {
+    Graph graph = buildGraph(state.board);
+    result.hasStats = true;
+    result.components = countComponents(graph);
+    result.looseEnds = countLooseEnds(state.board);
+    result.solved = isSolved(state.board);
+  } else if (req.action == "solve_game") {
+    if (req.solver == "bt") {
+        result.implementation = "Backtracking (BT)";
+        result.solutionFound = solve_bt(state.board);
+    } else if (req.solver == "dac") {
+        result.implementation = "Divide and Conquer (DAC)";
+        result.solutionFound = solve_dac(state.board);
+    } else {
+        result.implementation = "Dynamic Programming (DP)";
+        result.solutionFound = solve_dp(state.board);
+    }
+    result.hasSolution = true;
+    result.solution = state.board;
+  }
+
+  return result;
+}
+
+// ---- Encode stage ----
+
+// Time Complexity: $O(N + S)$ for the solution grid and S steps
+// Space Complexity: $O(N + S)$
+json encodeJson(const EngineResult &result) {
+  json response = json::object();
+  if (result.hasMove) {
+    response["move"] = {{"row", result.move.x},
+                        {"col", result.move.y},
+                        {"rotation", result.move.rotation}};
+  }
+  if (result.hasSteps) {
+    json steps_json = json::array();
+    for (const auto& s : result.steps) {
+        steps_json.push_back(s.to_json());
+    }
+    response["steps"] = steps_json;
+  }
+  if (result.hasStats) {
+    response["stats"] = {{"components", result.components},
+                         {"looseEnds", result.looseEnds},
+                         {"solved", result.solved}};
+  }
+  if (result.hasSolution) {
+    response["solved"] = result.solutionFound;
+    response["implementation"] = result.implementation;
+    
+    if (result.solutionFound) {
+      json solvedGrid = json::array();
+      for (int r = 0; r < result.solution.height; r++) {
+        json row = json::array();
+        for (int c = 0; c < result.solution.width; c++) {
+          json tile;
+          tile["rotation"] = result.solution.at(r, c).rotation;
+          row.push_back(tile);
+        }
+        solvedGrid.push_back(row);
       }
+      response["grid"] = solvedGrid;
+    }
+  }
+  return response;
+}
 
-      response["move"] = {{"row", bestMove.x},
-                          {"col", bestMove.y},
-                          {"rotation", bestMove.rotation}};
-      if (visualize) {
-          json steps_json = json::array();
-          for (const auto& s : steps) {
-              steps_json.push_back(s.to_json());
-          }
-          response["steps"] = steps_json;
+// Binary response: u8 status (0), u8 section flags, then the present sections in
+// flag order: move (3 x i16), stats (2 x i32, u8), steps (u32 count, fixed-width
+// records), solution (u8 found, u16 name length, name, per-cell quarter turns).
+// Time Complexity: $O(N + S)$
+// Space Complexity: $O(N + S)$
+string encodeBinary(const EngineResult &result) {
+  binproto::Writer out;
+  out.u8(0);
+  uint8_t sections = (result.hasMove ? binproto::SECTION_MOVE : 0)
+      | (result.hasStats ? binproto::SECTION_STATS : 0)
+      | (result.hasSteps ? binproto::SECTION_STEPS : 0)
+      | (result.hasSolution ? binproto::SECTION_SOLUTION : 0);
+  out.u8(sections);
+  if (result.hasMove) {
+      out.i16(result.move.x);
+      out.i16(result.move.y);
+      out.i16(result.move.rotation);
+  }
+  if (result.hasStats) {
+      out.i32(result.components);
+      out.i32(result.looseEnds);
+      out.u8(result.solved ? 1 : 0);
+  }
+  if (result.hasSteps) {
+      out.out.reserve(out.out.size() + 4 + result.steps.size() * binproto::STEP_RECORD_BYTES);
+      out.u32(static_cast<uint32_t>(result.steps.size()));
+      for (const auto &s : result.steps) out.step(s);
+  }
+  if (result.hasSolution) {
+      out.u8(result.solutionFound ? 1 : 0);
+      out.u16(static_cast<uint16_t>(result.implementation.size()));
+      out.bytes(result.implementation);
+      if (result.solutionFound) {
+          for (const Tile &tile : result.solution.grid) out.u8(static_cast<uint8_t>((tile.rotation / 90) % 4));
       }
-    } else if (action == "get_visualization_steps") {
-        string algo = request.contains("algo") ? request["algo"].get<string>() : "greedy";
-        vector<VisualStep> steps;
-        
-        if (algo == "greedy") {
-            for (int r = 0; r < height; ++r) {
-                for (int c = 0; c < width; ++c) {
-                    if (state.board.at(r, c).locked || state.board.at(r, c).type == EMPTY) continue;
-                    
-                    int originalRot = state.board.at(r, c).rotation;
-                    for (int rot : {0, 90, 180, 270}) {
-                        state.board.at(r, c).rotation = rot;
-                        double score = (double)evaluateBoard_greedy(state.board);
-                        steps.push_back({r, c, rot, "TRY", 0});
-                        steps.push_back({r, c, rot, "SCORE", score});
-                    }
-                    state.board.at(r, c).rotation = originalRot;
-                    steps.push_back({r, c, originalRot, "UNDO", 0});
-                }
-            }
-        } else if (algo == "backtracking" || algo == "dp" || algo == "divideandconquer") {
-            Board solvedBoard = state.board;
-            if (algo == "backtracking") {
-                solve_bt(solvedBoard, &steps);
-            } else if (algo == "dp") {
-                solve_dp(solvedBoard, &steps);
-            } else if (algo == "divideandconquer") {
-                solve_dac(solvedBoard, &steps);
-            }
-        }
-        
-        json steps_json = json::array();
-        for (const auto& s : steps) {
-            steps_json.push_back(s.to_json());
+  }
+  return out.out;
+}
+
+// Time Complexity: dominated by the requested action (see the solvers)
+// Space Complexity: $O(N)$ for the board plus any recorded steps
+json handleRequest(const json &request, SessionBoards *boards = nullptr) {
+  EngineRequest req = parseJsonRequest(request, boards);
+  if (req.action == "hello") {
+      return handshake();
+  }
+  return encodeJson(execute(req));
+}
+
+// Time Complexity: same as handleRequest
+// Space Complexity: $O(N + S)$
+string handleBinaryRequest(const string &payload, SessionBoards &boards) {
+  binproto::Reader in(payload);
+  uint8_t action = in.u8();
+  if (action == binproto::ACTION_JSON) {
+      binproto::Writer out;
+      out.u8(0);
+      out.u8(binproto::SECTION_JSON);
+      out.bytes(handleRequest(json::parse(in.rest()), &boards).dump());
+      return out.out;
+  }
+  EngineRequest req = parseBinaryRequest(in, action, &boards);
+  return encodeBinary(execute(req));
+}
+
+static void writeFrame(const string &payload) {
+  uint32_t n = static_cast<uint32_t>(payload.size());
+  char header[4] = {static_cast<char>(n >> 24), static_cast<char>(n >> 16),
+                    static_cast<char>(n >> 8), static_cast<char>(n)};
+  cout.write(header, 4);
+  cout.write(payload.data(), payload.size());
+  cout.flush();
+}
+
+// Binary session loop; returns when stdin is closed. Error frames have status 1,
+// or 2 when a delta request named a board version the session does not have.
+static int runBinarySession(SessionBoards &boards) {
+  char header[4];
+  while (cin.read(header, 4)) {
+    uint32_t n = (uint32_t)(uint8_t)header[0] << 24 | (uint32_t)(uint8_t)header[1] << 16
+        | (uint32_t)(uint8_t)header[2] << 8 | (uint8_t)header[3];
+    string payload(n, '\0');
+    if (n > 0 && !cin.read(&payload[0], n)) break;
+    try {
+      writeFrame(handleBinaryRequest(payload, boards));
+    } catch (const StaleBoard &e) {
+      binproto::Writer out;
+      out.u8(2);
+      out.bytes(e.what());
+      writeFrame(out.out);
+    } catch (const std::exception &e) {
+      cerr << "Engine Error: " << e.what() << endl;
+      binproto::Writer out;
+      out.u8(1);
+      out.bytes(e.what());
+      writeFrame(out.out);
+    }
+  }
+  return 0;
+}
+
+// Session mode: one JSON request per line on stdin, one JSON response per
+// line on stdout. The process stays up until stdin is closed, so the board
+// parsing cost is paid per request but the spawn cost only once per game.
+// {"action":"set_protocol","protocol":"binary"} is acknowledged in JSON and
+// switches both directions to length-prefixed binary frames. Boards sent with a
+// board id stay in the session so later requests can carry only deltas.
+int runSession() {
+#ifdef _WIN32
+  _setmode(_fileno(stdin), _O_BINARY);
+  _setmode(_fileno(stdout), _O_BINARY);
+#endif
+  SessionBoards boards;
+  string line;
+  while (getline(cin, line)) {
+    if (line.empty() || line == "\r") continue;
+    json response;
+    bool switchToBinary = false;
+    try {
+      json request = json::parse(line);
+      if (request.contains("action") && request["action"] == "set_protocol") {
+        string protocol = request.contains("protocol") ? request["protocol"].get<string>() : "";
+        if (protocol != "json" && protocol != "binary") {
+          throw RequestError("Unsupported protocol '" + protocol + "'");
         }
-        response["steps"] = steps_json;
-
-    } else if (action == "get_stats") {
-      Graph graph = buildGraph(state.board);
-      int components = countComponents(graph);
-      int looseEnds = countLooseEnds(state.board);
-      bool solved = isSolved(state.board);
-
-      response["stats"] = {{"components", components},
-                           {"looseEnds", looseEnds},
-                           {"solved", solved}};
-    } else if (action == "solve_game") {
-      string solverType = request.contains("solver") ? request["solver"].get<string>() : "dp";
-      bool success = false;
-      string implementation = "";
-
-      if (solverType == "bt") {
-          implementation = "Backtracking (BT)";
-          success = solve_bt(state.board);
-      } else if (solverType == "dac") {
-          implementation = "Divide and Conquer (DAC)";
-          success = solve_dac(state.board);
+        response["protocol"] = protocol;
+        switchToBinary = protocol == "binary";
       } else {
-          implementation = "Dynamic Programming (DP)";
-          success = solve_dp(state.board);
+        response = handleRequest(request, &boards);
       }
+    } catch (const StaleBoard &e) {
+      response = json::object();
+      response["error"] = e.what();
+      response["staleBoard"] = true;
+    } catch (const std::exception &e) {
+      cerr << "Engine Error: " << e.what() << endl;
+      response = json::object();
+      response["error"] = e.what();
+    }
+    cout << response << "\n" << flush;
+    if (switchToBinary) return runBinarySession(boards);
+  }
+  return 0;
+}
 
-      response["solved"] = success;
-      response["implementation"] = implementation;
-      
-      if (success) {
-        json solvedGrid = json::array();
-        for (int r = 0; r < height; r++) {
-          json row = json::array();
-          for (int c = 0; c < width; c++) {
-            json tile;
-            tile["rotation"] = state.board.at(r, c).rotation;
-            row.push_back(tile);
-          }
-          solvedGrid.push_back(row);
-        }
-        response["grid"] = solvedGrid;
+int main(int argc, char *argv[]) {
+  if (argc > 1 && string(argv[1]) == "--session") {
+    ios::sync_with_stdio(false);
+    return runSession();
+  }
+
+  try {
+    json request;
+    if (argc > 1) {
+      string inputFile = argv[1];
+      ifstream i(inputFile);
+      if (!i.is_open()) {
+          cerr << "Error: Could not open input file: " << inputFile << endl;
+          return 1;
       }
+      request = json::parse(i);
+    } else {
+      request = json::parse(cin);
     }
 
+    json response = handleRequest(request);
     cout << response << endl;
 
+  } catch (const RequestError &e) {
+    cerr << "Error: " << e.what() << endl;
+    return 1;
   } catch (const std::exception &e) {
     cerr << "Engine Error: " << e.what() << endl;
     cout << "{}" << endl;